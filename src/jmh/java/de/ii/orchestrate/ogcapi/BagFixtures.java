@@ -0,0 +1,156 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.ObjectTypeRef;
+import org.dotwebstack.orchestrate.model.Relation;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Fixtures for the benchmarks: a BAG source model and GeoJSON responses with the structure of the responses of the BAG
+ * API at https://wau.ldproxy.net/bag. The responses are generated deterministically, so that the results of different
+ * runs can be compared.
+ */
+final class BagFixtures {
+
+  static final Model BAG = Model.builder()
+      .alias("bag")
+      .objectType(ObjectType.builder()
+          .name("Pand")
+          .property(attribute("identificatie", true))
+          .property(Attribute.builder()
+              .name("oorspronkelijkBouwjaar")
+              .type(ScalarTypes.INTEGER)
+              .cardinality(Cardinality.REQUIRED)
+              .build())
+          .property(attribute("status", false))
+          .property(attribute("documentnummer", false))
+          .property(attribute("documentdatum", false))
+          .property(Attribute.builder()
+              .name("geometrie")
+              .type(new GeometryType())
+              .cardinality(Cardinality.REQUIRED)
+              .build())
+          .build())
+      .objectType(ObjectType.builder()
+          .name("Verblijfsobject")
+          .property(attribute("identificatie", true))
+          .property(attribute("status", false))
+          .property(Attribute.builder()
+              .name("oppervlakte")
+              .type(ScalarTypes.INTEGER)
+              .cardinality(Cardinality.REQUIRED)
+              .build())
+          .property(Relation.builder()
+              .name("maaktDeelUitVan")
+              .target(ObjectTypeRef.forType("Pand"))
+              .cardinality(Cardinality.MULTI)
+              .build())
+          .build())
+      .build();
+
+  static final String CONFORMANCE = """
+      {"conformsTo": [
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core",
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson",
+        "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs",
+        "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter",
+        "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text",
+        "http://www.opengis.net/spec/cql2/1.0/conf/advanced-comparison-operators"
+      ]}""";
+
+  private BagFixtures() {
+  }
+
+  /**
+   * A feature collection response with the given number of "Pand" features.
+   */
+  static byte[] featureCollection(int features) {
+    var json = new StringBuilder(features * 1_200 + 512);
+    json.append("{\"type\":\"FeatureCollection\",\"numberMatched\":").append(features)
+        .append(",\"numberReturned\":").append(features).append(",\"features\":[");
+    for (int i = 0; i < features; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendFeature(json, i);
+    }
+    json.append("],\"links\":[{\"href\":\"https://wau.ldproxy.net/bag/collections/pand/items?f=json\",")
+        .append("\"rel\":\"self\",\"type\":\"application/geo+json\",\"title\":\"This document\"}],")
+        .append("\"timeStamp\":\"2023-06-01T12:00:00Z\"}");
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  static String identifier(int index) {
+    return String.format("03631000%08d", index);
+  }
+
+  /**
+   * Splits a response into chunks, as they are received from the network.
+   */
+  static List<byte[]> chunks(byte[] response, int size) {
+    List<byte[]> chunks = new ArrayList<>();
+    for (int i = 0; i < response.length; i += size) {
+      chunks.add(Arrays.copyOfRange(response, i, Math.min(response.length, i + size)));
+    }
+    return chunks;
+  }
+
+  /**
+   * A local API that only provides the conformance declaration.
+   */
+  static DisposableServer startApi() {
+    return HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .route(routes -> routes.get("/bag/conformance",
+            (request, response) -> response.header("Content-Type", "application/json")
+                .sendString(Mono.just(CONFORMANCE))))
+        .bindNow();
+  }
+
+  private static void appendFeature(StringBuilder json, int index) {
+    var x = 120_000.0 + (index % 1_000) * 25.0;
+    var y = 487_000.0 + (index / 1_000) * 25.0;
+    json.append("{\"type\":\"Feature\",\"id\":\"").append(identifier(index)).append("\",\"geometry\":")
+        .append("{\"type\":\"Polygon\",\"coordinates\":[[");
+    for (int i = 0; i <= 8; i++) {
+      var angle = 2 * Math.PI * (i % 8) / 8;
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT, "[%.3f,%.3f]", x + 10 * Math.cos(angle), y + 10 * Math.sin(angle)));
+    }
+    json.append("]]},\"properties\":{")
+        .append("\"identificatie\":\"").append(identifier(index)).append("\",")
+        .append("\"oorspronkelijkBouwjaar\":").append(1900 + index % 120).append(',')
+        .append("\"status\":\"Pand in gebruik\",")
+        .append("\"geconstateerd\":false,")
+        .append("\"documentdatum\":\"2010-09-17\",")
+        .append("\"documentnummer\":\"AB2010-").append(index).append("\",")
+        .append("\"voorkomen\":{\"voorkomenidentificatie\":1,\"beginGeldigheid\":\"2010-09-17\",")
+        .append("\"tijdstipRegistratie\":\"2010-09-20T09:29:59Z\",\"tijdstipRegistratieLV\":\"2010-09-20T09:44:37Z\"},")
+        .append("\"heeftAlsVerblijfsobject\":[\"036301000").append(String.format("%07d", index)).append("\"]")
+        .append("}}");
+  }
+
+  private static Attribute attribute(String name, boolean identifier) {
+    return Attribute.builder()
+        .name(name)
+        .type(ScalarTypes.STRING)
+        .cardinality(Cardinality.REQUIRED)
+        .identifier(identifier)
+        .build();
+  }
+}
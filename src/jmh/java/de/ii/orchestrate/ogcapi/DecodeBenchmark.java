@@ -0,0 +1,87 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding of feature collection responses into projected features, fed in pooled direct buffers of the size of a
+ * typical network read. With the input "copy", each buffer is copied into a byte array before it is decoded, as the
+ * responses were decoded before the buffers were read in place; compare the allocations per operation
+ * ("gc.alloc.rate.norm" of the GC profiler) of both inputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final int CHUNK_SIZE = 8_192;
+
+  @Param({"1", "100", "10000"})
+  int features;
+
+  @Param({"identifier", "properties", "geometry", "jts"})
+  String selection;
+
+  @Param({"buffer", "copy"})
+  String input;
+
+  private List<ByteBuf> chunks;
+
+  private ProjectionPlan plan;
+
+  @Setup
+  public void setup() {
+    chunks = BagFixtures.chunks(BagFixtures.featureCollection(features), CHUNK_SIZE).stream()
+        .map(chunk -> PooledByteBufAllocator.DEFAULT.directBuffer(chunk.length).writeBytes(chunk))
+        .toList();
+    var pand = BagFixtures.BAG.getObjectType("Pand");
+    var selectedProperties = switch (selection) {
+      case "identifier" -> List.of(new SelectedProperty(pand.getProperty("identificatie")));
+      case "properties" -> List.of(new SelectedProperty(pand.getProperty("identificatie")),
+          new SelectedProperty(pand.getProperty("oorspronkelijkBouwjaar")),
+          new SelectedProperty(pand.getProperty("status")));
+      default -> List.of(new SelectedProperty(pand.getProperty("identificatie")),
+          new SelectedProperty(pand.getProperty("geometrie")));
+    };
+    plan = ProjectionPlan.compile(BagFixtures.BAG, selectedProperties);
+  }
+
+  @TearDown
+  public void tearDown() {
+    chunks.forEach(ByteBuf::release);
+  }
+
+  @Benchmark
+  public void decodeFeatureCollection(Blackhole blackhole) {
+    // "jts" decodes the geometries to JTS geometries instead of maps and lists
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, plan, "jts".equals(selection) ? 28992 : null);
+    var copy = "copy".equals(input);
+    for (var chunk : chunks) {
+      blackhole.consume(copy ? decoder.feed(ByteBufUtil.getBytes(chunk)) : decoder.feed(chunk));
+    }
+    blackhole.consume(decoder.endOfInput());
+  }
+}
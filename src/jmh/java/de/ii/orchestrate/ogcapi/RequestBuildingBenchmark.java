@@ -0,0 +1,121 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.source.ObjectRequest;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.netty.DisposableServer;
+
+/**
+ * Building of request URIs, property selections and the CQL2 filters of batch requests. The requests are only
+ * assembled, not sent; the local API only provides the conformance declaration for the configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+  @Param({"10", "100", "1000"})
+  int batchSize;
+
+  private DisposableServer api;
+
+  private OgcApiFeaturesDataRepository repository;
+
+  private Capabilities capabilities;
+
+  private CollectionDescriptor descriptor;
+
+  private ObjectType verblijfsobject;
+
+  private List<SelectedProperty> selectedProperties;
+
+  private ObjectRequest objectRequest;
+
+  private Map<String, String> queryParams;
+
+  private List<String> objectKeys;
+
+  @Setup
+  public void setup() {
+    api = BagFixtures.startApi();
+    var configuration = OgcApiFeaturesConfiguration.builder()
+        .model(BagFixtures.BAG)
+        .apiLandingPage(String.format("http://localhost:%d/bag", api.port()))
+        .limit(100)
+        .supportsPropertySelection(true)
+        .supportsRelProfiles(true)
+        .build();
+    repository = new OgcApiFeaturesDataRepository(configuration);
+    capabilities = configuration.getCapabilities().block();
+    descriptor = CollectionDescriptor.unknown("Verblijfsobject");
+
+    verblijfsobject = BagFixtures.BAG.getObjectType("Verblijfsobject");
+    var pand = BagFixtures.BAG.getObjectType("Pand");
+    selectedProperties = List.of(new SelectedProperty(verblijfsobject.getProperty("identificatie")),
+        new SelectedProperty(verblijfsobject.getProperty("status")),
+        new SelectedProperty(verblijfsobject.getProperty("oppervlakte")),
+        new SelectedProperty(verblijfsobject.getProperty("maaktDeelUitVan"),
+            Set.of(new SelectedProperty(pand.getProperty("identificatie")))));
+    objectRequest = ObjectRequest.builder()
+        .objectType(verblijfsobject)
+        .objectKey(Map.of("identificatie", "0363010000659726"))
+        .selectedProperties(selectedProperties)
+        .build();
+    queryParams = new HashMap<>();
+    queryParams.put("crs", "http://www.opengis.net/def/crs/EPSG/0/28992");
+    queryParams.put("properties", "identificatie,status,oppervlakte,maaktDeelUitVan");
+    queryParams.put("profile", "rel-as-key");
+    objectKeys = IntStream.range(0, batchSize).mapToObj(BagFixtures::identifier).toList();
+  }
+
+  @TearDown
+  public void tearDown() {
+    api.disposeNow();
+  }
+
+  @Benchmark
+  public String uri() {
+    return repository.getUri(queryParams,
+        "http://localhost/bag/collections/Verblijfsobject/items/0363010000659726?");
+  }
+
+  @Benchmark
+  public String propertiesParameter() {
+    return repository.getPropertiesParameterString(verblijfsobject, selectedProperties, List.of());
+  }
+
+  @Benchmark
+  public String batchUri() {
+    Map<String, String> batchParams = new HashMap<>(queryParams);
+    batchParams.put("filter", repository.getBatchFilter("identificatie", objectKeys, capabilities)
+        .toText(descriptor));
+    batchParams.put("limit", String.valueOf(objectKeys.size()));
+    return repository.getUri(batchParams, "http://localhost/bag/collections/Verblijfsobject/items?");
+  }
+
+  @Benchmark
+  public Object findOneAssembly() {
+    return repository.findOne(objectRequest);
+  }
+}
@@ -0,0 +1,26 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for balancing the requests of a source across the mirrors of the API.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BalancingOptions {
+
+  /**
+   * The number of consecutive requests to a landing page that failed with a transient error, after which the landing
+   * page is ejected.
+   */
+  @Builder.Default
+  int maxFailures = 3;
+
+  /**
+   * The time after which an ejected landing page is checked again and re-admitted, if it is healthy.
+   */
+  @Builder.Default
+  Duration ejectionDuration = Duration.ofSeconds(30);
+}
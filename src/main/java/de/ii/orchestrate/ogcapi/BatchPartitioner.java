@@ -0,0 +1,41 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Partitions the identifiers of a batch request into chunks that each fit into a single request.
+ */
+final class BatchPartitioner {
+
+  private BatchPartitioner() {
+  }
+
+  /**
+   * Greedily fills chunks with the identifiers in their original order. A chunk is closed when it contains
+   * {@code maxSize} identifiers or when the next identifier would exceed the {@code budget}, i.e. the characters that
+   * are still available in the request URI. Each identifier costs {@code cost} plus {@code separatorCost}, if it is not
+   * the first identifier of the chunk. An identifier that exceeds the budget on its own is put in a chunk of its own.
+   */
+  static List<List<String>> partition(List<String> keys, int maxSize, int budget, ToIntFunction<String> cost,
+                                      int separatorCost) {
+    List<List<String>> chunks = new ArrayList<>();
+    List<String> chunk = new ArrayList<>();
+    int used = 0;
+    for (var key : keys) {
+      var keyCost = cost.applyAsInt(key);
+      if (!chunk.isEmpty() && (chunk.size() >= maxSize || used + separatorCost + keyCost > budget)) {
+        chunks.add(chunk);
+        chunk = new ArrayList<>();
+        used = 0;
+      }
+      used += chunk.isEmpty() ? keyCost : separatorCost + keyCost;
+      chunk.add(key);
+    }
+    if (!chunk.isEmpty()) {
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+}
@@ -0,0 +1,25 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for collecting concurrent object requests of a source into batch requests.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BatchingOptions {
+
+  /**
+   * The maximum time an object request waits for other object requests before the batch is requested.
+   */
+  @Builder.Default
+  Duration maxWait = Duration.ofMillis(5);
+
+  /**
+   * The maximum number of identifiers in a batch, a full batch is requested immediately.
+   */
+  @Builder.Default
+  int maxSize = 100;
+}
@@ -0,0 +1,32 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for the feature cache of a source. Each collection has its own cache.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CacheOptions {
+
+  /**
+   * The maximum number of features in the cache of a collection.
+   */
+  @Builder.Default
+  long maximumSize = 10_000;
+
+  /**
+   * The time a cached feature is used without asking the API.
+   */
+  @Builder.Default
+  Duration ttl = Duration.ofMinutes(1);
+
+  /**
+   * The time after the ttl during which a cached feature is revalidated with a conditional request instead of being
+   * requested again.
+   */
+  @Builder.Default
+  Duration revalidationWindow = Duration.ofMinutes(10);
+}
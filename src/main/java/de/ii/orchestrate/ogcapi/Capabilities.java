@@ -0,0 +1,84 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.List;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.With;
+import org.dotwebstack.orchestrate.source.SourceException;
+
+/**
+ * The capabilities of an API that are derived from its conformance declaration. The support of the query parameters
+ * that are not covered by a conformance class is configured or detected by {@link CapabilityProbes}.
+ */
+@Value
+@With
+class Capabilities {
+
+  List<String> conformsTo;
+  boolean supportsQueryablesAsQueryParameters;
+  boolean supportsBatchLoading;
+  boolean supportsAdHocQuery;
+  boolean supportsCql2InOperator;
+  boolean supportsAdvancedComparisonOperators;
+  boolean supportsIntersects;
+  boolean supportsPropertySelection;
+  boolean supportsRelProfiles;
+  boolean supportsSkipGeometry;
+  boolean supportsMaxAllowableOffset;
+
+  /**
+   * Validates that the API supports the required conformance classes and derives the optional capabilities.
+   */
+  static Capabilities of(@NonNull List<String> conformsTo) {
+    validate(conformsTo);
+    var supportsBatchLoading = conformsTo.stream()
+        .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/cql2-text")) &&
+        conformsTo.stream().anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
+            uri.endsWith("/conf/features-filter"));
+    return new Capabilities(conformsTo,
+        conformsTo.stream()
+            .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
+                uri.endsWith("/conf/queryables-query-parameters")),
+        supportsBatchLoading,
+        conformsTo.stream()
+            .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") &&
+                uri.endsWith("/conf/advanced-comparison-operators")) &&
+            conformsTo.stream().anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-") &&
+                uri.endsWith("/conf/ad-hoc-queries")),
+        supportsBatchLoading && conformsTo.stream().anyMatch(
+            uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") &&
+                uri.endsWith("/conf/advanced-comparison-operators")),
+        conformsTo.stream().anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") &&
+            uri.endsWith("/conf/advanced-comparison-operators")),
+        supportsBatchLoading && conformsTo.stream()
+            .anyMatch(
+                uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/spatial-operators")),
+        false, false, false, false);
+  }
+
+  private static void validate(List<String> conformsTo) {
+    if (conformsTo.stream().noneMatch(
+        uri -> uri.equals("http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core"))) {
+      throw new SourceException("APIs must support the OGC API Feature 'Core' conformance class.");
+    }
+    if (conformsTo.stream().noneMatch(
+        uri -> uri.equals("http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson"))) {
+      throw new SourceException("APIs must support the OGC API Feature 'GeoJSON' conformance class.");
+    }
+    if (conformsTo.stream().noneMatch(
+        uri -> uri.equals("http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs"))) {
+      throw new SourceException(
+          "APIs must support the OGC API Feature 'Coordinate Reference Systems by Reference' conformance class.");
+    }
+    // The following are drafts, so we accept any version number (and hope that the implementation is up-to-date).
+    if (conformsTo.stream().noneMatch(
+        uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/cql2-text"))) {
+      throw new SourceException("APIs must support the OGC API Feature 'CQL2 Text' conformance class.");
+    }
+    if (conformsTo.stream().noneMatch(
+        uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
+            uri.endsWith("/conf/features-filter"))) {
+      throw new SourceException("APIs must support the OGC API Feature 'Features Filter' conformance class.");
+    }
+  }
+}
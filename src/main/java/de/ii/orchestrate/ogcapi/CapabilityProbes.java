@@ -0,0 +1,155 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Detects the support of query parameters that are not covered by a conformance class. Each parameter is probed with
+ * a request for a single feature of a collection of the model. A parameter is supported, if the API responds with
+ * "200 OK" and, where this can be observed, the parameter has an effect on the response. The simplification of the
+ * geometry with "maxAllowableOffset" cannot be observed without a second request, so only the acceptance of the
+ * parameter is probed. A probe that fails, e.g. with a connection error or a timeout, detects no support.
+ */
+class CapabilityProbes {
+
+  static final String PROPERTY_SELECTION = "propertySelection";
+  static final String REL_PROFILES = "relProfiles";
+  static final String SKIP_GEOMETRY = "skipGeometry";
+  static final String MAX_ALLOWABLE_OFFSET = "maxAllowableOffset";
+
+  static final String PROBE_TEMPLATE = "{apiLandingPage}/collections/{collectionId}/items?limit=1&";
+
+  private final HttpClient client;
+  private final String apiLandingPage;
+  private final Model model;
+  private final TransferOptions transfer;
+  private final boolean supportsPropertySelection;
+  private final boolean supportsRelProfiles;
+  private final ObjectMapper mapper;
+
+  CapabilityProbes(HttpClient client, String apiLandingPage, Model model, TransferOptions transfer,
+                   boolean supportsPropertySelection, boolean supportsRelProfiles, ObjectMapper mapper) {
+    this.client = client.headers(h -> h.set(HttpHeaderNames.ACCEPT, OgcApiFeaturesDataRepository.ACCEPT_GEOJSON));
+    this.apiLandingPage = apiLandingPage;
+    this.model = model;
+    this.transfer = transfer;
+    this.supportsPropertySelection = supportsPropertySelection;
+    this.supportsRelProfiles = supportsRelProfiles;
+    this.mapper = mapper;
+  }
+
+  /**
+   * Probes the parameters that are neither enabled in the configuration nor disabled. Completes with an empty map,
+   * if the detection is disabled or the model has no object type with a single identity property.
+   */
+  Mono<Map<String, Boolean>> detect() {
+    if (!transfer.isDetectCapabilities()) {
+      return Mono.just(Map.of());
+    }
+    var objectType = model.getObjectTypes().stream()
+        .filter(type -> type.getIdentityProperties().size() == 1)
+        .findFirst()
+        .orElse(null);
+    if (objectType == null) {
+      return Mono.just(Map.of());
+    }
+    var idProperty = objectType.getIdentityProperties().get(0).getName();
+    var probes = Flux.<Mono<Map.Entry<String, Boolean>>>empty();
+    if (!supportsPropertySelection) {
+      // only the selected property must be returned
+      probes = probes.concatWithValues(probe(objectType, PROPERTY_SELECTION, "properties=" + encode(idProperty),
+          feature -> {
+            var names = feature.path("properties").fieldNames();
+            while (names.hasNext()) {
+              if (!idProperty.equals(names.next())) {
+                return false;
+              }
+            }
+            return true;
+          }));
+    }
+    if (!supportsRelProfiles) {
+      // relations must not be encoded as links
+      probes = probes.concatWithValues(probe(objectType, REL_PROFILES, "profile=rel-as-key",
+          feature -> !hasLinks(feature.path("properties"))));
+    }
+    if (transfer.isSkipGeometry()) {
+      probes = probes.concatWithValues(probe(objectType, SKIP_GEOMETRY, "skipGeometry=true",
+          feature -> feature.path("geometry").isNull() || feature.path("geometry").isMissingNode()));
+    }
+    if (transfer.getMaxAllowableOffset() != null) {
+      // only the acceptance of the parameter is probed
+      probes = probes.concatWithValues(probe(objectType, MAX_ALLOWABLE_OFFSET,
+          "maxAllowableOffset=" + transfer.getMaxAllowableOffset(), feature -> true));
+    }
+    return probes.flatMap(probe -> probe).collectMap(Map.Entry::getKey, Map.Entry::getValue);
+  }
+
+  /**
+   * The capabilities with the support of the parameters that are enabled in the configuration or have been detected.
+   * Without detection, the configured parameters are assumed to be supported.
+   */
+  Capabilities apply(Capabilities capabilities, Map<String, Boolean> detected) {
+    var detect = transfer.isDetectCapabilities();
+    return capabilities
+        .withSupportsPropertySelection(supportsPropertySelection || detected.getOrDefault(PROPERTY_SELECTION, false))
+        .withSupportsRelProfiles(supportsRelProfiles || detected.getOrDefault(REL_PROFILES, false))
+        .withSupportsSkipGeometry(transfer.isSkipGeometry() &&
+            (!detect || detected.getOrDefault(SKIP_GEOMETRY, false)))
+        .withSupportsMaxAllowableOffset(transfer.getMaxAllowableOffset() != null &&
+            (!detect || detected.getOrDefault(MAX_ALLOWABLE_OFFSET, false)));
+  }
+
+  private Mono<Map.Entry<String, Boolean>> probe(ObjectType objectType, String name, String query,
+                                                 Predicate<JsonNode> hasEffect) {
+    var uri = PROBE_TEMPLATE.replace("{apiLandingPage}", apiLandingPage)
+        .replace("{collectionId}", objectType.getName()) + query;
+    return client.get()
+        .uri(uri)
+        .responseSingle((response, content) -> response.status() != HttpResponseStatus.OK ? Mono.just(false) :
+            content.asInputStream()
+                .map(stream -> {
+                  try (stream) {
+                    var features = mapper.readTree(stream).path("features");
+                    return features.isEmpty() || hasEffect.test(features.get(0));
+                  } catch (IOException e) {
+                    return false;
+                  }
+                })
+                .defaultIfEmpty(false))
+        .map(supported -> Map.entry(name, supported))
+        .onErrorReturn(Map.entry(name, false));
+  }
+
+  /**
+   * Whether a value or one of its elements is a link object, as relations are encoded without the "rel-as-key" profile.
+   */
+  private static boolean hasLinks(JsonNode value) {
+    if (value.isObject() && value.has("href")) {
+      return true;
+    }
+    var elements = value.elements();
+    while (elements.hasNext()) {
+      if (hasLinks(elements.next())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,115 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A circuit breaker for the requests of a source. The circuit opens, if the ratio of failed requests among the most
+ * recent requests reaches the threshold; a request fails, if it received a transient error or timed out. While the
+ * circuit is open, requests fail fast without being sent. After the open duration, the circuit is half-open and probe
+ * requests are sent to the API: the circuit closes, if a probe succeeds, and opens again, if a probe fails.
+ */
+class CircuitBreaker {
+
+  enum State {
+    CLOSED, HALF_OPEN, OPEN
+  }
+
+  private final CircuitBreakerOptions options;
+  private final Ticker ticker;
+  private final boolean[] failed;
+  private final LongAdder rejected = new LongAdder();
+  private int next;
+  private int count;
+  private int failures;
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int probes;
+
+  CircuitBreaker(CircuitBreakerOptions options, Ticker ticker) {
+    this.options = options;
+    this.ticker = ticker;
+    this.failed = new boolean[Math.max(1, options.getMinimumRequests())];
+  }
+
+  /**
+   * Whether a request may be sent to the API, i.e. the circuit is closed or the request is a probe.
+   */
+  synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (ticker.read() - openedAt < options.getOpenDuration().toNanos()) {
+        rejected.increment();
+        return false;
+      }
+      state = State.HALF_OPEN;
+      probes = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (probes >= Math.max(1, options.getProbes())) {
+        rejected.increment();
+        return false;
+      }
+      probes++;
+    }
+    return true;
+  }
+
+  synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      state = State.CLOSED;
+      next = 0;
+      count = 0;
+      failures = 0;
+    } else if (state == State.CLOSED) {
+      record(false);
+    }
+  }
+
+  synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+    } else if (state == State.CLOSED) {
+      record(true);
+      if (count == failed.length && failures >= options.getFailureRateThreshold() * count) {
+        open();
+      }
+    }
+  }
+
+  /**
+   * Records that a request has been cancelled before it succeeded or failed.
+   */
+  synchronized void onCancel() {
+    if (state == State.HALF_OPEN && probes > 0) {
+      probes--;
+    }
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * The number of requests that failed fast, because the circuit was open.
+   */
+  long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  private void record(boolean failure) {
+    if (count == failed.length && failed[next]) {
+      failures--;
+    }
+    failed[next] = failure;
+    if (failure) {
+      failures++;
+    }
+    next = (next + 1) % failed.length;
+    count = Math.min(count + 1, failed.length);
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = ticker.read();
+  }
+}
@@ -0,0 +1,37 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options of the circuit breaker of a source.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CircuitBreakerOptions {
+
+  /**
+   * The ratio of failed requests among the most recent requests at which the circuit opens.
+   */
+  @Builder.Default
+  double failureRateThreshold = 0.5;
+
+  /**
+   * The number of the most recent requests that are evaluated, the circuit does not open before.
+   */
+  @Builder.Default
+  int minimumRequests = 20;
+
+  /**
+   * The time requests fail fast, before probe requests are sent to the API.
+   */
+  @Builder.Default
+  Duration openDuration = Duration.ofSeconds(30);
+
+  /**
+   * The number of probe requests that are sent concurrently, while the circuit is half-open.
+   */
+  @Builder.Default
+  int probes = 1;
+}
@@ -0,0 +1,50 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What is known about a collection of the API from the collections resource, the queryables of the collection and the
+ * API definition. Unknown values are {@code null}, in which case no restrictions apply.
+ *
+ * @param queryables the queryables of the collection by name, the values are the JSON Schema types ("string",
+ *     "integer", "number", "boolean") or "geometry"
+ * @param maxLimit the maximum value of the "limit" parameter of the collection
+ * @param defaultLimit the default value of the "limit" parameter of the collection
+ */
+record CollectionDescriptor(String id, Map<String, String> queryables, Integer maxLimit, Integer defaultLimit) {
+
+  static final String GEOMETRY = "geometry";
+
+  private static final Set<String> UNQUOTED_TYPES = Set.of("integer", "number", "boolean");
+
+  static CollectionDescriptor unknown(String id) {
+    return new CollectionDescriptor(id, null, null, null);
+  }
+
+  boolean isQueryable(String path) {
+    return queryables == null || path != null && queryables.containsKey(path);
+  }
+
+  /**
+   * The page size to request, the configured page size reduced to the maximum that the API accepts.
+   */
+  int getPageSize(int limit) {
+    return maxLimit != null && maxLimit > 0 ? Math.min(limit, maxLimit) : limit;
+  }
+
+  /**
+   * A CQL2 text literal for a value of a queryable. Values of numeric and boolean queryables are not quoted.
+   */
+  String getLiteral(String path, Object value) {
+    var text = value.toString();
+    if (queryables != null && UNQUOTED_TYPES.contains(queryables.get(path)) && isUnquotedLiteral(text)) {
+      return text;
+    }
+    return "'" + text.replace("'", "''") + "'";
+  }
+
+  private static boolean isUnquotedLiteral(String text) {
+    return "true".equals(text) || "false".equals(text) || text.matches("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+  }
+}
@@ -0,0 +1,232 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Discovers the descriptors of the collections of the API: the collections resource, the queryables of each
+ * collection and the limits of the "limit" parameter in the API definition. Each resource is requested once, the
+ * descriptors are optional, so a resource that is not available results in a descriptor without restrictions. A
+ * failed request is repeated by the next request for the descriptor.
+ */
+class CollectionDiscovery {
+
+  static final String COLLECTIONS_TEMPLATE = "{apiLandingPage}/collections";
+  static final String QUERYABLES_TEMPLATE = "{apiLandingPage}/collections/{collectionId}/queryables";
+  static final String API_DEFINITION_TEMPLATE = "{apiLandingPage}/api";
+
+  static final String ACCEPT_SCHEMA = "application/schema+json,application/json;q=0.9";
+  static final String ACCEPT_OPENAPI = "application/vnd.oai.openapi+json;version=3.0,application/json;q=0.9";
+
+  static final String QUERYABLES_REL = "http://www.opengis.net/def/rel/ogc/1.0/queryables";
+
+  private static final Pattern ITEMS_PATH = Pattern.compile("/collections/([^/]+)/items");
+
+  private static final String ANY_COLLECTION = "*";
+
+  private final HttpClient client;
+  private final String apiLandingPage;
+  private final DiscoverySnapshot snapshot;
+  private final ObjectMapper mapper;
+
+  private final Mono<Map<String, String>> collections;
+  private final Mono<Map<String, Limits>> limits;
+  private final Map<String, Mono<CollectionDescriptor>> descriptors = new ConcurrentHashMap<>();
+  private final Map<String, CollectionDescriptor> currentDescriptors = new ConcurrentHashMap<>();
+
+  record Limits(Integer maximum, Integer defaultValue) {
+  }
+
+  CollectionDiscovery(HttpClient client, String apiLandingPage, DiscoverySnapshot snapshot, ObjectMapper mapper) {
+    this.client = client;
+    this.apiLandingPage = apiLandingPage;
+    this.snapshot = snapshot;
+    this.mapper = mapper;
+    this.collections = cached(getJson(COLLECTIONS_TEMPLATE.replace("{apiLandingPage}", apiLandingPage),
+        OgcApiFeaturesConfiguration.ACCEPT_JSON)
+        .map(CollectionDiscovery::getQueryablesLinks)
+        .defaultIfEmpty(Map.of()));
+    // the API definition is optional and only provides the limits
+    this.limits = cached(getJson(API_DEFINITION_TEMPLATE.replace("{apiLandingPage}", apiLandingPage), ACCEPT_OPENAPI)
+        .map(CollectionDiscovery::getLimits)
+        .onErrorReturn(SourceException.class, Map.of())
+        .defaultIfEmpty(Map.of()));
+  }
+
+  /**
+   * The descriptor of a collection. Completes immediately, if the descriptor is known already.
+   */
+  Mono<CollectionDescriptor> get(String collectionId) {
+    return Mono.defer(() -> {
+      var descriptor = getCurrent(collectionId);
+      return descriptor != null ? Mono.just(descriptor) :
+          descriptors.computeIfAbsent(collectionId, key -> cached(discover(key)));
+    }).onErrorResume(e -> Mono.just(CollectionDescriptor.unknown(collectionId)));
+  }
+
+  /**
+   * The descriptor of a collection, if it is known already, otherwise {@code null}. Does not block.
+   */
+  CollectionDescriptor getCurrent(String collectionId) {
+    return currentDescriptors.get(collectionId);
+  }
+
+  /**
+   * Requests the descriptors of the collections in the background. Descriptors from a snapshot are available
+   * immediately and revalidated in the background.
+   */
+  void prefetch(Set<String> collectionIds) {
+    collectionIds.forEach(collectionId -> {
+      var descriptor = snapshot != null ?
+          snapshot.read(getSnapshotResource(collectionId), CollectionDescriptor.class) : null;
+      if (descriptor != null) {
+        currentDescriptors.putIfAbsent(collectionId, descriptor);
+      }
+      descriptors.computeIfAbsent(collectionId, key -> cached(discover(key))).subscribe(value -> {
+      }, error -> {
+      });
+    });
+  }
+
+  private Mono<CollectionDescriptor> discover(String collectionId) {
+    return Mono.zip(collections, limits).flatMap(tuple -> {
+      var collectionLimits = tuple.getT2().getOrDefault(collectionId, tuple.getT2().get(ANY_COLLECTION));
+      var maxLimit = collectionLimits != null ? collectionLimits.maximum() : null;
+      var defaultLimit = collectionLimits != null ? collectionLimits.defaultValue() : null;
+      if (!tuple.getT1().containsKey(collectionId)) {
+        return Mono.just(new CollectionDescriptor(collectionId, null, maxLimit, defaultLimit));
+      }
+      var queryablesUri = tuple.getT1().get(collectionId);
+      return getJson(!queryablesUri.isEmpty() ? queryablesUri : QUERYABLES_TEMPLATE
+          .replace("{apiLandingPage}", apiLandingPage)
+          .replace("{collectionId}", collectionId), ACCEPT_SCHEMA)
+          .map(CollectionDiscovery::getQueryables)
+          .map(queryables -> new CollectionDescriptor(collectionId, queryables, maxLimit, defaultLimit))
+          .defaultIfEmpty(new CollectionDescriptor(collectionId, null, maxLimit, defaultLimit));
+    }).doOnNext(descriptor -> {
+      currentDescriptors.put(collectionId, descriptor);
+      if (snapshot != null) {
+        snapshot.writeLater(getSnapshotResource(collectionId), descriptor);
+      }
+    });
+  }
+
+  /**
+   * Requests a JSON resource, completes empty, if the resource does not exist.
+   */
+  private Mono<JsonNode> getJson(String uri, String accept) {
+    return client.headers(h -> h.set(HttpHeaderNames.ACCEPT, accept))
+        .get()
+        .uri(uri)
+        .responseSingle((response, content) -> {
+          if (response.status() == HttpResponseStatus.NOT_FOUND) {
+            return Mono.<InputStream>empty();
+          }
+          if (response.status() != HttpResponseStatus.OK) {
+            return Mono.<InputStream>error(new SourceException(
+                String.format("Request returned a status different than 200: %d. URI: %s", response.status().code(),
+                    uri)));
+          }
+          return content.asInputStream();
+        })
+        .map(stream -> {
+          try (stream) {
+            return mapper.readTree(stream);
+          } catch (IOException e) {
+            throw new SourceException(String.format("Invalid JSON response. URI: %s. Problem found: %s", uri,
+                e.getMessage()));
+          }
+        });
+  }
+
+  /**
+   * The identifiers of the collections with the links to their queryables, an empty string, if there is no link.
+   */
+  static Map<String, String> getQueryablesLinks(JsonNode collections) {
+    Map<String, String> links = new LinkedHashMap<>();
+    collections.path("collections").forEach(collection -> {
+      var id = collection.path("id").asText(null);
+      if (id == null) {
+        return;
+      }
+      var href = "";
+      for (var link : collection.path("links")) {
+        if (QUERYABLES_REL.equals(link.path("rel").asText()) && link.hasNonNull("href")) {
+          href = link.get("href").asText();
+          break;
+        }
+      }
+      links.put(id, href);
+    });
+    return Map.copyOf(links);
+  }
+
+  /**
+   * The queryables and their types from the JSON Schema of the queryables.
+   */
+  static Map<String, String> getQueryables(JsonNode schema) {
+    Map<String, String> queryables = new LinkedHashMap<>();
+    schema.path("properties").fields().forEachRemaining(property -> {
+      var definition = property.getValue();
+      var format = definition.path("format").asText("");
+      var ref = definition.path("$ref").asText("");
+      if (format.startsWith("geometry") || ref.contains("geojson.org")) {
+        queryables.put(property.getKey(), CollectionDescriptor.GEOMETRY);
+      } else {
+        queryables.put(property.getKey(), definition.path("type").asText("string"));
+      }
+    });
+    return Map.copyOf(queryables);
+  }
+
+  /**
+   * The limits of the "limit" parameter of the feature queries in the API definition, by collection. Limits of
+   * paths with a path parameter for the collection apply to all collections.
+   */
+  static Map<String, Limits> getLimits(JsonNode definition) {
+    Map<String, Limits> limits = new HashMap<>();
+    definition.path("paths").fields().forEachRemaining(path -> {
+      var matcher = ITEMS_PATH.matcher(path.getKey());
+      if (!matcher.matches()) {
+        return;
+      }
+      var collectionId = matcher.group(1).startsWith("{") ? ANY_COLLECTION : matcher.group(1);
+      for (var parameter : path.getValue().path("get").path("parameters")) {
+        if (parameter.has("$ref")) {
+          parameter = definition.at(parameter.get("$ref").asText().replaceFirst("^#", ""));
+        }
+        if ("limit".equals(parameter.path("name").asText()) && "query".equals(parameter.path("in").asText())) {
+          var schema = parameter.path("schema");
+          limits.put(collectionId, new Limits(schema.hasNonNull("maximum") ? schema.get("maximum").asInt() : null,
+              schema.hasNonNull("default") ? schema.get("default").asInt() : null));
+        }
+      }
+    });
+    return Map.copyOf(limits);
+  }
+
+  private static String getSnapshotResource(String collectionId) {
+    return "collection-" + collectionId;
+  }
+
+  /**
+   * Keeps the result of a successful request, a failed request is repeated by the next subscriber.
+   */
+  private static <T> Mono<T> cached(Mono<T> request) {
+    return request.cache(value -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+  }
+}
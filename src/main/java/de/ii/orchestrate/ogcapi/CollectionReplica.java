@@ -0,0 +1,94 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.concurrent.atomic.LongAdder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * The local replica of a collection. The replica is loaded in the background and loaded again after each refresh
+ * interval; a new snapshot replaces the previous one once it has been loaded completely. Until the first snapshot has
+ * been loaded, the requests are sent to the API. If a refresh fails, the previous snapshot is kept. Once disposed, the
+ * replica is neither refreshed nor used anymore.
+ */
+class CollectionReplica {
+
+  private final ReplicaOptions options;
+  private final Mono<ReplicaStore> load;
+  private final Scheduler scheduler;
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private volatile ReplicaStore store;
+  private Disposable refresh;
+  private boolean disposed;
+
+  /**
+   * @param load loads a snapshot of the collection
+   */
+  CollectionReplica(ReplicaOptions options, Mono<ReplicaStore> load, Scheduler scheduler) {
+    this.options = options;
+    this.load = load;
+    this.scheduler = scheduler;
+  }
+
+  synchronized void start() {
+    if (refresh != null || disposed) {
+      return;
+    }
+    refresh = Flux.interval(options.getRefreshInterval(), scheduler)
+        .startWith(0L)
+        // the refreshes that are due while the collection is being loaded are combined into one
+        .onBackpressureDrop()
+        .concatMap(tick -> load.doOnError(error -> failures.increment()).onErrorResume(error -> Mono.empty()), 1)
+        .subscribe(this::replace);
+  }
+
+  /**
+   * Stops the refreshes, a load that is in progress is cancelled, and closes the current snapshot.
+   */
+  synchronized void dispose() {
+    disposed = true;
+    if (refresh != null) {
+      refresh.dispose();
+    }
+    var current = store;
+    store = null;
+    if (current != null) {
+      current.close();
+    }
+  }
+
+  /**
+   * The current snapshot, {@code null} if the collection has not been loaded yet or the replica has been disposed.
+   */
+  ReplicaStore getStore() {
+    return store;
+  }
+
+  int getSize() {
+    var current = store;
+    return current != null ? current.size() : 0;
+  }
+
+  long getRefreshCount() {
+    return refreshes.sum();
+  }
+
+  long getFailureCount() {
+    return failures.sum();
+  }
+
+  private synchronized void replace(ReplicaStore next) {
+    if (disposed) {
+      next.close();
+      return;
+    }
+    var previous = store;
+    store = next;
+    refreshes.increment();
+    if (previous != null) {
+      previous.close();
+    }
+  }
+}
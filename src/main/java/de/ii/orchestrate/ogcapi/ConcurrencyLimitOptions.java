@@ -0,0 +1,49 @@
+package de.ii.orchestrate.ogcapi;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for the adaptive limit of the requests of a source that are in flight at the same time.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ConcurrencyLimitOptions {
+
+  /**
+   * The limit before any latencies have been observed.
+   */
+  @Builder.Default
+  int initialLimit = 10;
+
+  /**
+   * The lower bound of the limit.
+   */
+  @Builder.Default
+  int minLimit = 1;
+
+  /**
+   * The upper bound of the limit.
+   */
+  @Builder.Default
+  int maxLimit = 100;
+
+  /**
+   * The factor by which the limit is decreased, if a request failed with a transient error or timed out, or if the
+   * recent latencies exceed the tolerated latencies.
+   */
+  @Builder.Default
+  double backoffRatio = 0.9;
+
+  /**
+   * The tolerated ratio between the recent latencies and the long-term latencies of an operation.
+   */
+  @Builder.Default
+  double latencyTolerance = 2.0;
+
+  /**
+   * The maximum number of requests that wait for a permit, further requests are rejected.
+   */
+  @Builder.Default
+  int maxQueueSize = 1000;
+}
@@ -0,0 +1,252 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Limits the number of requests of a source that are in flight at the same time. The limit adapts to the API with
+ * additive increase and multiplicative decrease: it grows by one per round of successful requests, while the limit is
+ * in use, and it shrinks by the backoff ratio, if a request failed with a transient error or timed out, or if the
+ * recent latencies of an operation exceed the tolerated multiple of its long-term latencies. The limit shrinks at most
+ * once per round trip.
+ *
+ * <p>Requests above the limit wait in a queue. The queue is served in weighted rounds, so that object requests
+ * ("findOne") are preferred without starving the other requests: while requests of all operations wait, a round grants
+ * four permits to object requests, two to batch requests and one to the pages of collection and replica requests.
+ * Turns without waiting requests are skipped. Requests of the same operation are served in the order of their arrival.
+ */
+class ConcurrencyLimiter {
+
+  private static final int MIN_SAMPLES = 20;
+  private static final double SHORT_TERM_WEIGHT = 0.1;
+  private static final double LONG_TERM_WEIGHT = 0.002;
+
+  // the turns of a round by the class of the operation, see getOperationClass
+  private static final int[] ROUND = {0, 0, 1, 0, 2, 0, 1};
+
+  private final ConcurrencyLimitOptions options;
+  private final Ticker ticker;
+  private final List<Queue<Waiter>> queues = List.of(new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>());
+  private final Map<String, Latencies> latencies = new HashMap<>();
+  private final LongAdder rejected = new LongAdder();
+  private double limit;
+  private int inFlight;
+  private int queued;
+  private int turn;
+  private long lastDecrease;
+
+  ConcurrencyLimiter(ConcurrencyLimitOptions options, Ticker ticker) {
+    this.options = options;
+    this.ticker = ticker;
+    this.limit = Math.max(options.getMinLimit(), Math.min(options.getMaxLimit(), options.getInitialLimit()));
+    this.lastDecrease = ticker.read();
+  }
+
+  /**
+   * Emits a permit for a request of the operation, once the request is within the limit. The permit must be released,
+   * when the request has terminated or has been cancelled. Fails, if the queue is full.
+   */
+  Mono<Permit> acquire(String operation) {
+    return Mono.create(sink -> {
+      var waiter = new Waiter(sink, operation);
+      sink.onCancel(() -> cancel(waiter));
+      List<Waiter> granted = null;
+      synchronized (this) {
+        if (queued < options.getMaxQueueSize()) {
+          queues.get(waiter.operationClass).add(waiter);
+          queued++;
+          granted = drain();
+        }
+      }
+      if (granted == null) {
+        rejected.increment();
+        sink.error(new SourceException(String.format("Too many requests to the API are waiting, the queue of %d " +
+            "requests is full.", options.getMaxQueueSize())));
+        return;
+      }
+      grant(granted);
+    });
+  }
+
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  synchronized int getInFlightCount() {
+    return inFlight;
+  }
+
+  synchronized int getQueuedCount() {
+    return queued;
+  }
+
+  /**
+   * The number of requests that have been rejected, because the queue was full.
+   */
+  long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  private void cancel(Waiter waiter) {
+    Permit permit;
+    synchronized (this) {
+      waiter.cancelled = true;
+      if (queues.get(waiter.operationClass).remove(waiter)) {
+        queued--;
+      }
+      permit = waiter.permit;
+    }
+    // the permit has been granted, but it has not been received
+    if (permit != null) {
+      permit.release();
+    }
+  }
+
+  private List<Waiter> drain() {
+    List<Waiter> granted = new ArrayList<>();
+    while (inFlight < (int) limit && queued > 0) {
+      var waiter = poll();
+      if (!waiter.cancelled) {
+        inFlight++;
+        waiter.permit = new Permit(waiter.operation);
+        granted.add(waiter);
+      }
+    }
+    return granted;
+  }
+
+  /**
+   * Takes the next waiter in the turns of the current round. A new round starts once the queue has run empty.
+   */
+  private Waiter poll() {
+    Waiter waiter = null;
+    while (waiter == null) {
+      waiter = queues.get(ROUND[turn]).poll();
+      turn = (turn + 1) % ROUND.length;
+    }
+    if (--queued == 0) {
+      turn = 0;
+    }
+    return waiter;
+  }
+
+  private static void grant(List<Waiter> granted) {
+    granted.forEach(waiter -> waiter.sink.success(waiter.permit));
+  }
+
+  private synchronized void succeeded(String operation, long latencyNanos) {
+    var latency = latencies.computeIfAbsent(operation, key -> new Latencies());
+    latency.record(latencyNanos);
+    if (latency.count >= MIN_SAMPLES && latency.shortTerm > options.getLatencyTolerance() * latency.longTerm) {
+      decrease(latency.shortTerm);
+    } else if (inFlight * 2 >= limit) {
+      limit = Math.min(options.getMaxLimit(), limit + 1 / limit);
+    }
+  }
+
+  private synchronized void dropped(String operation) {
+    var latency = latencies.get(operation);
+    decrease(latency != null ? latency.shortTerm : 0);
+  }
+
+  private void decrease(double roundTripNanos) {
+    var now = ticker.read();
+    if (now - lastDecrease >= roundTripNanos) {
+      limit = Math.max(options.getMinLimit(), limit * options.getBackoffRatio());
+      lastDecrease = now;
+    }
+  }
+
+  private static int getOperationClass(String operation) {
+    return switch (operation) {
+      case OgcApiFeaturesMetrics.FIND_ONE -> 0;
+      case OgcApiFeaturesMetrics.FIND_BATCH -> 1;
+      default -> 2;
+    };
+  }
+
+  /**
+   * The permission to send a request to the API.
+   */
+  final class Permit {
+
+    private final String operation;
+    private final AtomicBoolean sampled = new AtomicBoolean();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(String operation) {
+      this.operation = operation;
+    }
+
+    /**
+     * Records the latency of a successful request, i.e. the time until the first feature or the end of the response.
+     */
+    void onSuccess(long latencyNanos) {
+      if (sampled.compareAndSet(false, true)) {
+        succeeded(operation, latencyNanos);
+      }
+    }
+
+    /**
+     * Records that the request failed with a transient error or timed out.
+     */
+    void onDropped() {
+      if (sampled.compareAndSet(false, true)) {
+        dropped(operation);
+      }
+    }
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        List<Waiter> granted;
+        synchronized (ConcurrencyLimiter.this) {
+          inFlight--;
+          granted = drain();
+        }
+        grant(granted);
+      }
+    }
+  }
+
+  private static final class Waiter {
+
+    private final MonoSink<Permit> sink;
+    private final String operation;
+    private final int operationClass;
+    private boolean cancelled;
+    private Permit permit;
+
+    private Waiter(MonoSink<Permit> sink, String operation) {
+      this.sink = sink;
+      this.operation = operation;
+      this.operationClass = getOperationClass(operation);
+    }
+  }
+
+  /**
+   * The short-term and the long-term moving averages of the latencies of an operation, in nanoseconds. The averages
+   * are the plain means of the first samples.
+   */
+  private static final class Latencies {
+
+    private long count;
+    private double shortTerm;
+    private double longTerm;
+
+    private void record(long nanos) {
+      count++;
+      shortTerm += (nanos - shortTerm) * Math.max(SHORT_TERM_WEIGHT, 1.0 / count);
+      longTerm += (nanos - longTerm) * Math.max(LONG_TERM_WEIGHT, 1.0 / count);
+    }
+  }
+}
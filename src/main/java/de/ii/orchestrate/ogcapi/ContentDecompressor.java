@@ -0,0 +1,136 @@
+package de.ii.orchestrate.ogcapi;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliDecoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.Getter;
+import org.dotwebstack.orchestrate.source.SourceException;
+
+/**
+ * Incremental decompression of a response body with a content encoding ("gzip", "deflate" or "br"). The chunks are
+ * decompressed as they are received, so the decompression is part of the streaming decoding of the response and the
+ * compressed body is never buffered. A decompressor instance decompresses a single response and is not thread-safe.
+ */
+class ContentDecompressor {
+
+  static final String GZIP = "gzip";
+  static final String DEFLATE = "deflate";
+  static final String BROTLI = "br";
+
+  private static final Set<String> ENCODINGS = Set.of(GZIP, DEFLATE, BROTLI);
+
+  private final EmbeddedChannel channel;
+
+  @Getter
+  private final String encoding;
+  @Getter
+  private long wireBytes;
+  @Getter
+  private long decompressNanos;
+
+  private ContentDecompressor(String encoding) {
+    this.encoding = encoding;
+    this.channel = switch (encoding) {
+      case GZIP, "x-gzip" -> new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+      // some servers send raw deflate data instead of the zlib format
+      case DEFLATE, "x-deflate" -> new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.ZLIB_OR_NONE));
+      case BROTLI -> new EmbeddedChannel(new BrotliDecoder());
+      default -> throw new SourceException(String.format("Unsupported content encoding of response: %s.", encoding));
+    };
+  }
+
+  /**
+   * The decompressor for the content encoding of a response, {@code null} if the response is not encoded.
+   */
+  static ContentDecompressor forEncoding(String contentEncoding) {
+    if (contentEncoding == null || contentEncoding.isBlank()) {
+      return null;
+    }
+    var encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+    return "identity".equals(encoding) ? null : new ContentDecompressor(encoding);
+  }
+
+  /**
+   * The value of the "Accept-Encoding" header for the configured content encodings, {@code null} if no encoding is
+   * configured. Brotli is only accepted, if the native library is available.
+   */
+  static String getAcceptEncoding(List<String> contentEncodings) {
+    var encodings = new ArrayList<String>();
+    for (var encoding : contentEncodings) {
+      if (!ENCODINGS.contains(encoding)) {
+        throw new SourceException(
+            String.format("Unsupported content encoding '%s', supported are: %s.", encoding, ENCODINGS));
+      }
+      if (!BROTLI.equals(encoding) || Brotli.isAvailable()) {
+        encodings.add(encoding);
+      }
+    }
+    return encodings.isEmpty() ? null : String.join(", ", encodings);
+  }
+
+  /**
+   * Decompresses a chunk of a response body. The decompressed buffers are passed to the consumer and released once the
+   * consumer returns. The chunk is retained as long as the decompressor needs it.
+   */
+  void decompress(ByteBuf chunk, Consumer<ByteBuf> consumer) {
+    var start = System.nanoTime();
+    wireBytes += chunk.readableBytes();
+    try {
+      channel.writeInbound(chunk.retain());
+    } catch (RuntimeException e) {
+      throw invalidContent(e);
+    } finally {
+      decompressNanos += System.nanoTime() - start;
+    }
+    drain(consumer);
+  }
+
+  void endOfInput(Consumer<ByteBuf> consumer) {
+    var start = System.nanoTime();
+    try {
+      channel.finish();
+    } catch (RuntimeException e) {
+      throw invalidContent(e);
+    } finally {
+      decompressNanos += System.nanoTime() - start;
+    }
+    drain(consumer);
+  }
+
+  /**
+   * Releases the buffers that have not been decompressed, e.g. if the response has been cancelled.
+   */
+  void close() {
+    try {
+      channel.finishAndReleaseAll();
+    } catch (RuntimeException e) {
+      // a decompression error has been reported already
+    }
+  }
+
+  private void drain(Consumer<ByteBuf> consumer) {
+    ByteBuf buffer;
+    while ((buffer = channel.readInbound()) != null) {
+      try {
+        if (buffer.isReadable()) {
+          consumer.accept(buffer);
+        }
+      } finally {
+        buffer.release();
+      }
+    }
+  }
+
+  private SourceException invalidContent(RuntimeException e) {
+    return new SourceException(
+        String.format("Invalid response with content encoding '%s'. Problem found: %s", encoding, e.getMessage()));
+  }
+}
@@ -0,0 +1,209 @@
+package de.ii.orchestrate.ogcapi;
+
+import static java.util.stream.Collectors.joining;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTWriter;
+
+/**
+ * An expression of the Common Query Language (CQL2). An expression is rendered as CQL2 Text for the "filter" query
+ * parameter and as CQL2 JSON for Ad-hoc Queries. Literals are typed by the queryables of the collection, values of
+ * numeric and boolean queryables are not quoted.
+ */
+sealed interface Cql2Expression {
+
+  String toText(CollectionDescriptor descriptor);
+
+  JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor);
+
+  /**
+   * The geometries of the spatial predicates of the expression.
+   */
+  default Stream<Geometry> getGeometries() {
+    return Stream.empty();
+  }
+
+  /**
+   * A comparison of a property with a literal, the operator is one of "=", "<>", "<", "<=", ">" and ">=".
+   */
+  record Comparison(String op, String property, Object value) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return property + op + getTextLiteral(descriptor, property, value);
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      var node = getOperation(mapper, op, property);
+      ((ArrayNode) node.get("args")).add(getJsonLiteral(mapper, descriptor, property, value));
+      return node;
+    }
+  }
+
+  record In(String property, List<?> values) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return values.stream().map(value -> getTextLiteral(descriptor, property, value))
+          .collect(joining(",", property + " IN (", ")"));
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      var node = getOperation(mapper, "in", property);
+      var list = ((ArrayNode) node.get("args")).addArray();
+      values.forEach(value -> list.add(getJsonLiteral(mapper, descriptor, property, value)));
+      return node;
+    }
+  }
+
+  record Like(String property, String pattern) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return property + " LIKE " + quote(pattern);
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      var node = getOperation(mapper, "like", property);
+      ((ArrayNode) node.get("args")).add(pattern);
+      return node;
+    }
+  }
+
+  record Between(String property, Object lower, Object upper) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return property + " BETWEEN " + getTextLiteral(descriptor, property, lower) + " AND " +
+          getTextLiteral(descriptor, property, upper);
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      var node = getOperation(mapper, "between", property);
+      ((ArrayNode) node.get("args"))
+          .add(getJsonLiteral(mapper, descriptor, property, lower))
+          .add(getJsonLiteral(mapper, descriptor, property, upper));
+      return node;
+    }
+  }
+
+  record IsNull(String property) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return property + " IS NULL";
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      return getOperation(mapper, "isNull", property);
+    }
+  }
+
+  record Intersects(String property, Geometry geometry) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return String.format("s_intersects(%s,%s)", property, new WKTWriter().write(geometry));
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      return SpatialFilters.getIntersectsFilter(mapper, property, geometry);
+    }
+
+    @Override
+    public Stream<Geometry> getGeometries() {
+      return Stream.of(geometry);
+    }
+  }
+
+  /**
+   * A conjunction ("and") or disjunction ("or") of expressions.
+   */
+  record Logical(String op, List<Cql2Expression> args) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return args.stream().map(arg -> arg instanceof Logical ? "(" + arg.toText(descriptor) + ")" :
+          arg.toText(descriptor)).collect(joining(" " + op.toUpperCase(Locale.ROOT) + " "));
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      var node = mapper.createObjectNode().put("op", op);
+      var list = node.putArray("args");
+      args.forEach(arg -> list.add(arg.toJson(mapper, descriptor)));
+      return node;
+    }
+
+    @Override
+    public Stream<Geometry> getGeometries() {
+      return args.stream().flatMap(Cql2Expression::getGeometries);
+    }
+  }
+
+  record Not(Cql2Expression arg) implements Cql2Expression {
+
+    @Override
+    public String toText(CollectionDescriptor descriptor) {
+      return "NOT (" + arg.toText(descriptor) + ")";
+    }
+
+    @Override
+    public JsonNode toJson(ObjectMapper mapper, CollectionDescriptor descriptor) {
+      var node = mapper.createObjectNode().put("op", "not");
+      node.putArray("args").add(arg.toJson(mapper, descriptor));
+      return node;
+    }
+
+    @Override
+    public Stream<Geometry> getGeometries() {
+      return arg.getGeometries();
+    }
+  }
+
+  private static ObjectNode getOperation(ObjectMapper mapper, String op, String property) {
+    var node = mapper.createObjectNode().put("op", op);
+    node.putArray("args").addObject().put("property", property);
+    return node;
+  }
+
+  private static String getTextLiteral(CollectionDescriptor descriptor, String property, Object value) {
+    if (value instanceof Number || value instanceof Boolean) {
+      return value.toString();
+    }
+    return descriptor.getLiteral(property, value);
+  }
+
+  private static JsonNode getJsonLiteral(ObjectMapper mapper, CollectionDescriptor descriptor, String property,
+                                         Object value) {
+    if (value instanceof Number || value instanceof Boolean) {
+      return mapper.valueToTree(value);
+    }
+    var text = descriptor.getLiteral(property, value);
+    if (text.startsWith("'")) {
+      return mapper.getNodeFactory().textNode(value.toString());
+    }
+    // an unquoted literal of a numeric or boolean queryable
+    var nodes = mapper.getNodeFactory();
+    return "true".equals(text) || "false".equals(text) ? nodes.booleanNode(Boolean.parseBoolean(text)) :
+        nodes.numberNode(new BigDecimal(text));
+  }
+
+  private static String quote(String text) {
+    return "'" + text.replace("'", "''") + "'";
+  }
+}
@@ -0,0 +1,180 @@
+package de.ii.orchestrate.ogcapi;
+
+import static de.ii.orchestrate.ogcapi.OgcApiFeaturesDataRepository.PATH_SEPARATOR;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.dotwebstack.orchestrate.model.filters.FilterExpression;
+import org.dotwebstack.orchestrate.source.CollectionRequest;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Translates the filter expression of a collection request into a CQL2 expression that is evaluated by the API. The
+ * filter operators are the comparisons "equals", "notEquals", "lessThan", "lessThanOrEqual", "greaterThan" and
+ * "greaterThanOrEqual", "in", "like", "between", "isNull" and "isNotNull", the spatial operator "intersects" and the
+ * logical operators "and", "or" and "not", whose value is a filter expression or a list of filter expressions. A
+ * filter that the API cannot evaluate is rejected, it is never ignored.
+ */
+final class Cql2Translator {
+
+  private static final Map<String, String> COMPARISONS = Map.of(
+      "equals", "=",
+      "notEquals", "<>",
+      "lessThan", "<",
+      "lessThanOrEqual", "<=",
+      "greaterThan", ">",
+      "greaterThanOrEqual", ">=");
+
+  private final CollectionRequest collectionRequest;
+  private final CollectionDescriptor descriptor;
+  private final Capabilities capabilities;
+
+  private Cql2Translator(CollectionRequest collectionRequest, CollectionDescriptor descriptor,
+                         Capabilities capabilities) {
+    this.collectionRequest = collectionRequest;
+    this.descriptor = descriptor;
+    this.capabilities = capabilities;
+  }
+
+  static Cql2Expression translate(CollectionRequest collectionRequest, CollectionDescriptor descriptor,
+                                  Capabilities capabilities) {
+    var translator = new Cql2Translator(collectionRequest, descriptor, capabilities);
+    var expression = translator.translate(collectionRequest.getFilter());
+    // the CRS of the geometries is a parameter of the request
+    if (expression.getGeometries().map(Geometry::getSRID).distinct().count() > 1) {
+      throw translator.invalid("the geometries of the filter have different coordinate reference systems");
+    }
+    return expression;
+  }
+
+  private Cql2Expression translate(FilterExpression filterExpression) {
+    var operator = filterExpression.getOperator().getType();
+    var value = filterExpression.getValue();
+    switch (operator) {
+      case "and", "or" -> {
+        if (!(value instanceof Collection<?> args) || args.isEmpty()) {
+          throw invalid(String.format("the value of '%s' must be a list of filter expressions", operator));
+        }
+        List<Cql2Expression> expressions = new ArrayList<>();
+        args.forEach(arg -> expressions.add(translate(getFilterExpression(operator, arg))));
+        return expressions.size() == 1 ? expressions.get(0) : new Cql2Expression.Logical(operator, expressions);
+      }
+      case "not" -> {
+        return new Cql2Expression.Not(translate(getFilterExpression(operator, value)));
+      }
+      case "equals" -> {
+        // the value of the object type filters is a map of queryables and values
+        if (value instanceof Map<?, ?> values) {
+          if (values.isEmpty()) {
+            throw invalid("the value of 'equals' must not be an empty map");
+          }
+          List<Cql2Expression> expressions = values.entrySet().stream()
+              .map(entry -> getComparison("=", getQueryable(entry.getKey().toString()), entry.getValue()))
+              .toList();
+          return expressions.size() == 1 ? expressions.get(0) : new Cql2Expression.Logical("and", expressions);
+        }
+        return getComparison("=", getProperty(filterExpression), value);
+      }
+      case "in" -> {
+        requireAdvancedComparisonOperators(operator);
+        if (!(value instanceof Collection<?> values) || values.isEmpty() || values.stream().anyMatch(Objects::isNull)) {
+          throw invalid("the value of 'in' must be a non-empty list of literals");
+        }
+        return new Cql2Expression.In(getProperty(filterExpression), List.copyOf(values));
+      }
+      case "like" -> {
+        requireAdvancedComparisonOperators(operator);
+        if (!(value instanceof String pattern)) {
+          throw invalid("the value of 'like' must be a pattern");
+        }
+        return new Cql2Expression.Like(getProperty(filterExpression), pattern);
+      }
+      case "between" -> {
+        requireAdvancedComparisonOperators(operator);
+        if (!(value instanceof List<?> bounds) || bounds.size() != 2 || bounds.get(0) == null ||
+            bounds.get(1) == null) {
+          throw invalid("the value of 'between' must be a list with the lower and the upper bound");
+        }
+        return new Cql2Expression.Between(getProperty(filterExpression), bounds.get(0), bounds.get(1));
+      }
+      case "isNull", "isNotNull" -> {
+        Cql2Expression isNull = new Cql2Expression.IsNull(getProperty(filterExpression));
+        // the value may negate the operator
+        var negated = "isNotNull".equals(operator) != Boolean.FALSE.equals(value);
+        return negated ? new Cql2Expression.Not(isNull) : isNull;
+      }
+      case "intersects" -> {
+        if (!capabilities.isSupportsIntersects()) {
+          throw invalid("the API does not support spatial filters");
+        }
+        if (!(value instanceof Geometry geometry)) {
+          throw invalid("the value of 'intersects' must be a geometry");
+        }
+        return new Cql2Expression.Intersects(getProperty(filterExpression), geometry);
+      }
+      default -> {
+        var op = COMPARISONS.get(operator);
+        if (op == null) {
+          throw invalid(String.format("the filter operator '%s' is not supported", operator));
+        }
+        return getComparison(op, getProperty(filterExpression), value);
+      }
+    }
+  }
+
+  private Cql2Expression getComparison(String op, String property, Object value) {
+    if (value == null) {
+      // a comparison with null is never true in CQL2
+      return switch (op) {
+        case "=" -> new Cql2Expression.IsNull(property);
+        case "<>" -> new Cql2Expression.Not(new Cql2Expression.IsNull(property));
+        default -> throw invalid(String.format("the value of '%s' must not be null", op));
+      };
+    }
+    if (value instanceof Map<?, ?> || value instanceof Collection<?> || value instanceof Geometry) {
+      throw invalid(String.format("the value of '%s' must be a literal", op));
+    }
+    return new Cql2Expression.Comparison(op, property, value);
+  }
+
+  private FilterExpression getFilterExpression(String operator, Object value) {
+    if (!(value instanceof FilterExpression filterExpression)) {
+      throw invalid(String.format("the value of '%s' must be a filter expression", operator));
+    }
+    return filterExpression;
+  }
+
+  /**
+   * The property of a filter expression, the segments of a nested path are separated by a dot.
+   */
+  private String getProperty(FilterExpression filterExpression) {
+    if (filterExpression.getPath() == null) {
+      throw invalid(String.format("the filter operator '%s' requires a property",
+          filterExpression.getOperator().getType()));
+    }
+    return getQueryable(String.join(PATH_SEPARATOR, filterExpression.getPath().getSegments()));
+  }
+
+  private String getQueryable(String path) {
+    if (!descriptor.isQueryable(path)) {
+      throw invalid(String.format("'%s' is not a queryable of collection '%s'", path, descriptor.id()));
+    }
+    return path;
+  }
+
+  private void requireAdvancedComparisonOperators(String operator) {
+    if (!capabilities.isSupportsAdvancedComparisonOperators()) {
+      throw invalid(String.format("the API does not support the CQL2 advanced comparison operators, which are " +
+          "required for '%s'", operator));
+    }
+  }
+
+  private SourceException invalid(String problem) {
+    return new SourceException(String.format("Invalid collection request: %s. Request: %s", problem,
+        collectionRequest));
+  }
+}
@@ -0,0 +1,31 @@
+package de.ii.orchestrate.ogcapi;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for the decoding of feature responses.
+ */
+@Value
+@Builder(toBuilder = true)
+public class DecodingOptions {
+
+  /**
+   * Decode the responses on a dedicated scheduler instead of the Netty event loop that receives them, so that large
+   * responses do not delay the other connections of the event loop.
+   */
+  @Builder.Default
+  boolean offload = true;
+
+  /**
+   * The number of threads of the scheduler that decodes the responses of a source.
+   */
+  @Builder.Default
+  int threads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The maximum number of received chunks of a response that are queued for the decoding.
+   */
+  @Builder.Default
+  int prefetch = 8;
+}
@@ -0,0 +1,28 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for the discovery of the capabilities of the API. The discovery runs in the background when the source
+ * is created, so that the sources are discovered in parallel and a slow API does not delay the startup.
+ */
+@Value
+@Builder(toBuilder = true)
+public class DiscoveryOptions {
+
+  /**
+   * The directory to store snapshots of the discovered resources in. If a fresh snapshot exists on startup, the source
+   * is available immediately and the snapshot is revalidated in the background. No snapshots are stored, if
+   * {@code null}.
+   */
+  Path snapshotDirectory;
+
+  /**
+   * The time a snapshot is used on startup.
+   */
+  @Builder.Default
+  Duration snapshotTtl = Duration.ofHours(24);
+}
@@ -0,0 +1,84 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The snapshots of the discovered resources of an API, one file per resource in a directory per API. Snapshots are an
+ * optimization only: a snapshot that is missing, expired or cannot be read is ignored, and a snapshot that cannot be
+ * written is skipped.
+ */
+class DiscoverySnapshot {
+
+  private final Path directory;
+  private final Duration ttl;
+  private final ObjectMapper mapper;
+  private final Clock clock;
+
+  DiscoverySnapshot(Path snapshotDirectory, String apiLandingPage, Duration ttl, ObjectMapper mapper, Clock clock) {
+    this.directory = snapshotDirectory.resolve(
+        UUID.nameUUIDFromBytes(apiLandingPage.getBytes(StandardCharsets.UTF_8)).toString());
+    this.ttl = ttl;
+    this.mapper = mapper;
+    this.clock = clock;
+  }
+
+  /**
+   * Reads a resource, returns {@code null}, if there is no snapshot of the resource that is younger than the ttl.
+   */
+  <T> T read(String resource, Class<T> type) {
+    var file = getFile(resource);
+    try {
+      if (!Files.isRegularFile(file) ||
+          Files.getLastModifiedTime(file).toInstant().plus(ttl).isBefore(clock.instant())) {
+        return null;
+      }
+      return mapper.readValue(file.toFile(), type);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes a resource in the background on a scheduler for blocking tasks, as the resources are discovered on the
+   * event loop.
+   */
+  void writeLater(String resource, Object value) {
+    Mono.fromRunnable(() -> write(resource, value))
+        .subscribeOn(Schedulers.boundedElastic())
+        .subscribe();
+  }
+
+  void write(String resource, Object value) {
+    var file = getFile(resource);
+    try {
+      Files.createDirectories(directory);
+      // written to a temporary file first, so that concurrent readers never see a partial snapshot
+      var tmp = Files.createTempFile(directory, resource, ".tmp");
+      try {
+        mapper.writeValue(tmp.toFile(), value);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    } catch (IOException e) {
+      // the snapshot is skipped, the resource is requested again on the next startup
+    }
+  }
+
+  private Path getFile(String resource) {
+    return directory.resolve(resource + ".json");
+  }
+}
@@ -0,0 +1,217 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes the requests of a source to the landing page of the API and its mirrors, i.e. the landing pages of replicas
+ * of the same API. A request is sent to the healthy landing page with the lowest product of the moving average of its
+ * latencies and its outstanding requests. A landing page is ejected after consecutive transient errors; once the
+ * ejection duration has passed, it is checked again and re-admitted, if the check succeeds. The mirrors are checked
+ * before they receive the first request. If no landing page is healthy, the requests are sent to the landing page of
+ * the API.
+ *
+ * <p>The URIs of the requests refer to the landing page of the API, so that identical requests are coalesced and
+ * cached independent of the landing page that serves them.
+ */
+class EndpointBalancer {
+
+  private static final double LATENCY_WEIGHT = 0.3;
+
+  private final List<Endpoint> endpoints;
+  private final BalancingOptions options;
+  private final Function<String, Mono<?>> check;
+  private final Ticker ticker;
+
+  /**
+   * @param check checks a mirror, the mirror is admitted, if the check completes without an error
+   */
+  EndpointBalancer(String landingPage, List<String> mirrors, BalancingOptions options,
+                   Function<String, Mono<?>> check, Ticker ticker) {
+    this.endpoints = Stream.concat(Stream.of(landingPage), mirrors.stream()).map(Endpoint::new).toList();
+    this.options = options;
+    this.check = check;
+    this.ticker = ticker;
+    endpoints.get(0).healthy = true;
+  }
+
+  /**
+   * Starts the checks of the mirrors, without waiting for the results.
+   */
+  void checkMirrors() {
+    List<Endpoint> checked;
+    synchronized (this) {
+      checked = endpoints.stream().skip(1).filter(this::startCheck).toList();
+    }
+    checked.forEach(this::check);
+  }
+
+  /**
+   * Sends a request to the selected landing page, the request is created with the URI of the landing page.
+   */
+  <T> Flux<T> route(String uri, Function<String, Flux<T>> request) {
+    return Flux.defer(() -> {
+      var endpoint = select();
+      var match = getEndpoint(uri);
+      var target = match != null ? endpoint.landingPage + uri.substring(match.landingPage.length()) : uri;
+      var start = ticker.read();
+      var completed = new AtomicBoolean();
+      return request.apply(target)
+          .doOnEach(signal -> {
+            if ((signal.isOnNext() || signal.isOnComplete() || signal.isOnError()) &&
+                completed.compareAndSet(false, true)) {
+              completed(endpoint, ticker.read() - start,
+                  signal.isOnError() && RequestPolicy.isTransient(signal.getThrowable()));
+            }
+          })
+          .doFinally(signal -> released(endpoint));
+    });
+  }
+
+  /**
+   * The URI with the landing page of the API, if the URI refers to a mirror, e.g. a "next" link of a response.
+   */
+  String normalize(String uri) {
+    var endpoint = getEndpoint(uri);
+    return endpoint == null || endpoint == endpoints.get(0) ? uri :
+        endpoints.get(0).landingPage + uri.substring(endpoint.landingPage.length());
+  }
+
+  List<Endpoint> getEndpoints() {
+    return endpoints;
+  }
+
+  private Endpoint select() {
+    Endpoint selected = null;
+    var selectedScore = Double.MAX_VALUE;
+    List<Endpoint> checked = new ArrayList<>();
+    synchronized (this) {
+      var now = ticker.read();
+      for (var endpoint : endpoints) {
+        if (!endpoint.healthy) {
+          if (now - endpoint.ejectedAt >= options.getEjectionDuration().toNanos() && startCheck(endpoint)) {
+            checked.add(endpoint);
+          }
+          continue;
+        }
+        var score = Math.max(endpoint.latency, 1) * (endpoint.outstanding + 1);
+        if (score < selectedScore) {
+          selected = endpoint;
+          selectedScore = score;
+        }
+      }
+      if (selected == null) {
+        selected = endpoints.get(0);
+      }
+      selected.outstanding++;
+    }
+    selected.requests.increment();
+    checked.forEach(this::check);
+    return selected;
+  }
+
+  private synchronized void completed(Endpoint endpoint, long latencyNanos, boolean failed) {
+    if (!failed) {
+      endpoint.failures = 0;
+      endpoint.latency = endpoint.latency == 0 ? latencyNanos :
+          endpoint.latency + (latencyNanos - endpoint.latency) * LATENCY_WEIGHT;
+    } else if (++endpoint.failures >= options.getMaxFailures() && endpoint.healthy) {
+      eject(endpoint);
+    }
+  }
+
+  private synchronized void released(Endpoint endpoint) {
+    endpoint.outstanding--;
+  }
+
+  private boolean startCheck(Endpoint endpoint) {
+    if (endpoint.checking) {
+      return false;
+    }
+    endpoint.checking = true;
+    return true;
+  }
+
+  private void check(Endpoint endpoint) {
+    check.apply(endpoint.landingPage).then().subscribe(null, error -> {
+      synchronized (this) {
+        endpoint.checking = false;
+        eject(endpoint);
+      }
+    }, () -> admit(endpoint));
+  }
+
+  private synchronized void admit(Endpoint endpoint) {
+    // the latencies of the other landing pages, so that the landing page does not receive all requests at once
+    endpoint.latency = endpoints.stream().filter(other -> other.healthy && other.latency > 0)
+        .mapToDouble(other -> other.latency).average().orElse(0);
+    endpoint.checking = false;
+    endpoint.healthy = true;
+    endpoint.failures = 0;
+  }
+
+  private void eject(Endpoint endpoint) {
+    if (endpoint.healthy) {
+      endpoint.ejections.increment();
+    }
+    endpoint.healthy = false;
+    endpoint.ejectedAt = ticker.read();
+  }
+
+  /**
+   * The landing page that the URI refers to, {@code null} if the URI does not refer to a landing page of the API.
+   */
+  private Endpoint getEndpoint(String uri) {
+    Endpoint match = null;
+    for (var endpoint : endpoints) {
+      if (uri.startsWith(endpoint.landingPage) &&
+          (match == null || endpoint.landingPage.length() > match.landingPage.length())) {
+        match = endpoint;
+      }
+    }
+    return match;
+  }
+
+  /**
+   * A landing page of the API.
+   */
+  static final class Endpoint {
+
+    private final String landingPage;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder ejections = new LongAdder();
+    private volatile boolean healthy;
+    private boolean checking;
+    private long ejectedAt;
+    private int outstanding;
+    private int failures;
+    private double latency;
+
+    private Endpoint(String landingPage) {
+      this.landingPage = landingPage;
+    }
+
+    String getLandingPage() {
+      return landingPage;
+    }
+
+    boolean isHealthy() {
+      return healthy;
+    }
+
+    long getRequestCount() {
+      return requests.sum();
+    }
+
+    long getEjectionCount() {
+      return ejections.sum();
+    }
+  }
+}
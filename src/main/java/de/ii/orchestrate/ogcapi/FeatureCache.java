@@ -0,0 +1,132 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of projected features of a collection. The key is the feature identifier together with the cache
+ * key of the projection plan, so features with different property selections are cached independently.
+ *
+ * <p>A feature is fresh for the configured ttl and is returned without a request. After that, it is kept for the
+ * revalidation window and, if the API provided an "ETag" or "Last-Modified" header, it is revalidated with a
+ * conditional request. Each lookup is counted once, as a hit of a fresh feature, as a stale feature or as a miss.
+ * The cache also counts evictions and the outcome of revalidations.
+ */
+class FeatureCache {
+
+  record Entry(Map<String, Object> feature, String etag, String lastModified, long storedAt) {
+
+    boolean hasValidator() {
+      return etag != null || lastModified != null;
+    }
+  }
+
+  /**
+   * The result of a lookup: the feature, if it is fresh, otherwise the stale entry, if it can be revalidated.
+   */
+  record Lookup(Map<String, Object> feature, Entry stale) {
+  }
+
+  private static final Lookup MISS = new Lookup(null, null);
+
+  private final Cache<String, Entry> cache;
+  private final Ticker ticker;
+  private final long ttlNanos;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder revalidations = new LongAdder();
+  private final LongAdder notModified = new LongAdder();
+
+  FeatureCache(CacheOptions options, Ticker ticker) {
+    this.ticker = ticker;
+    this.ttlNanos = options.getTtl().toNanos();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(options.getMaximumSize())
+        .expireAfterWrite(options.getTtl().plus(options.getRevalidationWindow()))
+        .ticker(ticker)
+        .evictionListener((key, entry, cause) -> evictions.increment())
+        .build();
+  }
+
+  static String getKey(String featureId, String planKey) {
+    return featureId + "|" + planKey;
+  }
+
+  /**
+   * Looks up a cached feature, a single lookup per request.
+   */
+  Lookup get(String key) {
+    var entry = cache.getIfPresent(key);
+    if (entry == null) {
+      misses.increment();
+      return MISS;
+    }
+    if (isFresh(entry)) {
+      hits.increment();
+      return new Lookup(entry.feature(), null);
+    }
+    staleHits.increment();
+    return entry.hasValidator() ? new Lookup(null, entry) : MISS;
+  }
+
+  /**
+   * Counts a conditional request to revalidate a stale entry.
+   */
+  void revalidating() {
+    revalidations.increment();
+  }
+
+  void put(String key, Map<String, Object> feature, String etag, String lastModified) {
+    cache.put(key, new Entry(feature, etag, lastModified, ticker.read()));
+  }
+
+  /**
+   * Marks a revalidated entry as fresh again, after the API responded with "304 Not Modified".
+   */
+  Map<String, Object> notModified(String key, Entry entry) {
+    notModified.increment();
+    cache.put(key, new Entry(entry.feature(), entry.etag(), entry.lastModified(), ticker.read()));
+    return entry.feature();
+  }
+
+  void invalidate(String key) {
+    cache.invalidate(key);
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getStaleCount() {
+    return staleHits.sum();
+  }
+
+  long getMissCount() {
+    return misses.sum();
+  }
+
+  long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  long getRevalidationCount() {
+    return revalidations.sum();
+  }
+
+  long getNotModifiedCount() {
+    return notModified.sum();
+  }
+
+  long getSize() {
+    return cache.estimatedSize();
+  }
+
+  private boolean isFresh(Entry entry) {
+    return ticker.read() - entry.storedAt() < ttlNanos;
+  }
+}
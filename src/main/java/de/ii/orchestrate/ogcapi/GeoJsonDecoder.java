@@ -0,0 +1,471 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import lombok.Getter;
+import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Incremental decoder for GeoJSON responses. The response body is fed chunk by chunk into a non-blocking Jackson
+ * parser and each feature is emitted as soon as its last token has been received, so the decoder never holds more
+ * than the current feature in memory. The parser reads the received Netty buffers in place, the bytes of the response
+ * are not copied.
+ *
+ * <p>The decoding is driven by a {@link ProjectionPlan}: members of a feature that are not selected, including the
+ * geometry, are skipped at the token level without being materialized and the selected values are written directly
+ * into the projected feature. Geometries are either decoded as GeoJSON objects or, if a SRID is given, directly into
+ * JTS geometries by a {@link GeoJsonGeometryReader}.
+ *
+ * <p>For a feature collection the "links" and "numberMatched" members are captured as well, so that the "next" link
+ * and the number of matching features are available once the response has been decoded completely. A decoder
+ * instance decodes a single response and is not thread-safe.
+ */
+class GeoJsonDecoder {
+
+  static final String FEATURES = "features";
+  static final String PROPERTIES = "properties";
+  static final String GEOMETRY = "geometry";
+  static final String ID = "id";
+  static final String LINKS = "links";
+  static final String NEXT = "next";
+  static final String NUMBER_MATCHED = "numberMatched";
+
+  private enum Context {ROOT, FEATURE_COLLECTION, FEATURES, FEATURE, PROPERTIES, DONE}
+
+  private enum Target {ID, GEOMETRY, PROPERTY, LINKS, NUMBER_MATCHED}
+
+  private final ObjectMapper mapper;
+  private final ProjectionPlan plan;
+  private final boolean featureCollection;
+  private final JsonParser parser;
+  private final ByteBufferFeeder feeder;
+
+  private Context context = Context.ROOT;
+  private int depth;
+  private String member;
+  private ProjectionPlan.FeatureBuilder feature;
+
+  private int skipDepth = -1;
+  private Target target;
+  private TokenBuffer capture;
+  private int captureDepth;
+  private final GeoJsonGeometryReader geometryReader;
+  private boolean readingGeometry;
+
+  @Getter
+  private String nextLink;
+  @Getter
+  private Long numberMatched;
+
+  @Getter
+  private long bytes;
+  @Getter
+  private long decodeNanos;
+  @Getter
+  private int featureCount;
+
+  /**
+   * The time the chunks of the response have been guarded, and decompressed and decoded or handed off, on the thread
+   * that received them.
+   */
+  @Getter
+  private long receiveThreadNanos;
+  private long receiveStart;
+
+  private GeoJsonDecoder(ObjectMapper mapper, ProjectionPlan plan, boolean featureCollection, Integer geometrySrid) {
+    this.mapper = mapper;
+    this.plan = plan;
+    this.featureCollection = featureCollection;
+    this.geometryReader = geometrySrid != null && plan.needsGeometry() ? new GeoJsonGeometryReader(geometrySrid) :
+        null;
+    try {
+      this.parser = mapper.getFactory().createNonBlockingByteBufferParser();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  static GeoJsonDecoder forFeature(ObjectMapper mapper, ProjectionPlan plan) {
+    return forFeature(mapper, plan, null);
+  }
+
+  /**
+   * A decoder for a feature, the geometries are decoded into JTS geometries with the SRID, if it is not {@code null}.
+   */
+  static GeoJsonDecoder forFeature(ObjectMapper mapper, ProjectionPlan plan, Integer geometrySrid) {
+    return new GeoJsonDecoder(mapper, plan, false, geometrySrid);
+  }
+
+  static GeoJsonDecoder forFeatureCollection(ObjectMapper mapper, ProjectionPlan plan) {
+    return forFeatureCollection(mapper, plan, null);
+  }
+
+  /**
+   * A decoder for a feature collection, the geometries are decoded into JTS geometries with the SRID, if it is not
+   * {@code null}.
+   */
+  static GeoJsonDecoder forFeatureCollection(ObjectMapper mapper, ProjectionPlan plan, Integer geometrySrid) {
+    return new GeoJsonDecoder(mapper, plan, true, geometrySrid);
+  }
+
+  /**
+   * Decodes the chunks of a response body. Features are emitted as soon as they are complete.
+   */
+  Flux<Map<String, Object>> decode(Flux<ByteBuf> content) {
+    return decode(content, null);
+  }
+
+  /**
+   * Decodes the chunks of a response body that is compressed, if a decompressor is given. Each chunk is fed
+   * synchronously when it is received, so the chunk is only read while it is owned by the caller, e.g. Reactor Netty
+   * releases a received buffer once it has been passed on. Only the decoded features are queued.
+   */
+  Flux<Map<String, Object>> decode(Flux<ByteBuf> content, ContentDecompressor decompressor) {
+    return decode(content, UnaryOperator.identity(), decompressor, null, 0);
+  }
+
+  /**
+   * Decodes the chunks of a response body on a scheduler, if it is not {@code null}. The chunks are retained and
+   * handed off to the scheduler, so that the thread that receives the response, i.e. a Netty event loop, is not
+   * blocked by the decompression and decoding. At most {@code prefetch} chunks are queued, chunks that are still
+   * queued when the decoding is cancelled are released. Without a scheduler, the chunks are decoded on the receiving
+   * thread. The guard is applied to the received chunks, its time on the receiving thread is included in the receive
+   * thread time; chunks that the guard emits later from another thread, e.g. spilled chunks, are not.
+   */
+  Flux<Map<String, Object>> decode(Flux<ByteBuf> content, UnaryOperator<Flux<ByteBuf>> guard,
+                                   ContentDecompressor decompressor, Scheduler scheduler, int prefetch) {
+    Function<ByteBuf, List<Map<String, Object>>> decodeChunk = decompressor == null ? this::feed : chunk -> {
+      List<Map<String, Object>> features = new ArrayList<>();
+      decompressor.decompress(chunk, buffer -> features.addAll(feed(buffer)));
+      return features;
+    };
+    var received = guard.apply(content.doOnNext(chunk -> receiveStart = System.nanoTime()));
+    Flux<List<Map<String, Object>>> decoded;
+    if (scheduler == null) {
+      decoded = received.map(chunk -> {
+        try {
+          return decodeChunk.apply(chunk);
+        } finally {
+          received();
+        }
+      });
+    } else {
+      decoded = received.map(chunk -> {
+            chunk.retain();
+            received();
+            return chunk;
+          })
+          .publishOn(scheduler, Math.max(1, prefetch))
+          .map(chunk -> {
+            try {
+              return decodeChunk.apply(chunk);
+            } finally {
+              chunk.release();
+            }
+          })
+          .doOnDiscard(ByteBuf.class, ReferenceCountUtil::safeRelease);
+    }
+    var features = decoded.concatMapIterable(list -> list);
+    if (decompressor == null) {
+      return features.concatWith(Flux.defer(() -> Flux.fromIterable(endOfInput())));
+    }
+    return features
+        .concatWith(Flux.defer(() -> {
+          List<Map<String, Object>> remaining = new ArrayList<>();
+          decompressor.endOfInput(buffer -> remaining.addAll(feed(buffer)));
+          remaining.addAll(endOfInput());
+          return Flux.fromIterable(remaining);
+        }))
+        .doFinally(signal -> decompressor.close());
+  }
+
+  /**
+   * Adds the time since the current chunk has been received, if it has been received on this thread.
+   */
+  private void received() {
+    if (receiveStart != 0) {
+      receiveThreadNanos += System.nanoTime() - receiveStart;
+      receiveStart = 0;
+    }
+  }
+
+  List<Map<String, Object>> feed(byte[] chunk) {
+    return feed(Unpooled.wrappedBuffer(chunk));
+  }
+
+  /**
+   * Feeds a chunk of the response body, the chunk is not retained.
+   */
+  List<Map<String, Object>> feed(ByteBuf chunk) {
+    var start = System.nanoTime();
+    bytes += chunk.readableBytes();
+    try {
+      if (chunk.nioBufferCount() == 1) {
+        feeder.feedInput(chunk.nioBuffer());
+        return drain();
+      }
+      // the components of a composite buffer are fed one after the other, each one is parsed completely
+      List<Map<String, Object>> features = new ArrayList<>();
+      for (var buffer : chunk.nioBuffers()) {
+        feeder.feedInput(buffer);
+        features.addAll(drain());
+      }
+      return features;
+    } catch (IOException e) {
+      throw invalidResponse(e);
+    } finally {
+      decodeNanos += System.nanoTime() - start;
+    }
+  }
+
+  List<Map<String, Object>> endOfInput() {
+    var start = System.nanoTime();
+    feeder.endOfInput();
+    try {
+      var features = drain();
+      if (depth != 0 || capture != null || readingGeometry) {
+        throw new SourceException(String.format("Received incomplete %s response.", responseType()));
+      }
+      return features;
+    } catch (JsonEOFException e) {
+      throw new SourceException(String.format("Received incomplete %s response.", responseType()), e);
+    } catch (IOException e) {
+      throw invalidResponse(e);
+    } finally {
+      close();
+      decodeNanos += System.nanoTime() - start;
+    }
+  }
+
+  private List<Map<String, Object>> drain() throws IOException {
+    List<Map<String, Object>> features = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      if (skipDepth >= 0) {
+        track(token);
+        if (token.isStructEnd() && depth == skipDepth) {
+          skipDepth = -1;
+        }
+      } else if (capture != null) {
+        track(token);
+        capture.copyCurrentEvent(parser);
+        if (token.isStructEnd() && depth == captureDepth) {
+          deliver(readCapture());
+        }
+      } else if (readingGeometry) {
+        track(token);
+        if (geometryReader.next(token, parser)) {
+          readingGeometry = false;
+          deliver(geometryReader.getGeometry());
+        }
+      } else if (token == JsonToken.FIELD_NAME) {
+        member = parser.currentName();
+      } else if (token.isStructEnd()) {
+        track(token);
+        onEnd(features);
+      } else {
+        onValue(token);
+      }
+    }
+    return features;
+  }
+
+  private void onValue(JsonToken token) throws IOException {
+    switch (context) {
+      case ROOT -> {
+        if (token != JsonToken.START_OBJECT) {
+          throw new SourceException(featureCollection ?
+              "Received invalid feature collection response, expected a GeoJSON feature collection." :
+              "Received invalid feature response, expected a GeoJSON feature.");
+        }
+        if (featureCollection) {
+          context = Context.FEATURE_COLLECTION;
+        } else {
+          startFeature();
+        }
+        track(token);
+      }
+      case FEATURE_COLLECTION -> {
+        if (FEATURES.equals(member) && token == JsonToken.START_ARRAY) {
+          context = Context.FEATURES;
+          track(token);
+        } else if (LINKS.equals(member)) {
+          read(token, Target.LINKS);
+        } else if (NUMBER_MATCHED.equals(member)) {
+          read(token, Target.NUMBER_MATCHED);
+        } else {
+          skip(token);
+        }
+      }
+      case FEATURES -> {
+        if (token == JsonToken.START_OBJECT) {
+          startFeature();
+          track(token);
+        } else {
+          skip(token);
+        }
+      }
+      case FEATURE -> {
+        if (ID.equals(member)) {
+          read(token, Target.ID);
+        } else if (PROPERTIES.equals(member) && token == JsonToken.START_OBJECT) {
+          context = Context.PROPERTIES;
+          track(token);
+        } else if (GEOMETRY.equals(member) && plan.needsGeometry()) {
+          read(token, Target.GEOMETRY);
+        } else {
+          skip(token);
+        }
+      }
+      case PROPERTIES -> {
+        if (plan.isSelected(member)) {
+          read(token, Target.PROPERTY);
+        } else {
+          skip(token);
+        }
+      }
+      default -> skip(token);
+    }
+  }
+
+  private void onEnd(List<Map<String, Object>> features) {
+    switch (context) {
+      case PROPERTIES -> context = Context.FEATURE;
+      case FEATURE -> {
+        features.add(feature.build());
+        featureCount++;
+        feature = null;
+        context = featureCollection ? Context.FEATURES : Context.DONE;
+      }
+      case FEATURES -> context = Context.FEATURE_COLLECTION;
+      case FEATURE_COLLECTION -> context = Context.DONE;
+      default -> {
+        // nothing to do
+      }
+    }
+  }
+
+  private void startFeature() {
+    feature = plan.newFeature();
+    context = Context.FEATURE;
+  }
+
+  /**
+   * Reads the value that starts with the current token and delivers it to the target once it is complete.
+   */
+  private void read(JsonToken token, Target target) throws IOException {
+    this.target = target;
+    if (token.isScalarValue() || token == JsonToken.VALUE_NULL) {
+      deliver(getScalarValue(token));
+      return;
+    }
+    if (geometryReader != null && token == JsonToken.START_OBJECT &&
+        (target == Target.GEOMETRY || target == Target.PROPERTY && plan.isGeometry(member))) {
+      readingGeometry = true;
+      geometryReader.start();
+      track(token);
+      return;
+    }
+    capture = new TokenBuffer(parser, null);
+    captureDepth = depth;
+    track(token);
+    capture.copyCurrentEvent(parser);
+  }
+
+  /**
+   * Skips the value that starts with the current token.
+   */
+  private void skip(JsonToken token) {
+    if (token.isStructStart()) {
+      skipDepth = depth;
+      track(token);
+    }
+  }
+
+  private Object getScalarValue(JsonToken token) throws IOException {
+    return switch (token) {
+      case VALUE_STRING -> parser.getText();
+      case VALUE_NUMBER_INT -> parser.getNumberValue();
+      case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+      case VALUE_TRUE -> Boolean.TRUE;
+      case VALUE_FALSE -> Boolean.FALSE;
+      default -> null;
+    };
+  }
+
+  private void deliver(Object value) {
+    switch (target) {
+      case ID -> feature.id(value);
+      case GEOMETRY -> feature.geometry(value);
+      case PROPERTY -> {
+        if (value != null) {
+          feature.property(member, value);
+        }
+      }
+      case LINKS -> nextLink = getNextLink(value);
+      case NUMBER_MATCHED -> numberMatched = value instanceof Number number ? number.longValue() : null;
+    }
+    target = null;
+  }
+
+  static String getNextLink(Object links) {
+    if (!(links instanceof List<?> linkList)) {
+      return null;
+    }
+    return linkList.stream()
+        .filter(link -> link instanceof Map<?, ?> linkMap && NEXT.equals(linkMap.get("rel")) &&
+            linkMap.get("href") instanceof String)
+        .map(link -> (String) ((Map<?, ?>) link).get("href"))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private Object readCapture() throws IOException {
+    try (var captured = capture.asParser()) {
+      return mapper.readValue(captured, Object.class);
+    } finally {
+      capture = null;
+    }
+  }
+
+  private void track(JsonToken token) {
+    if (token.isStructStart()) {
+      depth++;
+    } else if (token.isStructEnd()) {
+      depth--;
+    }
+  }
+
+  private SourceException invalidResponse(IOException e) {
+    close();
+    return new SourceException(String.format("Received invalid %s response.", responseType()), e);
+  }
+
+  private String responseType() {
+    return featureCollection ? "feature collection" : "feature";
+  }
+
+  private void close() {
+    try {
+      parser.close();
+    } catch (IOException e) {
+      // nothing to release
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import lombok.Getter;
+import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Splits a GeoJSON feature collection into its features as they have been received. The response body is fed chunk by
+ * chunk into a non-blocking Jackson parser that only tracks the structure of the response, and the bytes of a feature
+ * are copied once its last token has been received, so the features are neither materialized nor re-encoded. Only the
+ * bytes of the current feature are buffered.
+ *
+ * <p>The "links" member is captured as well, so that the "next" link is available once the response has been split
+ * completely. A splitter instance splits a single response and is not thread-safe.
+ */
+class GeoJsonFeatureSplitter {
+
+  private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+  private final ObjectMapper mapper;
+  private final JsonParser parser;
+  private final ByteBufferFeeder feeder;
+
+  // the received bytes from the start of the current feature, the offset is the position in the response body
+  private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+  private long bufferOffset;
+  private int bufferLength;
+
+  private int depth;
+  private String member;
+  private boolean features;
+  private long featureStart = -1;
+  private TokenBuffer links;
+
+  @Getter
+  private String nextLink;
+
+  GeoJsonFeatureSplitter(ObjectMapper mapper) {
+    this.mapper = mapper;
+    try {
+      this.parser = mapper.getFactory().createNonBlockingByteBufferParser();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  /**
+   * Splits the chunks of a response body, that is compressed, if a decompressor is given, on a scheduler. The chunks
+   * are retained and handed off to the scheduler, at most {@code prefetch} chunks are queued, chunks that are still
+   * queued when the splitting is cancelled are released. The features are emitted on the scheduler.
+   */
+  Flux<byte[]> split(Flux<ByteBuf> content, ContentDecompressor decompressor, Scheduler scheduler, int prefetch) {
+    Function<ByteBuf, List<byte[]>> splitChunk = decompressor == null ? this::feed : chunk -> {
+      List<byte[]> split = new ArrayList<>();
+      decompressor.decompress(chunk, buffer -> split.addAll(feed(buffer)));
+      return split;
+    };
+    var split = content.map(ByteBuf::retain)
+        .publishOn(scheduler, Math.max(1, prefetch))
+        .map(chunk -> {
+          try {
+            return splitChunk.apply(chunk);
+          } finally {
+            chunk.release();
+          }
+        })
+        .doOnDiscard(ByteBuf.class, ReferenceCountUtil::safeRelease)
+        .concatMapIterable(list -> list);
+    if (decompressor == null) {
+      return split.concatWith(Flux.defer(() -> Flux.fromIterable(endOfInput())));
+    }
+    return split
+        .concatWith(Flux.defer(() -> {
+          List<byte[]> remaining = new ArrayList<>();
+          decompressor.endOfInput(buffer -> remaining.addAll(feed(buffer)));
+          remaining.addAll(endOfInput());
+          return Flux.fromIterable(remaining);
+        }))
+        .doFinally(signal -> decompressor.close());
+  }
+
+  /**
+   * Feeds a chunk of the response body, the chunk is not retained.
+   */
+  List<byte[]> feed(ByteBuf chunk) {
+    var size = chunk.readableBytes();
+    if (bufferLength + size > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + size));
+    }
+    chunk.getBytes(chunk.readerIndex(), buffer, bufferLength, size);
+    try {
+      feeder.feedInput(ByteBuffer.wrap(buffer, bufferLength, size));
+      bufferLength += size;
+      var split = drain();
+      compact();
+      return split;
+    } catch (IOException e) {
+      throw invalidResponse(e);
+    }
+  }
+
+  List<byte[]> endOfInput() {
+    feeder.endOfInput();
+    try {
+      var split = drain();
+      if (depth != 0) {
+        throw new SourceException("Received incomplete replica response.");
+      }
+      return split;
+    } catch (JsonEOFException e) {
+      throw new SourceException("Received incomplete replica response.", e);
+    } catch (IOException e) {
+      throw invalidResponse(e);
+    } finally {
+      close();
+    }
+  }
+
+  private List<byte[]> drain() throws IOException {
+    List<byte[]> split = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      if (links != null) {
+        links.copyCurrentEvent(parser);
+      }
+      if (token == JsonToken.FIELD_NAME) {
+        if (depth == 1) {
+          member = parser.currentName();
+        }
+      } else if (token.isStructStart()) {
+        onStart(token);
+      } else if (token.isStructEnd()) {
+        onEnd(split);
+      } else if (depth == 0) {
+        throw invalidResponse(null);
+      }
+    }
+    return split;
+  }
+
+  private void onStart(JsonToken token) throws IOException {
+    if (depth == 0 && token != JsonToken.START_OBJECT) {
+      throw invalidResponse(null);
+    }
+    depth++;
+    if (depth == 2 && GeoJsonDecoder.FEATURES.equals(member)) {
+      features = token == JsonToken.START_ARRAY;
+    } else if (depth == 2 && GeoJsonDecoder.LINKS.equals(member)) {
+      links = new TokenBuffer(parser, null);
+      links.copyCurrentEvent(parser);
+    } else if (depth == 3 && features && token == JsonToken.START_OBJECT) {
+      // the location is the position after the current token
+      featureStart = parser.currentLocation().getByteOffset() - 1;
+    }
+  }
+
+  private void onEnd(List<byte[]> split) throws IOException {
+    if (depth == 3 && featureStart >= 0) {
+      var featureEnd = parser.currentLocation().getByteOffset();
+      split.add(Arrays.copyOfRange(buffer, (int) (featureStart - bufferOffset), (int) (featureEnd - bufferOffset)));
+      featureStart = -1;
+    } else if (depth == 2 && links != null) {
+      try (var captured = links.asParser()) {
+        nextLink = GeoJsonDecoder.getNextLink(mapper.readValue(captured, Object.class));
+      } finally {
+        links = null;
+      }
+    } else if (depth == 2) {
+      features = false;
+    }
+    depth--;
+  }
+
+  /**
+   * Discards the buffered bytes before the current feature, the parser has consumed all bytes that have been fed.
+   */
+  private void compact() {
+    var start = featureStart >= 0 ? featureStart : bufferOffset + bufferLength;
+    var discarded = (int) (start - bufferOffset);
+    System.arraycopy(buffer, discarded, buffer, 0, bufferLength - discarded);
+    bufferLength -= discarded;
+    bufferOffset = start;
+  }
+
+  private SourceException invalidResponse(IOException e) {
+    close();
+    return new SourceException("Received invalid replica response, expected a GeoJSON feature collection.", e);
+  }
+
+  private void close() {
+    try {
+      parser.close();
+    } catch (IOException e) {
+      // nothing to release
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+/**
+ * Reads a GeoJSON geometry token by token into a JTS geometry, so that a geometry can be decoded while the response
+ * is still being received. The ordinates are collected in a primitive array that is reused for all coordinate
+ * sequences, each sequence is a {@link PackedCoordinateSequence.Double} without boxed values or intermediate lists of
+ * positions. The members of a geometry may be in any order, the structure of the coordinates is determined by the
+ * nesting of the arrays and the geometry is built once its "type" is known.
+ *
+ * <p>A reader decodes one geometry at a time and is reused for the geometries of a response. It is not thread-safe.
+ */
+class GeoJsonGeometryReader {
+
+  private static final String TYPE = "type";
+  private static final String COORDINATES = "coordinates";
+  private static final String GEOMETRIES = "geometries";
+
+  private static final int MAX_DIMENSION = 3;
+
+  private enum Kind {GEOMETRY, COORDINATES, GEOMETRIES, SKIP}
+
+  private static class Frame {
+
+    private final Kind kind;
+    private final int start;
+    private int depth;
+    private String member;
+    private String type;
+    private Object coordinates;
+    private int ordinates;
+    private int positions;
+    private List<Object> children;
+
+    private Frame(Kind kind, int start) {
+      this.kind = kind;
+      this.start = start;
+    }
+  }
+
+  private final GeometryFactory factory;
+  private final Deque<Frame> frames = new ArrayDeque<>();
+
+  private double[] ordinates = new double[256];
+  private int size;
+  private int dimension;
+  private Geometry geometry;
+
+  GeoJsonGeometryReader(int srid) {
+    this.factory = new GeometryFactory(new PrecisionModel(), srid, PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+  }
+
+  /**
+   * Starts reading a geometry, the current token must be the start of the geometry object.
+   */
+  void start() {
+    frames.clear();
+    frames.push(new Frame(Kind.GEOMETRY, 0));
+    size = 0;
+    dimension = 0;
+    geometry = null;
+  }
+
+  /**
+   * Reads the next token of the geometry. Returns {@code true}, if the geometry is complete.
+   */
+  boolean next(JsonToken token, JsonParser parser) throws IOException {
+    var frame = frames.peek();
+    switch (frame.kind) {
+      case GEOMETRY -> onGeometry(frame, token, parser);
+      case COORDINATES -> onCoordinates(frame, token, parser);
+      case GEOMETRIES -> {
+        if (token == JsonToken.START_OBJECT) {
+          frames.push(new Frame(Kind.GEOMETRY, size));
+        } else if (token == JsonToken.END_ARRAY) {
+          frames.pop();
+        } else if (token.isStructStart()) {
+          frames.push(new Frame(Kind.SKIP, size));
+        }
+      }
+      case SKIP -> {
+        if (token.isStructStart()) {
+          frame.depth++;
+        } else if (token.isStructEnd() && frame.depth-- == 0) {
+          frames.pop();
+        }
+      }
+    }
+    return geometry != null;
+  }
+
+  Geometry getGeometry() {
+    return geometry;
+  }
+
+  private void onGeometry(Frame frame, JsonToken token, JsonParser parser) throws IOException {
+    if (token == JsonToken.FIELD_NAME) {
+      frame.member = parser.currentName();
+    } else if (token == JsonToken.END_OBJECT) {
+      frames.pop();
+      var value = build(frame);
+      var parent = frames.peek();
+      if (parent == null) {
+        geometry = value;
+      } else {
+        parent.children.add(value);
+      }
+    } else if (TYPE.equals(frame.member) && token == JsonToken.VALUE_STRING) {
+      frame.type = parser.getText();
+    } else if (COORDINATES.equals(frame.member) && token == JsonToken.START_ARRAY) {
+      frames.push(new Frame(Kind.COORDINATES, size));
+    } else if (GEOMETRIES.equals(frame.member) && token == JsonToken.START_ARRAY) {
+      // the geometries of the collection are added to the collection
+      var geometries = new Frame(Kind.GEOMETRIES, size);
+      geometries.children = frame.children = new ArrayList<>();
+      frames.push(geometries);
+    } else if (token.isStructStart()) {
+      frames.push(new Frame(Kind.SKIP, size));
+    }
+  }
+
+  private void onCoordinates(Frame frame, JsonToken token, JsonParser parser) throws IOException {
+    if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+      if (dimension == 0 || frame.ordinates < dimension) {
+        if (size == ordinates.length) {
+          ordinates = Arrays.copyOf(ordinates, size * 2);
+        }
+        ordinates[size++] = parser.getDoubleValue();
+      }
+      frame.ordinates++;
+    } else if (token == JsonToken.START_ARRAY) {
+      frames.push(new Frame(Kind.COORDINATES, size));
+    } else if (token == JsonToken.END_ARRAY) {
+      frames.pop();
+      var parent = frames.peek();
+      Object value;
+      if (frame.ordinates > 0) {
+        endPosition(frame);
+        if (parent.kind == Kind.COORDINATES) {
+          parent.positions++;
+          return;
+        }
+        // the coordinates of a point
+        value = getSequence(frame.start);
+      } else if (frame.positions > 0) {
+        value = getSequence(frame.start);
+      } else {
+        value = frame.children != null ? frame.children : List.of();
+      }
+      if (parent.kind == Kind.COORDINATES) {
+        if (parent.children == null) {
+          parent.children = new ArrayList<>();
+        }
+        parent.children.add(value);
+      } else {
+        parent.coordinates = value;
+      }
+    } else if (token.isStructStart()) {
+      throw invalidGeometry("Invalid coordinates.");
+    }
+  }
+
+  private void endPosition(Frame position) {
+    if (dimension == 0) {
+      if (position.ordinates < 2) {
+        throw invalidGeometry("A position must have at least two coordinates.");
+      }
+      dimension = Math.min(position.ordinates, MAX_DIMENSION);
+      // further ordinates of the first position are dropped, they are not collected for the following positions
+      size -= position.ordinates - dimension;
+    }
+    // missing ordinates of a position are not a number
+    for (int i = position.ordinates; i < dimension; i++) {
+      if (size == ordinates.length) {
+        ordinates = Arrays.copyOf(ordinates, size * 2);
+      }
+      ordinates[size++] = Double.NaN;
+    }
+  }
+
+  /**
+   * The coordinate sequence of the ordinates since the start, the ordinates are released for the next sequence.
+   */
+  private CoordinateSequence getSequence(int start) {
+    var sequence = new PackedCoordinateSequence.Double(Arrays.copyOfRange(ordinates, start, size),
+        dimension > 0 ? dimension : 2, 0);
+    size = start;
+    return sequence;
+  }
+
+  private Geometry build(Frame frame) {
+    if (frame.type == null) {
+      throw invalidGeometry("The geometry has no type.");
+    }
+    var coordinates = frame.coordinates;
+    return switch (frame.type) {
+      case "Point" -> coordinates instanceof CoordinateSequence sequence ?
+          factory.createPoint(sequence) : factory.createPoint();
+      case "MultiPoint" -> factory.createMultiPoint(getSequence(coordinates));
+      case "LineString" -> factory.createLineString(getSequence(coordinates));
+      case "MultiLineString" -> factory.createMultiLineString(getList(coordinates).stream()
+          .map(part -> factory.createLineString(getSequence(part)))
+          .toArray(LineString[]::new));
+      case "Polygon" -> getPolygon(coordinates);
+      case "MultiPolygon" -> factory.createMultiPolygon(getList(coordinates).stream()
+          .map(this::getPolygon)
+          .toArray(Polygon[]::new));
+      case "GeometryCollection" -> factory.createGeometryCollection(frame.children == null ? new Geometry[0] :
+          frame.children.stream().map(Geometry.class::cast).toArray(Geometry[]::new));
+      default -> throw invalidGeometry(String.format("Unsupported geometry type '%s'.", frame.type));
+    };
+  }
+
+  private Polygon getPolygon(Object coordinates) {
+    var rings = getList(coordinates);
+    if (rings.isEmpty()) {
+      return factory.createPolygon();
+    }
+    var shell = factory.createLinearRing(getSequence(rings.get(0)));
+    var holes = rings.stream().skip(1)
+        .map(ring -> factory.createLinearRing(getSequence(ring)))
+        .toArray(LinearRing[]::new);
+    return factory.createPolygon(shell, holes);
+  }
+
+  private CoordinateSequence getSequence(Object coordinates) {
+    if (coordinates instanceof CoordinateSequence sequence) {
+      return sequence;
+    }
+    if (coordinates == null || coordinates instanceof List<?> list && list.isEmpty()) {
+      return new PackedCoordinateSequence.Double(new double[0], 2, 0);
+    }
+    throw invalidGeometry("Invalid coordinates.");
+  }
+
+  private List<?> getList(Object coordinates) {
+    if (coordinates == null) {
+      return List.of();
+    }
+    if (coordinates instanceof List<?> list) {
+      return list;
+    }
+    throw invalidGeometry("Invalid coordinates.");
+  }
+
+  private static SourceException invalidGeometry(String message) {
+    return new SourceException("Received invalid GeoJSON geometry. " + message);
+  }
+}
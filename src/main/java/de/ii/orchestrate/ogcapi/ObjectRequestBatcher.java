@@ -0,0 +1,168 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Collects concurrent object requests into batch requests. Requests with the same batch key, i.e. for the same
+ * collection and the same selected properties, that arrive within the configured time window are requested together.
+ * A batch is requested when the window has elapsed or when it contains the maximum number of identifiers, whatever
+ * happens first. The features of the batch response are routed to the requests by their identifier.
+ *
+ * <p>A cancelled request is removed from its batch. A batch without requests is not requested, and the batch request
+ * is cancelled once no request is waiting for a feature anymore.
+ */
+class ObjectRequestBatcher {
+
+  private final BatchingOptions options;
+  private final Scheduler scheduler;
+  private final Map<String, Batch> batches = new HashMap<>();
+
+  ObjectRequestBatcher(BatchingOptions options, Scheduler scheduler) {
+    this.options = options;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Requests a feature as part of a batch.
+   *
+   * @param batchKey the key of the batch
+   * @param featureId the identifier of the feature
+   * @param loader requests the features for a list of identifiers
+   * @param identifier returns the identifier of a feature returned by the loader
+   */
+  Mono<Map<String, Object>> load(String batchKey, String featureId,
+                                 Function<List<String>, Flux<Map<String, Object>>> loader,
+                                 Function<Map<String, Object>, Object> identifier) {
+    return Mono.create(sink -> {
+      Batch full = null;
+      Batch joined;
+      synchronized (batches) {
+        var batch = batches.get(batchKey);
+        if (batch == null) {
+          batch = new Batch(loader, identifier);
+          batches.put(batchKey, batch);
+          var scheduled = batch;
+          batch.timer = scheduler.schedule(() -> flush(batchKey, scheduled), options.getMaxWait().toNanos(),
+              TimeUnit.NANOSECONDS);
+        }
+        batch.add(featureId, sink);
+        joined = batch;
+        if (batch.size() >= options.getMaxSize()) {
+          batches.remove(batchKey);
+          batch.timer.dispose();
+          full = batch;
+        }
+      }
+      sink.onCancel(() -> joined.cancel(featureId, sink));
+      if (full != null) {
+        full.request();
+      }
+    });
+  }
+
+  private void flush(String batchKey, Batch batch) {
+    synchronized (batches) {
+      if (!batches.remove(batchKey, batch)) {
+        return;
+      }
+    }
+    batch.request();
+  }
+
+  private static class Batch {
+
+    private final Function<List<String>, Flux<Map<String, Object>>> loader;
+    private final Function<Map<String, Object>, Object> identifier;
+    private final Map<String, List<MonoSink<Map<String, Object>>>> requests = new LinkedHashMap<>();
+    private final Disposable.Swap loading = Disposables.swap();
+    private Disposable timer;
+    private boolean started;
+
+    private Batch(Function<List<String>, Flux<Map<String, Object>>> loader,
+                  Function<Map<String, Object>, Object> identifier) {
+      this.loader = loader;
+      this.identifier = identifier;
+    }
+
+    private synchronized void add(String featureId, MonoSink<Map<String, Object>> sink) {
+      requests.computeIfAbsent(featureId, key -> new ArrayList<>()).add(sink);
+    }
+
+    private synchronized int size() {
+      return requests.size();
+    }
+
+    /**
+     * Removes a cancelled request, the batch request is cancelled, if it has been sent and no request is left.
+     */
+    private void cancel(String featureId, MonoSink<Map<String, Object>> sink) {
+      boolean idle;
+      synchronized (this) {
+        var sinks = requests.get(featureId);
+        if (sinks == null || !sinks.remove(sink)) {
+          return;
+        }
+        if (sinks.isEmpty()) {
+          requests.remove(featureId);
+        }
+        idle = started && requests.isEmpty();
+      }
+      if (idle) {
+        loading.dispose();
+      }
+    }
+
+    /**
+     * Requests the batch, unless all of its requests have been cancelled. Requests without a feature in the response
+     * complete empty, an error is propagated to all requests that have not received their feature yet.
+     */
+    private void request() {
+      List<String> featureIds;
+      synchronized (this) {
+        started = true;
+        if (requests.isEmpty()) {
+          return;
+        }
+        featureIds = List.copyOf(requests.keySet());
+      }
+      loading.update(loader.apply(featureIds)
+          .subscribe(feature -> {
+            List<MonoSink<Map<String, Object>>> sinks;
+            boolean idle;
+            synchronized (this) {
+              sinks = requests.remove(String.valueOf(identifier.apply(feature)));
+              idle = requests.isEmpty();
+            }
+            if (sinks != null) {
+              sinks.forEach(sink -> sink.success(feature));
+            }
+            if (idle) {
+              loading.dispose();
+            }
+          }, error -> remaining().forEach(sink -> sink.error(error)),
+              () -> remaining().forEach(MonoSink::success)));
+    }
+
+    /**
+     * Removes the requests that have not received their feature yet.
+     */
+    private synchronized List<MonoSink<Map<String, Object>>> remaining() {
+      List<MonoSink<Map<String, Object>>> remaining = new ArrayList<>();
+      requests.values().forEach(remaining::addAll);
+      requests.clear();
+      return remaining;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+import reactor.core.publisher.Flux;
+
+/**
+ * Derives the URIs of the remaining pages of a feature collection from the "offset" parameter of a "next" link, so
+ * that the pages can be requested concurrently instead of following the "next" links one after the other.
+ */
+final class OffsetPaging {
+
+  private static final Pattern OFFSET = Pattern.compile("[?&]offset=(\\d+)");
+
+  private OffsetPaging() {
+  }
+
+  /**
+   * The URIs of the pages after the page with the given URI, up to the number of matching features. The page size is
+   * the difference between the offsets of the page and its "next" link. Returns {@code null}, if the number of
+   * matching features is unknown or the "next" link has no "offset" parameter.
+   */
+  static Flux<String> getPageUris(String uri, String nextLink, Long numberMatched) {
+    var next = OFFSET.matcher(nextLink);
+    if (numberMatched == null || !next.find()) {
+      return null;
+    }
+    var nextOffset = Long.parseLong(next.group(1));
+    var current = OFFSET.matcher(uri);
+    var pageSize = nextOffset - (current.find() ? Long.parseLong(current.group(1)) : 0);
+    if (pageSize <= 0) {
+      return null;
+    }
+    var prefix = nextLink.substring(0, next.start(1));
+    var suffix = nextLink.substring(next.end(1));
+    return Flux.fromStream(() -> LongStream.iterate(nextOffset, offset -> offset < numberMatched,
+            offset -> offset + pageSize)
+        .mapToObj(offset -> prefix + offset + suffix));
+  }
+}
@@ -4,22 +4,34 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import org.dotwebstack.orchestrate.model.Model;
 import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
 @Getter
 public class OgcApiFeaturesConfiguration {
 
-  final static HttpClient CLIENT = HttpClient.create().headers(
-      h -> h.set(HttpHeaderNames.ACCEPT, "application/json,application/problem+json;q=0.8"));
+  final static String ACCEPT_JSON = "application/json,application/problem+json;q=0.8";
 
   final static String CONFORMANCE_DECLARATION_TEMPLATE = "{apiLandingPage}/conformance";
+  final static String CONFORMANCE_SNAPSHOT = "conformance";
+  final static String PROBES_SNAPSHOT = "probes";
+
+  final static int DEFAULT_PAGE_PREFETCH = 2;
+  final static int DEFAULT_MAX_LIMIT = 10_000;
+  final static int DEFAULT_BATCH_CONCURRENCY = 4;
 
   final static ObjectMapper MAPPER =
       new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -27,81 +39,168 @@ public class OgcApiFeaturesConfiguration {
   private final Model model;
   private final String apiLandingPage;
   private final int limit;
+  private final int pagePrefetch;
+  private final int maxLimit;
+  private final int batchConcurrency;
   private final Integer srid;
+  private final TransportOptions transport;
+  private final HttpClient httpClient;
+  private final CacheOptions cache;
+  private final BatchingOptions batching;
+  private final DiscoveryOptions discovery;
+  private final TransferOptions transfer;
+  private final SpatialFilterOptions spatialFilter;
+  private final PagingOptions paging;
+  private final DecodingOptions decoding;
+  private final ResilienceOptions resilience;
+  private final ConcurrencyLimitOptions concurrencyLimit;
+  private final CircuitBreakerOptions circuitBreaker;
+  private final List<String> mirrors;
+  private final BalancingOptions balancing;
+  private final Map<String, ReplicaOptions> replicas;
+  private final MeterRegistry meterRegistry;
   private final boolean supportsPropertySelection;
-  private final boolean supportsQueryablesAsQueryParameters;
-  private final boolean supportsBatchLoading;
-  private final boolean supportsAdHocQuery;
-  private final boolean supportsCql2InOperator;
   private final boolean supportsRelProfiles;
-  private final boolean supportsIntersects;
+  private final boolean jtsGeometries;
+  @Getter(AccessLevel.PACKAGE)
+  private final DiscoverySnapshot snapshot;
+  @Getter(AccessLevel.NONE)
+  private final CapabilityProbes probes;
+  @Getter(AccessLevel.NONE)
+  private final Mono<Capabilities> discoveredCapabilities;
+  @Getter(AccessLevel.NONE)
+  private volatile Capabilities currentCapabilities;
 
-  @Builder(toBuilder = true)
   public OgcApiFeaturesConfiguration(@NonNull Model model, @NonNull String apiLandingPage, int limit,
                                      boolean supportsPropertySelection, boolean supportsRelProfiles) {
+    this(model, apiLandingPage, limit, DEFAULT_PAGE_PREFETCH, DEFAULT_MAX_LIMIT, DEFAULT_BATCH_CONCURRENCY,
+        TransportOptions.builder().build(), null, null, null, null, null, null, null, null, null, null, null, null,
+        null, null, supportsPropertySelection,
+        supportsRelProfiles, false);
+  }
+
+  @Builder(toBuilder = true)
+  public OgcApiFeaturesConfiguration(@NonNull Model model, @NonNull String apiLandingPage, int limit,
+                                     int pagePrefetch, int maxLimit, int batchConcurrency, TransportOptions transport,
+                                     CacheOptions cache, BatchingOptions batching, DiscoveryOptions discovery,
+                                     TransferOptions transfer, SpatialFilterOptions spatialFilter,
+                                     PagingOptions paging, DecodingOptions decoding, ResilienceOptions resilience,
+                                     ConcurrencyLimitOptions concurrencyLimit, CircuitBreakerOptions circuitBreaker,
+                                     List<String> mirrors, BalancingOptions balancing,
+                                     Map<String, ReplicaOptions> replicas, MeterRegistry meterRegistry,
+                                     boolean supportsPropertySelection, boolean supportsRelProfiles,
+                                     boolean jtsGeometries) {
     this.model = model;
     this.apiLandingPage = apiLandingPage;
     this.limit = limit;
+    this.pagePrefetch = pagePrefetch > 0 ? pagePrefetch : DEFAULT_PAGE_PREFETCH;
+    this.maxLimit = maxLimit > 0 ? maxLimit : DEFAULT_MAX_LIMIT;
+    this.batchConcurrency = batchConcurrency > 0 ? batchConcurrency : DEFAULT_BATCH_CONCURRENCY;
     this.srid = 28992; // TODO temporary fix
+    this.transport = transport != null ? transport : TransportOptions.builder().build();
+    this.httpClient = this.transport.createHttpClient(apiLandingPage);
+    this.cache = cache;
+    this.batching = batching;
+    this.discovery = discovery != null ? discovery : DiscoveryOptions.builder().build();
+    this.transfer = transfer != null ? transfer : TransferOptions.builder().build();
+    this.spatialFilter = spatialFilter != null ? spatialFilter : SpatialFilterOptions.builder().build();
+    this.paging = paging != null ? paging : PagingOptions.builder().build();
+    this.decoding = decoding != null ? decoding : DecodingOptions.builder().build();
+    this.resilience = resilience != null ? resilience : ResilienceOptions.builder().build();
+    this.concurrencyLimit = concurrencyLimit;
+    this.circuitBreaker = circuitBreaker;
+    this.mirrors = mirrors != null ? List.copyOf(mirrors) : List.of();
+    this.balancing = balancing != null ? balancing : BalancingOptions.builder().build();
+    this.replicas = replicas != null ? Map.copyOf(replicas) : Map.of();
+    // Spring Boot adds its registry to the global registry
+    this.meterRegistry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
     this.supportsPropertySelection = supportsPropertySelection;
     this.supportsRelProfiles = supportsRelProfiles;
+    this.jtsGeometries = jtsGeometries;
+    this.snapshot = this.discovery.getSnapshotDirectory() != null ?
+        new DiscoverySnapshot(this.discovery.getSnapshotDirectory(), apiLandingPage,
+            this.discovery.getSnapshotTtl(), MAPPER, Clock.systemUTC()) : null;
+    this.probes = new CapabilityProbes(httpClient, apiLandingPage, model, this.transfer, supportsPropertySelection,
+        supportsRelProfiles, MAPPER);
 
-    var conformsTo = getConformanceDeclaration();
-    validateCapabilities(model, conformsTo);
-    this.supportsQueryablesAsQueryParameters = conformsTo.stream()
-        .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
-            uri.endsWith("/conf/queryables-query-parameters"));
-    this.supportsBatchLoading = conformsTo.stream()
-        .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/cql2-text")) &&
-        conformsTo.stream().anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
-            uri.endsWith("/conf/features-filter"));
-    this.supportsCql2InOperator = supportsBatchLoading && conformsTo.stream().anyMatch(
-        uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") &&
-            uri.endsWith("/conf/advanced-comparison-operators"));
-    this.supportsAdHocQuery = conformsTo.stream()
-        .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") &&
-            uri.endsWith("/conf/advanced-comparison-operators")) &&
-        conformsTo.stream().anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-") &&
-            uri.endsWith("/conf/ad-hoc-queries"));
-    this.supportsIntersects = conformsTo.stream()
-        .anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/cql2-text")) &&
-        conformsTo.stream().anyMatch(uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
-            uri.endsWith("/conf/features-filter")) &&
-        conformsTo.stream()
-            .anyMatch(
-                uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/spatial-operators"));
+    this.currentCapabilities = getSnapshotCapabilities();
+    // successful discoveries are kept, failed discoveries are repeated by the next request
+    this.discoveredCapabilities = getConformanceDeclaration(apiLandingPage)
+        .flatMap(conformsTo -> {
+          var capabilities = Capabilities.of(conformsTo);
+          return probes.detect().map(detected -> {
+            if (snapshot != null) {
+              snapshot.writeLater(CONFORMANCE_SNAPSHOT, Map.of("conformsTo", conformsTo));
+              snapshot.writeLater(PROBES_SNAPSHOT, detected);
+            }
+            currentCapabilities = probes.apply(capabilities, detected);
+            return currentCapabilities;
+          });
+        })
+        .cache(capabilities -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+    // the discovery starts right away without blocking, so that all sources are discovered in parallel; with a
+    // snapshot, this revalidates the snapshot in the background
+    this.discoveredCapabilities.subscribe(capabilities -> {
+    }, error -> {
+    });
   }
 
+  /**
+   * The capabilities of the API. Completes immediately, if the capabilities have been discovered already or a
+   * snapshot is available, otherwise when the discovery has finished. Fails, if the API is not available or does
+   * not support the required conformance classes.
+   */
+  Mono<Capabilities> getCapabilities() {
+    return Mono.defer(() -> {
+      var capabilities = currentCapabilities;
+      return capabilities != null ? Mono.just(capabilities) : discoveredCapabilities;
+    });
+  }
 
-  private static void validateCapabilities(@NonNull Model model, @NonNull List<String> conformsTo) {
-    if (conformsTo.stream().noneMatch(
-        uri -> uri.equals("http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core"))) {
-      throw new SourceException("APIs must support the OGC API Feature 'Core' conformance class.");
-    }
-    if (conformsTo.stream().noneMatch(
-        uri -> uri.equals("http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson"))) {
-      throw new SourceException("APIs must support the OGC API Feature 'GeoJSON' conformance class.");
-    }
-    if (conformsTo.stream().noneMatch(
-        uri -> uri.equals("http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs"))) {
-      throw new SourceException(
-          "APIs must support the OGC API Feature 'Coordinate Reference Systems by Reference' conformance class.");
-    }
-    // The following are drafts, so we accept any version number (and hope that the implementation is up-to-date).
-    if (conformsTo.stream().noneMatch(
-        uri -> uri.startsWith("http://www.opengis.net/spec/cql2/") && uri.endsWith("/conf/cql2-text"))) {
-      throw new SourceException("APIs must support the OGC API Feature 'CQL2 Text' conformance class.");
+  /**
+   * The capabilities of the API, if they are already known, otherwise {@code null}. Does not block.
+   */
+  Capabilities getCurrentCapabilities() {
+    return currentCapabilities;
+  }
+
+  /**
+   * Checks that a mirror of the API declares the conformance classes of the API. Fails, if the mirror is not
+   * available or does not declare all conformance classes.
+   */
+  Mono<Void> checkMirror(String mirror) {
+    return getCapabilities().zipWith(getConformanceDeclaration(mirror))
+        .doOnNext(tuple -> {
+          if (!tuple.getT2().containsAll(tuple.getT1().getConformsTo())) {
+            throw new SourceException(String.format("The mirror %s does not declare the conformance classes of %s.",
+                mirror, apiLandingPage));
+          }
+        })
+        .then();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Capabilities getSnapshotCapabilities() {
+    var conformanceDeclaration = snapshot != null ?
+        snapshot.read(CONFORMANCE_SNAPSHOT, ConformanceDeclaration.class) : null;
+    if (conformanceDeclaration == null || conformanceDeclaration.getConformsTo() == null) {
+      return null;
     }
-    if (conformsTo.stream().noneMatch(
-        uri -> uri.startsWith("http://www.opengis.net/spec/ogcapi-features-3/") &&
-            uri.endsWith("/conf/features-filter"))) {
-      throw new SourceException("APIs must support the OGC API Feature 'Features Filter' conformance class.");
+    // without detected parameters, only the configured parameters are used until the API is discovered again
+    var detected = snapshot.read(PROBES_SNAPSHOT, Map.class);
+    try {
+      return probes.apply(Capabilities.of(conformanceDeclaration.getConformsTo()),
+          detected != null ? (Map<String, Boolean>) detected : Map.of());
+    } catch (SourceException e) {
+      // an outdated snapshot, the API is discovered again
+      return null;
     }
   }
 
-  private List<String> getConformanceDeclaration() {
-    var uri = CONFORMANCE_DECLARATION_TEMPLATE.replace("{apiLandingPage}", apiLandingPage);
-    return CLIENT.get()
+  private Mono<List<String>> getConformanceDeclaration(String landingPage) {
+    var uri = CONFORMANCE_DECLARATION_TEMPLATE.replace("{apiLandingPage}", landingPage);
+    return httpClient.headers(h -> h.set(HttpHeaderNames.ACCEPT, ACCEPT_JSON))
+        .get()
         .uri(uri)
         .responseSingle((response, content) -> {
           if (response.status() != HttpResponseStatus.OK) {
@@ -109,18 +208,18 @@ public class OgcApiFeaturesConfiguration {
                 String.format("Conformance Declaration request returned a status different than 200: %d. URI: %s",
                     response.status().code(), uri));
           }
-          return content.asByteArray();
+          return content.asInputStream();
         })
-        .map(conformanceDeclarationAsByteArray -> {
+        .map(conformanceDeclarationAsStream -> {
           ConformanceDeclaration conformanceDeclaration;
-          try {
-            conformanceDeclaration = MAPPER.readValue(conformanceDeclarationAsByteArray, ConformanceDeclaration.class);
+          // the stream reads the received buffer and releases it when closed
+          try (conformanceDeclarationAsStream) {
+            conformanceDeclaration = MAPPER.readValue(conformanceDeclarationAsStream, ConformanceDeclaration.class);
           } catch (IOException e) {
             throw new SourceException(
                 "APIs must support the OGC API Conformance Declaration resource. Problem found: " + e.getMessage());
           }
           return conformanceDeclaration.getConformsTo();
-        })
-        .block();
+        });
   }
 }
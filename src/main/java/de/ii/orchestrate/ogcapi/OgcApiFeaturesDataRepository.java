@@ -3,23 +3,38 @@ package de.ii.orchestrate.ogcapi;
 import static java.util.stream.Collectors.joining;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
 import graphql.com.google.common.collect.ImmutableList;
 import graphql.com.google.common.collect.ImmutableMap;
 import graphql.com.google.common.collect.ImmutableSet;
+import graphql.com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import java.io.IOException;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
 import org.dotwebstack.orchestrate.model.Attribute;
 import org.dotwebstack.orchestrate.model.Model;
 import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.Property;
 import org.dotwebstack.orchestrate.model.Relation;
 import org.dotwebstack.orchestrate.source.BatchRequest;
 import org.dotwebstack.orchestrate.source.CollectionRequest;
@@ -28,16 +43,19 @@ import org.dotwebstack.orchestrate.source.ObjectRequest;
 import org.dotwebstack.orchestrate.source.SelectedProperty;
 import org.dotwebstack.orchestrate.source.SourceException;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.io.WKTWriter;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
 
 class OgcApiFeaturesDataRepository implements DataRepository {
 
-  final static HttpClient CLIENT = HttpClient.create().headers(
-      h -> h.set(HttpHeaderNames.ACCEPT, "application/geo+json,application/problem+json;q=0.8,application/json;q=0.7"));
+  final static String ACCEPT_GEOJSON = "application/geo+json,application/problem+json;q=0.8,application/json;q=0.7";
 
   final static String ONE_TEMPLATE = "{apiLandingPage}/collections/{collectionId}/items/{featureId}?";
 
@@ -47,43 +65,132 @@ class OgcApiFeaturesDataRepository implements DataRepository {
   final static ObjectMapper MAPPER = new ObjectMapper();
   public static final String PATH_SEPARATOR = ".";
   public static final int MAX_URI_LENGTH = 8_000;
-  public static final String AD_HOC_QUERY_TEMPLATE = "{\"collections\": [\"{%s}\"], " +
-      "\"filter\": { \"op\": \"in\", \"args\": [ { \"property\": \"%s\" }, [ \"%s\" ] ] }%s}";
-  public static final String PROPERTIES = "properties";
-  public static final String GEOMETRY = "geometry";
-  public static final String ID = "id";
-  public static final String FEATURES = "features";
-
+  private final HttpClient client;
   private final String apiLandingPage;
   private final int limit;
+  private final int pagePrefetch;
+  private final int maxLimit;
+  private final int batchConcurrency;
   private final Integer srid;
-  private final boolean supportsPropertySelection;
-  private final boolean supportsQueryablesAsQueryParameters;
-  private final boolean supportsBatchLoading;
-  private final boolean supportsCql2InOperator;
-  private final boolean supportsAdHocQuery;
-  private final boolean supportsRelProfiles;
-  private final boolean supportsIntersects;
+  private final Integer geometrySrid;
+  private final TransferOptions transfer;
+  private final SpatialFilterOptions spatialFilterOptions;
+  private final PagingOptions paging;
+  private final ResponseSizeGuard responseSizeGuard;
+  private final Scheduler decodeScheduler;
+  private final int decodePrefetch;
+  private final RequestPolicy requestPolicy;
+  private final EndpointBalancer balancer;
+
+  private final OgcApiFeaturesConfiguration configuration;
+
+  private final CollectionDiscovery collections;
+
+  private final CacheOptions cacheOptions;
 
   private final Model model;
 
+  private final Map<String, ProjectionPlan> projectionPlans = new ConcurrentHashMap<>();
+
+  private final Map<String, FeatureCache> featureCaches = new ConcurrentHashMap<>();
+
+  private final Map<String, CollectionReplica> replicas = new HashMap<>();
+
+  private final RequestCoalescer coalescer = new RequestCoalescer();
+
+  private final ObjectRequestBatcher batcher;
+
+  private final OgcApiFeaturesMetrics metrics;
+
   public OgcApiFeaturesDataRepository(OgcApiFeaturesConfiguration configuration) {
+    var acceptEncoding = ContentDecompressor.getAcceptEncoding(configuration.getTransfer().getContentEncodings());
+    this.client = configuration.getHttpClient()
+        .headers(h -> {
+          h.set(HttpHeaderNames.ACCEPT, ACCEPT_GEOJSON);
+          if (acceptEncoding != null) {
+            h.set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+          }
+        })
+        .doOnRequest((request, connection) -> request.currentContextView()
+            .<OgcApiFeaturesMetrics.Request>getOrEmpty(OgcApiFeaturesMetrics.Request.class)
+            .ifPresent(OgcApiFeaturesMetrics.Request::requestSent));
     this.apiLandingPage = configuration.getApiLandingPage();
     this.limit = configuration.getLimit();
+    this.pagePrefetch = configuration.getPagePrefetch();
+    this.maxLimit = configuration.getMaxLimit();
+    this.batchConcurrency = configuration.getBatchConcurrency();
     this.srid = configuration.getSrid();
-    this.supportsPropertySelection = configuration.isSupportsPropertySelection();
-    this.supportsQueryablesAsQueryParameters = configuration.isSupportsQueryablesAsQueryParameters();
-    this.supportsBatchLoading = configuration.isSupportsBatchLoading();
-    this.supportsCql2InOperator = configuration.isSupportsCql2InOperator();
-    this.supportsAdHocQuery = configuration.isSupportsAdHocQuery();
-    this.supportsRelProfiles = configuration.isSupportsRelProfiles();
-    this.supportsIntersects = configuration.isSupportsIntersects();
+    // without a requested crs, the geometries are in WGS 84
+    this.geometrySrid = configuration.isJtsGeometries() ? Objects.requireNonNullElse(srid, 4326) : null;
+    this.transfer = configuration.getTransfer();
+    this.spatialFilterOptions = configuration.getSpatialFilter();
+    this.paging = configuration.getPaging();
+    this.responseSizeGuard = transfer.getMaxResponseSize() != null ?
+        new ResponseSizeGuard(transfer.getMaxResponseSize(), transfer.isSpillOversizedResponses()) : null;
+    var decoding = configuration.getDecoding();
+    // the threads are daemon threads, so that the scheduler does not need to be disposed
+    this.decodeScheduler = decoding.isOffload() ?
+        Schedulers.newParallel("ogcapi-decode", Math.max(1, decoding.getThreads()), true) : null;
+    this.decodePrefetch = decoding.getPrefetch();
+    this.configuration = configuration;
+    this.cacheOptions = configuration.getCache();
+    this.batcher = configuration.getBatching() != null ?
+        new ObjectRequestBatcher(configuration.getBatching(), Schedulers.parallel()) : null;
     this.model = configuration.getModel();
+    this.collections = new CollectionDiscovery(configuration.getHttpClient(), apiLandingPage,
+        configuration.getSnapshot(), OgcApiFeaturesConfiguration.MAPPER);
+    collections.prefetch(model.getObjectTypes().stream().map(this::getCollectionId).collect(Collectors.toSet()));
+    this.metrics = new OgcApiFeaturesMetrics(configuration.getMeterRegistry(), apiLandingPage);
+    metrics.bindRequestCoalescer(coalescer);
+    var limiter = configuration.getConcurrencyLimit() != null ?
+        new ConcurrencyLimiter(configuration.getConcurrencyLimit(), Ticker.systemTicker()) : null;
+    var circuitBreaker = configuration.getCircuitBreaker() != null ?
+        new CircuitBreaker(configuration.getCircuitBreaker(), Ticker.systemTicker()) : null;
+    if (limiter != null) {
+      metrics.bindConcurrencyLimiter(limiter);
+    }
+    if (circuitBreaker != null) {
+      metrics.bindCircuitBreaker(circuitBreaker);
+    }
+    this.requestPolicy = new RequestPolicy(configuration.getResilience(), limiter, circuitBreaker, metrics);
+    this.balancer = !configuration.getMirrors().isEmpty() ?
+        new EndpointBalancer(apiLandingPage, configuration.getMirrors(), configuration.getBalancing(),
+            configuration::checkMirror, Ticker.systemTicker()) : null;
+    if (balancer != null) {
+      metrics.bindEndpointBalancer(balancer);
+      balancer.checkMirrors();
+    }
+    configuration.getReplicas().forEach((collectionId, options) -> {
+      var objectType = model.getObjectType(collectionId);
+      if (objectType == null) {
+        throw new SourceException(String.format("Invalid replica: collection '%s' is not present in the model.",
+            collectionId));
+      }
+      var replica = new CollectionReplica(options,
+          loadReplica(collectionId, getIdentityProperty(objectType), options), Schedulers.parallel());
+      replicas.put(collectionId, replica);
+      metrics.bindReplica(collectionId, replica);
+      replica.start();
+    });
   }
 
+  /**
+   * Stops the refreshes of the replicas and closes their snapshots, the collections are requested from the API again.
+   */
+  void close() {
+    replicas.values().forEach(CollectionReplica::dispose);
+  }
+
+  /**
+   * Batch loading is only reported once the capabilities of the API have been discovered, this method does not wait
+   * for the discovery. If the queryables of the collection are known, the identity property must be a queryable.
+   */
   @Override
   public boolean supportsBatchLoading(ObjectType objectType) {
-    return supportsBatchLoading;
+    var capabilities = configuration.getCurrentCapabilities();
+    var descriptor = collections.getCurrent(getCollectionId(objectType));
+    return capabilities != null && capabilities.isSupportsBatchLoading() &&
+        (descriptor == null || descriptor.isQueryable(getIdentityProperty(objectType)));
   }
 
   @Override
@@ -109,38 +216,127 @@ class OgcApiFeaturesDataRepository implements DataRepository {
           String.format("Invalid object request: no object id has been provided. Request: %s", objectRequest));
     }
 
-    Map<String, String> queryParams = new HashMap<>();
-    if (srid != null) {
-      queryParams.put("crs", getSridUri(srid));
-    }
-    if (supportsPropertySelection) {
-      queryParams.put("properties",
-          getPropertiesParameterString(objectType, objectRequest.getSelectedProperties(), ImmutableList.of()));
-    }
-    if (supportsRelProfiles) {
-      queryParams.put("profile", "rel-as-key");
-    }
-
     var baseUri = ONE_TEMPLATE.replace("{apiLandingPage}", apiLandingPage).replace("{collectionId}", collectionId)
         .replace("{featureId}", featureId);
-    var uri = getUri(queryParams, baseUri);
+    var planKey = ProjectionPlan.getCacheKey(objectType, objectRequest.getSelectedProperties());
+    var plan = getProjectionPlan(objectType, objectRequest.getSelectedProperties());
+    var replicaStore = getReplicaStore(collectionId);
+    if (replicaStore != null) {
+      metrics.replicaRequest(collectionId, OgcApiFeaturesMetrics.FIND_ONE);
+      var feature = replicaStore.get(featureId);
+      return feature != null ? decodeReplicated(List.of(feature), plan).next() : Mono.empty();
+    }
+    var featureCache = getFeatureCache(collectionId);
+    return configuration.getCapabilities().flatMap(capabilities -> {
+      if (batcher != null && capabilities.isSupportsBatchLoading()) {
+        return findOneInBatch(objectType, idProperty, featureId, objectRequest.getSelectedProperties());
+      }
+      var uri = getUri(getQueryParams(objectType, objectRequest.getSelectedProperties(), plan, capabilities),
+          baseUri);
+      if (featureCache == null) {
+        return coalescer.exchange(getExchangeKey("GET", uri, null, planKey),
+                () -> GeoJsonDecoder.forFeature(MAPPER, plan, geometrySrid),
+                decoder -> getFeatures(uri, target -> client.get().uri(target), decoder,
+                    metrics.start(collectionId, OgcApiFeaturesMetrics.FIND_ONE, "GET", uri.length()),
+                    status -> String.format("Object request returned a status different than 200: %d. URI: %s",
+                        status, uri)),
+                getPolicy(collectionId, OgcApiFeaturesMetrics.FIND_ONE, "GET"))
+            .getFeatures()
+            .singleOrEmpty();
+      }
+      var cacheKey = FeatureCache.getKey(featureId, planKey);
+      var cached = featureCache.get(cacheKey);
+      return cached.feature() != null ? Mono.just(cached.feature()) :
+          coalescer.exchange(getExchangeKey("GET", uri, null, planKey),
+              () -> GeoJsonDecoder.forFeature(MAPPER, plan, geometrySrid),
+              decoder -> getCachedFeature(uri, decoder, featureCache, cacheKey, cached.stale(),
+                  metrics.start(collectionId, OgcApiFeaturesMetrics.FIND_ONE, "GET", uri.length())),
+              getPolicy(collectionId, OgcApiFeaturesMetrics.FIND_ONE, "GET"))
+              .getFeatures()
+              .singleOrEmpty();
+    });
+  }
+
+  /**
+   * Requests a feature as part of a batch request together with concurrent object requests for the same object type
+   * and selected properties. The identity property is added to the selected properties to route the features of the
+   * batch response to the object requests and removed again, if it has not been selected.
+   */
+  private Mono<Map<String, Object>> findOneInBatch(ObjectType objectType, String idProperty, String featureId,
+                                                   List<SelectedProperty> selectedProperties) {
+    var idSelected = isSelected(idProperty, selectedProperties);
+    var batchProperties = withIdentityProperty(objectType, idProperty, selectedProperties);
+    var feature = batcher.load(ProjectionPlan.getCacheKey(objectType, batchProperties), featureId,
+        featureIds -> {
+          metrics.objectBatch(featureIds.size());
+          return findBatch(BatchRequest.builder()
+              .objectType(objectType)
+              .objectKeys(featureIds.stream().map(id -> Map.<String, Object>of(idProperty, id)).toList())
+              .selectedProperties(batchProperties)
+              .build());
+        },
+        batchFeature -> batchFeature.get(idProperty));
+    return idSelected ? feature : feature.map(batchFeature -> withoutProperty(batchFeature, idProperty));
+  }
 
-    return CLIENT.get().uri(uri).responseSingle((response, content) -> {
-      if (response.status() != HttpResponseStatus.OK && response.status() != HttpResponseStatus.NOT_FOUND) {
-        throw new SourceException(
-            String.format("Object request returned a status different than 200: %d. URI: %s", response.status().code(),
-                uri));
+  private static boolean isSelected(String property, List<SelectedProperty> selectedProperties) {
+    return selectedProperties.stream()
+        .anyMatch(selectedProperty -> property.equals(selectedProperty.getProperty().getName()));
+  }
+
+  private static List<SelectedProperty> withIdentityProperty(ObjectType objectType, String idProperty,
+                                                             List<SelectedProperty> selectedProperties) {
+    return isSelected(idProperty, selectedProperties) ? selectedProperties : ImmutableList.<SelectedProperty>builder()
+        .addAll(selectedProperties)
+        .add(new SelectedProperty(objectType.getProperty(idProperty)))
+        .build();
+  }
+
+  private static Map<String, Object> withoutProperty(Map<String, Object> feature, String property) {
+    return feature.entrySet().stream()
+        .filter(entry -> !property.equals(entry.getKey()))
+        .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  /**
+   * Requests a feature and stores it in the cache together with its validators. If the cache holds a feature that is
+   * no longer fresh, but has a validator, a conditional request is issued and the cached feature is reused, if the API
+   * responds with "304 Not Modified".
+   */
+  private Flux<Map<String, Object>> getCachedFeature(String uri, GeoJsonDecoder decoder, FeatureCache featureCache,
+                                                     String cacheKey, FeatureCache.Entry stale,
+                                                     OgcApiFeaturesMetrics.Request requestMetrics) {
+    if (stale != null) {
+      featureCache.revalidating();
+    }
+    var request = stale == null ? client : client.headers(h -> {
+      if (stale.etag() != null) {
+        h.set(HttpHeaderNames.IF_NONE_MATCH, stale.etag());
       }
-      return response.status() == HttpResponseStatus.OK ? content.asByteArray() : Mono.empty();
-    }).map(geojsonFeatureAsByteArray -> {
-      try {
-        //noinspection unchecked
-        return (Map<String, Object>) getFeature(objectRequest.getSelectedProperties(),
-            MAPPER.readValue(geojsonFeatureAsByteArray, Map.class));
-      } catch (IOException e) {
-        throw new SourceException("Received invalid feature response.", e);
+      if (stale.lastModified() != null) {
+        h.set(HttpHeaderNames.IF_MODIFIED_SINCE, stale.lastModified());
       }
     });
+    return route(uri, target -> request.get().uri(target).response((response, content) -> {
+      requestMetrics.responseReceived(response.status().code());
+      if (stale != null && response.status() == HttpResponseStatus.NOT_MODIFIED) {
+        return Flux.just(featureCache.notModified(cacheKey, stale));
+      }
+      if (response.status() == HttpResponseStatus.NOT_FOUND) {
+        featureCache.invalidate(cacheKey);
+        return Flux.<Map<String, Object>>empty();
+      }
+      if (response.status() != HttpResponseStatus.OK) {
+        throw getStatusError(response.status().code(),
+            String.format("Object request returned a status different than 200: %d. URI: %s",
+                response.status().code(), uri));
+      }
+      var etag = response.responseHeaders().get(HttpHeaderNames.ETAG);
+      var lastModified = response.responseHeaders().get(HttpHeaderNames.LAST_MODIFIED);
+      return decode(response, content, decoder, requestMetrics)
+          .doOnNext(feature -> featureCache.put(cacheKey, feature, etag, lastModified));
+    })).doFinally(requestMetrics::finished)
+        .contextWrite(Context.of(OgcApiFeaturesMetrics.Request.class, requestMetrics));
   }
 
   @Override
@@ -157,63 +353,341 @@ class OgcApiFeaturesDataRepository implements DataRepository {
           String.format("Invalid collection request: object type is not present in the model. Request: %s",
               collectionRequest));
     }
-    Map<String, String> queryParams = new HashMap<>();
-    if (srid != null) {
-      queryParams.put("crs", getSridUri(srid));
+    var replicaStore = getReplicaStore(collectionId);
+    var replicaFilter = replicaStore != null ? getReplicaFilter(collectionRequest, replicaStore) : null;
+    if (replicaFilter != null) {
+      metrics.replicaRequest(collectionId, OgcApiFeaturesMetrics.FIND);
+      return decodeReplicated(replicaStore.find(replicaFilter),
+          getProjectionPlan(objectType, collectionRequest.getSelectedProperties()));
+    }
+    return Mono.zip(configuration.getCapabilities(), collections.get(collectionId))
+        .flatMapMany(tuple -> find(collectionRequest, collectionId, objectType, tuple.getT1(), tuple.getT2()));
+  }
+
+  private Flux<Map<String, Object>> find(CollectionRequest collectionRequest, String collectionId,
+                                         ObjectType objectType, Capabilities capabilities,
+                                         CollectionDescriptor descriptor) {
+    var spatialFilter = getSpatialFilter(collectionRequest, objectType, capabilities, descriptor);
+    var selectedProperties = spatialFilter != null ? spatialFilter.selectedProperties() :
+        collectionRequest.getSelectedProperties();
+    var plan = getProjectionPlan(objectType, selectedProperties);
+    var queryParams = getQueryParams(objectType, selectedProperties, plan, capabilities);
+    if (spatialFilter != null && spatialFilter.local()) {
+      // the filter is evaluated on the geometries as received, they must not be simplified
+      queryParams.remove("maxAllowableOffset");
     }
     var filterExpression = collectionRequest.getFilter();
-    if (filterExpression != null) {
-      var basePath = String.join(PATH_SEPARATOR, filterExpression.getPath().getSegments());
-      if ("equals".equals(filterExpression.getOperator().getType()) && filterExpression.getValue() instanceof Map) {
-        if (supportsQueryablesAsQueryParameters) {
-          ((Map<?, ?>) filterExpression.getValue()).forEach(
-              (key, value) -> queryParams.put(key.toString(), value.toString()));
-        } else {
-          queryParams.put("filter", String.join(" AND ", ((Map<?, ?>) filterExpression.getValue()).entrySet().stream()
-              .map(entry -> String.format("%s='%s'", entry.getKey(), entry.getValue())).toList()));
-        }
-      } else if ("intersects".equals(filterExpression.getOperator().getType()) &&
-          filterExpression.getValue() instanceof Geometry && supportsIntersects) {
-        var srid = ((Geometry) filterExpression.getValue()).getSRID();
-        var wkt = new WKTWriter().write((Geometry) filterExpression.getValue());
-        queryParams.put("filter", String.format("s_intersects(%s,%s)", basePath, wkt));
-        if (srid != 4326) {
-          queryParams.put("filter-crs", getSridUri(srid));
-        }
+    Cql2Expression filter = null;
+    if (filterExpression != null && spatialFilter == null) {
+      if (capabilities.isSupportsQueryablesAsQueryParameters() &&
+          "equals".equals(filterExpression.getOperator().getType()) &&
+          filterExpression.getValue() instanceof Map<?, ?> values && !values.isEmpty()) {
+        values.keySet().forEach(key -> validateQueryable(descriptor, key.toString(), collectionRequest));
+        values.forEach((key, value) -> queryParams.put(key.toString(), value.toString()));
+      } else {
+        filter = Cql2Translator.translate(collectionRequest, descriptor, capabilities);
       }
     }
-    if (supportsPropertySelection) {
-      queryParams.put("properties",
-          getPropertiesParameterString(objectType, collectionRequest.getSelectedProperties(), ImmutableList.of()));
-    }
-    if (supportsRelProfiles) {
-      queryParams.put("profile", "rel-as-key");
-    }
-    queryParams.put("limit", String.valueOf(limit));
+    // the page size that is requested, the limit may be lowered by the maximum of the API
+    var pageSize = descriptor.getPageSize(limit);
+    queryParams.put("limit", String.valueOf(pageSize));
 
     var baseUri =
         COLLECTION_TEMPLATE.replace("{apiLandingPage}", apiLandingPage).replace("{collectionId}", collectionId);
+    var planKey = ProjectionPlan.getCacheKey(objectType, selectedProperties);
+    Flux<Map<String, Object>> features;
+    if (spatialFilter == null) {
+      features = filter == null ?
+          getPages(getUri(queryParams, baseUri), plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND) :
+          findFiltered(filter, queryParams, baseUri, plan, planKey, collectionId, capabilities, descriptor);
+    } else if (spatialFilter.tiles().size() == 1) {
+      features = spatialFilter.complete(findIntersecting(spatialFilter.tiles().get(0), spatialFilter, queryParams,
+          baseUri, plan, planKey, collectionId, capabilities, descriptor));
+    } else {
+      features = spatialFilter.complete(Flux.fromIterable(spatialFilter.tiles())
+          .flatMap(tile -> findIntersecting(tile, spatialFilter, queryParams, baseUri, plan, planKey, collectionId,
+              capabilities, descriptor), spatialFilterOptions.getConcurrency())
+          // a feature that intersects several tiles is only emitted once
+          .distinct(feature -> Objects.requireNonNullElse(feature.get(spatialFilter.idProperty()), feature)));
+    }
+    return features.limitRate(pagePrefetch * pageSize);
+  }
+
+  /**
+   * Determines how an "intersects" filter is evaluated. Returns {@code null}, if the request has no "intersects"
+   * filter or the filter can neither be evaluated by the API nor locally, in which case it is rejected by the
+   * translation to CQL2.
+   */
+  private SpatialFilter getSpatialFilter(CollectionRequest collectionRequest, ObjectType objectType,
+                                         Capabilities capabilities, CollectionDescriptor descriptor) {
+    var filterExpression = collectionRequest.getFilter();
+    if (filterExpression == null || !"intersects".equals(filterExpression.getOperator().getType()) ||
+        !(filterExpression.getValue() instanceof Geometry geometry)) {
+      return null;
+    }
+    var segments = filterExpression.getPath().getSegments();
+    var path = String.join(PATH_SEPARATOR, segments);
+    var attribute = segments.size() == 1 && objectType.getProperty(segments.get(0)) instanceof Attribute candidate &&
+        candidate.getType() instanceof GeometryType ? candidate : null;
+    // "bbox" applies to the primary geometry of the features, so it is only used for the only geometry attribute
+    var primary = attribute != null && objectType.getProperties().stream()
+        .filter(property -> property instanceof Attribute other && other.getType() instanceof GeometryType)
+        .count() == 1;
+    // without support by the API, the filter is evaluated on the decoded geometries
+    var local = !capabilities.isSupportsIntersects() && geometrySrid != null && attribute != null;
+    if (!capabilities.isSupportsIntersects() && !local && !(primary && geometry.isRectangle())) {
+      return null;
+    }
+    if (capabilities.isSupportsIntersects()) {
+      validateQueryable(descriptor, path, collectionRequest);
+    }
+    if (local && geometry.getSRID() != 0 && geometry.getSRID() != geometrySrid) {
+      throw new SourceException(String.format("The filter geometry has the SRID %d, but the geometries of the API are "
+          + "requested with SRID %d. Request: %s", geometry.getSRID(), geometrySrid, collectionRequest));
+    }
+
+    List<SelectedProperty> selectedProperties = new ArrayList<>(collectionRequest.getSelectedProperties());
+    Set<String> addedProperties = new HashSet<>();
+    if (local) {
+      addProperty(selectedProperties, addedProperties, attribute);
+    }
+    var idProperty = getIdentityProperty(objectType);
+    var tiles = List.of(geometry);
+    // a tile that is evaluated locally must be restricted with a "bbox", the features are deduplicated by their id
+    if (spatialFilterOptions.getTileSize() != null && idProperty != null && (!local || primary)) {
+      tiles = SpatialFilters.tile(geometry, spatialFilterOptions.getTileSize(), spatialFilterOptions.getMaxTiles());
+      if (tiles.size() > 1) {
+        addProperty(selectedProperties, addedProperties, objectType.getProperty(idProperty));
+      }
+    }
+    return new SpatialFilter(path, geometry, tiles, primary, local, List.copyOf(selectedProperties),
+        Set.copyOf(addedProperties), idProperty);
+  }
+
+  private static void addProperty(List<SelectedProperty> selectedProperties, Set<String> addedProperties,
+                                  Property property) {
+    if (selectedProperties.stream()
+        .noneMatch(selectedProperty -> selectedProperty.getProperty().getName().equals(property.getName()))) {
+      selectedProperties.add(new SelectedProperty(property));
+      addedProperties.add(property.getName());
+    }
+  }
+
+  /**
+   * Requests the features that intersect a filter geometry or a tile of it. An axis-aligned rectangle is requested
+   * with the "bbox" parameter, other geometries with a CQL2 filter that is sent with an Ad-hoc Query, if the request
+   * URI would exceed the maximum length. If the filter is evaluated locally, the "bbox" of the geometry reduces the
+   * features that are transferred.
+   */
+  private Flux<Map<String, Object>> findIntersecting(Geometry geometry, SpatialFilter spatialFilter,
+                                                     Map<String, String> baseQueryParams, String baseUri,
+                                                     ProjectionPlan plan, String planKey, String collectionId,
+                                                     Capabilities capabilities, CollectionDescriptor descriptor) {
+    Map<String, String> queryParams = new HashMap<>(baseQueryParams);
+    var filterSrid = geometry.getSRID();
+    if (spatialFilter.primary() && (spatialFilter.local() || geometry.isRectangle())) {
+      queryParams.put("bbox", SpatialFilters.getBbox(geometry.getEnvelopeInternal()));
+      if (filterSrid != 4326) {
+        queryParams.put("bbox-crs", getSridUri(filterSrid));
+      }
+      metrics.spatialFilterStrategy(collectionId, "GET", spatialFilter.local() ? "local" : "bbox");
+      return getPages(getUri(queryParams, baseUri), plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND);
+    }
+    if (spatialFilter.local()) {
+      metrics.spatialFilterStrategy(collectionId, "GET", "local");
+      return getPages(getUri(queryParams, baseUri), plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND);
+    }
+    return findFiltered(new Cql2Expression.Intersects(spatialFilter.path(), geometry), baseQueryParams, baseUri, plan,
+        planKey, collectionId, capabilities, descriptor);
+  }
+
+  /**
+   * Requests the features that match a CQL2 filter. The filter is sent as CQL2 Text, or as CQL2 JSON with an Ad-hoc
+   * Query, if the request URI would exceed the maximum length and the API supports Ad-hoc Queries.
+   */
+  private Flux<Map<String, Object>> findFiltered(Cql2Expression filter, Map<String, String> baseQueryParams,
+                                                 String baseUri, ProjectionPlan plan, String planKey,
+                                                 String collectionId, Capabilities capabilities,
+                                                 CollectionDescriptor descriptor) {
+    Map<String, String> queryParams = new HashMap<>(baseQueryParams);
+    queryParams.put("filter", filter.toText(descriptor));
+    var filterSrid = filter.getGeometries().findFirst().map(Geometry::getSRID).orElse(4326);
+    if (filterSrid != 4326) {
+      queryParams.put("filter-crs", getSridUri(filterSrid));
+    }
+    var spatial = filter.getGeometries().findAny().isPresent();
     var uri = getUri(queryParams, baseUri);
+    if (uri.length() <= MAX_URI_LENGTH || !capabilities.isSupportsAdHocQuery()) {
+      if (spatial) {
+        metrics.spatialFilterStrategy(collectionId, "GET", "cql2-text");
+      }
+      return getPages(uri, plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND);
+    }
 
-    return CLIENT.get().uri(uri).responseSingle((response, content) -> {
-      if (response.status() != HttpResponseStatus.OK && response.status() != HttpResponseStatus.NOT_FOUND) {
-        throw new SourceException(String.format("Collection request returned a status different than 200: %d. URI: %s",
-            response.status().code(), uri));
+    var query = MAPPER.createObjectNode();
+    query.putArray("collections").add(collectionId);
+    query.set("filter", filter.toJson(MAPPER, descriptor));
+    query.put("filter-lang", "cql2-json");
+    if (filterSrid != 4326) {
+      query.put("filter-crs", getSridUri(filterSrid));
+    }
+    if (baseQueryParams.containsKey("crs")) {
+      query.put("crs", baseQueryParams.get("crs"));
+    }
+    if (baseQueryParams.containsKey("properties")) {
+      var properties = query.putArray("properties");
+      Arrays.stream(baseQueryParams.get("properties").split(",")).forEach(properties::add);
+    }
+    query.put("limit", Integer.parseInt(baseQueryParams.get("limit")));
+    if (spatial) {
+      metrics.spatialFilterStrategy(collectionId, "POST", "cql2-json");
+    }
+    return getSearchPages(query.toString(), plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND);
+  }
+
+  /**
+   * An "intersects" filter of a collection request, with the tiles of the filter geometry that are requested and the
+   * properties that are only requested to evaluate the filter.
+   */
+  private record SpatialFilter(String path, Geometry geometry, List<Geometry> tiles, boolean primary, boolean local,
+                               List<SelectedProperty> selectedProperties, Set<String> addedProperties,
+                               String idProperty) {
+
+    /**
+     * Evaluates the filter locally, if the API does not support it, and removes the properties that have only been
+     * requested for the filter.
+     */
+    Flux<Map<String, Object>> complete(Flux<Map<String, Object>> features) {
+      if (local) {
+        var prepared = PreparedGeometryFactory.prepare(geometry);
+        features = features.filter(feature -> feature.get(path) instanceof Geometry value &&
+            prepared.intersects(value));
       }
-      return response.status() == HttpResponseStatus.OK ? content.asByteArray() : Mono.empty();
-    }).map(geojsonFeatureCollectionAsByteArray -> {
-      Map<String, Object> geojsonFeatureCollection;
-      try {
-        //noinspection unchecked
-        geojsonFeatureCollection = MAPPER.readValue(geojsonFeatureCollectionAsByteArray, Map.class);
-      } catch (IOException e) {
-        throw new SourceException("Received invalid feature collection response.", e);
+      return addedProperties.isEmpty() ? features : features.map(feature ->
+          ImmutableMap.copyOf(Maps.filterKeys(feature, key -> !addedProperties.contains(key))));
+    }
+  }
+
+  /**
+   * Lazily pages through a feature collection by following the "next" links of the responses. Features are emitted
+   * while a page is still being received and the request for the next page is only issued once the previous page has
+   * been decoded completely, so the amount of data buffered is bounded by the demand of the subscriber and cancelling
+   * the subscription stops the paging. Concurrent requests for the same page share a single exchange.
+   */
+  private Flux<Map<String, Object>> getPages(String uri, ProjectionPlan plan, String planKey, String collectionId,
+                                             String operation) {
+    return Flux.defer(() -> {
+      var exchange = getPage(uri, plan, planKey, collectionId, operation);
+      return exchange.getFeatures()
+          .concatWith(Flux.defer(() -> getNextPages(uri, exchange, plan, planKey, collectionId, operation)));
+    });
+  }
+
+  private RequestCoalescer.Exchange getPage(String uri, ProjectionPlan plan, String planKey, String collectionId,
+                                            String operation) {
+    return coalescer.exchange(getExchangeKey("GET", uri, null, planKey),
+        () -> GeoJsonDecoder.forFeatureCollection(MAPPER, plan, geometrySrid),
+        decoder -> getFeatures(uri, target -> client.get().uri(target), decoder,
+            metrics.start(collectionId, operation, "GET", uri.length()),
+            status -> String.format("Collection request returned a status different than 200: %d. URI: %s", status,
+                uri)),
+        getPolicy(collectionId, operation, "GET"));
+  }
+
+  /**
+   * The pages after a page that has been received completely. If the page reports the number of matching features and
+   * its "next" link has an "offset" parameter, the remaining pages are requested concurrently with the offsets up to
+   * the number of matching features. At most {@code paging.concurrency} pages are in flight or buffered at a time,
+   * further pages are only requested with the demand of the subscriber. Otherwise, the "next" link is followed.
+   */
+  private Flux<Map<String, Object>> getNextPages(String uri, RequestCoalescer.Exchange exchange, ProjectionPlan plan,
+                                                 String planKey, String collectionId, String operation) {
+    if (exchange.getNextLink() == null) {
+      return Flux.empty();
+    }
+    // the "next" link of a response of a mirror
+    var nextLink = balancer != null ? balancer.normalize(exchange.getNextLink()) : exchange.getNextLink();
+    var pageUris = paging.getConcurrency() > 1 ?
+        OffsetPaging.getPageUris(uri, nextLink, exchange.getNumberMatched()) : null;
+    if (pageUris == null) {
+      return getPages(nextLink, plan, planKey, collectionId, operation);
+    }
+    Function<String, Flux<Map<String, Object>>> page = pageUri -> Flux.defer(() ->
+        getPage(pageUri, plan, planKey, collectionId, operation).getFeatures());
+    return paging.isOrdered() ? pageUris.flatMapSequential(page, paging.getConcurrency()) :
+        pageUris.flatMap(page, paging.getConcurrency());
+  }
+
+  /**
+   * Pages through the results of an Ad-hoc Query. The first page is requested with POST, the subsequent pages with
+   * the "next" links of the responses like the pages of a collection request.
+   */
+  private Flux<Map<String, Object>> getSearchPages(String requestContent, ProjectionPlan plan, String planKey,
+                                                   String collectionId, String operation) {
+    var searchUri = SEARCH_TEMPLATE.replace("{apiLandingPage}", apiLandingPage);
+    return Flux.defer(() -> {
+      var exchange = coalescer.exchange(getExchangeKey("POST", searchUri, requestContent, planKey),
+          () -> GeoJsonDecoder.forFeatureCollection(MAPPER, plan, geometrySrid),
+          decoder -> getFeatures(searchUri,
+              target -> client.headers(h -> h.set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+                  .post().uri(target).send(ByteBufFlux.fromString(Flux.just(requestContent))), decoder,
+              metrics.start(collectionId, operation, "POST", searchUri.length()),
+              status -> String.format("Collection request returned a status different than 200: %d. Request: %s",
+                  status, requestContent)),
+          getPolicy(collectionId, operation, "POST"));
+      return exchange.getFeatures()
+          .concatWith(Flux.defer(() -> getNextPages(searchUri, exchange, plan, planKey, collectionId, operation)));
+    });
+  }
+
+  private Flux<Map<String, Object>> getFeatures(String uri, Function<String, HttpClient.ResponseReceiver<?>> request,
+                                                GeoJsonDecoder decoder, OgcApiFeaturesMetrics.Request requestMetrics,
+                                                IntFunction<String> statusMessage) {
+    return route(uri, target -> request.apply(target).response((response, content) -> {
+      var ok = response.status() == HttpResponseStatus.OK;
+      requestMetrics.responseReceived(response.status().code());
+      if (!ok && response.status() != HttpResponseStatus.NOT_FOUND) {
+        throw getStatusError(response.status().code(), statusMessage.apply(response.status().code()));
       }
+      return ok ? decode(response, content, decoder, requestMetrics) : Flux.<Map<String, Object>>empty();
+    })).doFinally(requestMetrics::finished)
+        .contextWrite(Context.of(OgcApiFeaturesMetrics.Request.class, requestMetrics));
+  }
+
+  /**
+   * Sends a request to the landing page of the API or one of its mirrors.
+   */
+  private <T> Flux<T> route(String uri, Function<String, Flux<T>> request) {
+    return balancer != null ? balancer.route(uri, request) : request.apply(uri);
+  }
 
-      //noinspection unchecked
-      return ((List<Map<String, Object>>) geojsonFeatureCollection.get(FEATURES)).stream()
-          .map(geojsonFeature -> getFeature(collectionRequest.getSelectedProperties(), geojsonFeature)).toList();
-    }).flatMapMany(Flux::fromIterable);
+  private UnaryOperator<Flux<Map<String, Object>>> getPolicy(String collectionId, String operation, String method) {
+    return attempts -> requestPolicy.apply(attempts, collectionId, operation, method);
+  }
+
+  /**
+   * The error for an unexpected status, the request is retried, if the status indicates a transient problem.
+   */
+  private static RuntimeException getStatusError(int statusCode, String message) {
+    return RequestPolicy.TransientStatusException.isTransient(statusCode) ?
+        new RequestPolicy.TransientStatusException(message) : new SourceException(message);
+  }
+
+  /**
+   * Decodes a response body, a compressed body is decompressed chunk by chunk while it is decoded. With a maximum
+   * response size, the body is guarded by the {@link ResponseSizeGuard}. The guard runs on the event loop and spills
+   * to disk on a worker for blocking tasks, the decompression and decoding run on the decode scheduler, if the
+   * decoding is offloaded.
+   */
+  private Flux<Map<String, Object>> decode(HttpClientResponse response, ByteBufFlux content, GeoJsonDecoder decoder,
+                                           OgcApiFeaturesMetrics.Request requestMetrics) {
+    var headers = response.responseHeaders();
+    var decompressor = ContentDecompressor.forEncoding(headers.get(HttpHeaderNames.CONTENT_ENCODING));
+    requestMetrics.decoding(decoder, decompressor);
+    UnaryOperator<Flux<ByteBuf>> guard = responseSizeGuard == null ? UnaryOperator.identity() :
+        chunks -> responseSizeGuard.guard(chunks, headers.get(HttpHeaderNames.CONTENT_LENGTH), response.resourceUrl(),
+            requestMetrics);
+    return decoder.decode(content, guard, decompressor, decodeScheduler, decodePrefetch);
   }
 
   @Override
@@ -234,82 +708,321 @@ class OgcApiFeaturesDataRepository implements DataRepository {
           String.format("Invalid batch request: object type has no id property. Request: %s", batchRequest));
     }
 
-    var objectKeys =
-        batchRequest.getObjectKeys().stream().map(id -> (String) id.get(idProperty)).filter(Objects::nonNull).toList();
+    var objectKeys = batchRequest.getObjectKeys().stream().map(id -> (String) id.get(idProperty))
+        .filter(Objects::nonNull).distinct().toList();
+    if (objectKeys.isEmpty()) {
+      return Flux.empty();
+    }
+    var replicaStore = getReplicaStore(collectionId);
+    if (replicaStore != null) {
+      metrics.replicaRequest(collectionId, OgcApiFeaturesMetrics.FIND_BATCH);
+      return decodeReplicated(objectKeys.stream().map(replicaStore::get).filter(Objects::nonNull).toList(),
+          getProjectionPlan(objectType, batchRequest.getSelectedProperties()));
+    }
+    return Mono.zip(configuration.getCapabilities(), collections.get(collectionId))
+        .flatMapMany(tuple -> findBatch(batchRequest, collectionId, objectType, idProperty, objectKeys, tuple.getT1(),
+            tuple.getT2()));
+  }
 
-    Map<String, String> queryParams = new HashMap<>();
-    if (srid != null) {
-      queryParams.put("crs", getSridUri(srid));
+  private Flux<Map<String, Object>> findBatch(BatchRequest batchRequest, String collectionId, ObjectType objectType,
+                                              String idProperty, List<String> objectKeys, Capabilities capabilities,
+                                              CollectionDescriptor descriptor) {
+    if (!descriptor.isQueryable(idProperty)) {
+      throw new SourceException(
+          String.format("Invalid batch request: the id property '%s' is not a queryable of collection '%s'. " +
+              "Request: %s", idProperty, collectionId, batchRequest));
     }
+    var featureCache = getFeatureCache(collectionId);
+    var idSelected = isSelected(idProperty, batchRequest.getSelectedProperties());
+    // the cached features are keyed by the identity property, it is decoded and removed again, if it is not selected
+    var selectedProperties = featureCache == null ? batchRequest.getSelectedProperties() :
+        withIdentityProperty(objectType, idProperty, batchRequest.getSelectedProperties());
+    var plan = getProjectionPlan(objectType, selectedProperties);
+    var queryParams = getQueryParams(objectType, selectedProperties, plan, capabilities);
 
     List<String> propertyList = ImmutableList.of();
-    if (supportsPropertySelection) {
-      propertyList = getPropertiesParameter(objectType, batchRequest.getSelectedProperties(), ImmutableList.of());
+    if (capabilities.isSupportsPropertySelection()) {
+      // the identity property is needed to match the features to the object keys
+      propertyList = getPropertiesParameter(objectType, selectedProperties, ImmutableList.of());
       if (!propertyList.isEmpty() && !propertyList.contains(idProperty)) {
         propertyList = Stream.concat(propertyList.stream(), Stream.of(idProperty)).toList();
       }
       queryParams.put("properties", String.join(",", propertyList));
     }
-    if (supportsRelProfiles) {
-      queryParams.put("profile", "rel-as-key");
-    }
-    if (supportsCql2InOperator) {
-      queryParams.put("filter", String.format("%s in ('%s')", idProperty, String.join("','", objectKeys)));
-    } else {
-      queryParams.put("filter",
-          String.join(" OR ", objectKeys.stream().map(key -> String.format("%s='%s'", idProperty, key)).toList()));
-    }
-    queryParams.put("limit", String.valueOf(objectKeys.size()));
 
     var baseUri =
         COLLECTION_TEMPLATE.replace("{apiLandingPage}", apiLandingPage).replace("{collectionId}", collectionId);
+    var planKey = ProjectionPlan.getCacheKey(objectType, selectedProperties);
+    var properties = propertyList;
+    Function<List<String>, Flux<Map<String, Object>>> findChunk =
+        chunk -> findChunk(chunk, collectionId, idProperty, properties, queryParams, baseUri, plan, planKey,
+            capabilities, descriptor);
+    if (featureCache == null) {
+      return Flux.fromIterable(partitionObjectKeys(objectKeys, idProperty, queryParams, baseUri, capabilities,
+          descriptor))
+          .flatMap(findChunk, batchConcurrency);
+    }
+
+    // fresh features are taken from the cache, only the remaining identifiers are requested
+    var cacheKey = ProjectionPlan.getCacheKey(objectType, batchRequest.getSelectedProperties());
+    return Flux.defer(() -> {
+      List<Map<String, Object>> cached = new ArrayList<>();
+      List<String> missing = new ArrayList<>();
+      objectKeys.forEach(key -> {
+        var feature = featureCache.get(FeatureCache.getKey(key, cacheKey)).feature();
+        if (feature != null) {
+          cached.add(feature);
+        } else {
+          missing.add(key);
+        }
+      });
+      return Flux.fromIterable(cached)
+          .concatWith(Flux.fromIterable(partitionObjectKeys(missing, idProperty, queryParams, baseUri,
+              capabilities, descriptor))
+              .flatMap(findChunk, batchConcurrency)
+              .map(feature -> {
+                var selected = idSelected ? feature : withoutProperty(feature, idProperty);
+                if (feature.get(idProperty) instanceof String id) {
+                  featureCache.put(FeatureCache.getKey(id, cacheKey), selected, null, null);
+                }
+                return selected;
+              }));
+    });
+  }
+
+  /**
+   * Partitions the identifiers into chunks that do not exceed the maximum page size of the API. If the API does not
+   * support Ad-hoc Queries, the chunks must also fit into the maximum URI length.
+   */
+  private List<List<String>> partitionObjectKeys(List<String> objectKeys, String idProperty,
+                                                 Map<String, String> queryParams, String baseUri,
+                                                 Capabilities capabilities, CollectionDescriptor descriptor) {
+    var supportsCql2InOperator = capabilities.isSupportsCql2InOperator();
+    var maxLimit = descriptor.getPageSize(this.maxLimit);
+    if (capabilities.isSupportsAdHocQuery()) {
+      return BatchPartitioner.partition(objectKeys, maxLimit, Integer.MAX_VALUE, key -> 0, 0);
+    }
+    // the lengths of the parts of the filter, as rendered by the CQL2 expression of the batch
+    var fixedLength = getUri(queryParams, baseUri).length() + "&filter=".length() +
+        encodeValue(supportsCql2InOperator ? new Cql2Expression.In(idProperty, List.of()).toText(descriptor) : "")
+            .length() + "&limit=".length() + String.valueOf(maxLimit).length();
+    return BatchPartitioner.partition(objectKeys, maxLimit, MAX_URI_LENGTH - fixedLength,
+        key -> encodeValue(supportsCql2InOperator ? descriptor.getLiteral(idProperty, key) :
+            new Cql2Expression.Comparison("=", idProperty, key).toText(descriptor)).length(),
+        encodeValue(supportsCql2InOperator ? "," : " OR ").length());
+  }
+
+  private Flux<Map<String, Object>> findChunk(List<String> objectKeys, String collectionId, String idProperty,
+                                              List<String> propertyList, Map<String, String> baseQueryParams,
+                                              String baseUri, ProjectionPlan plan, String planKey,
+                                              Capabilities capabilities, CollectionDescriptor descriptor) {
+    var filter = getBatchFilter(idProperty, objectKeys, capabilities);
+    Map<String, String> queryParams = new HashMap<>(baseQueryParams);
+    queryParams.put("filter", filter.toText(descriptor));
+    queryParams.put("limit", String.valueOf(objectKeys.size()));
     var uri = getUri(queryParams, baseUri);
 
-    Mono<byte[]> responseContent;
     if (uri.length() <= MAX_URI_LENGTH) {
-      responseContent = CLIENT.get().uri(uri).responseSingle((response, content) -> {
-        if (response.status() != HttpResponseStatus.OK && response.status() != HttpResponseStatus.NOT_FOUND) {
-          throw new SourceException(
-              String.format("Collection request returned a status different than 200: %d. URI: %s",
-                  response.status().code(), uri));
-        }
-        return response.status() == HttpResponseStatus.OK ? content.asByteArray() : Mono.empty();
+      metrics.batchStrategy(collectionId, "GET", capabilities.isSupportsCql2InOperator() ? "in" : "or");
+      return getPages(uri, plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND_BATCH);
+    } else if (capabilities.isSupportsAdHocQuery()) {
+      var query = MAPPER.createObjectNode();
+      query.putArray("collections").add(collectionId);
+      query.set("filter", filter.toJson(MAPPER, descriptor));
+      query.put("filter-lang", "cql2-json");
+      query.put("limit", objectKeys.size());
+      if (!propertyList.isEmpty()) {
+        var properties = query.putArray("properties");
+        propertyList.forEach(properties::add);
+      }
+      metrics.batchStrategy(collectionId, "POST", "ad-hoc");
+      return getSearchPages(query.toString(), plan, planKey, collectionId, OgcApiFeaturesMetrics.FIND_BATCH);
+    }
+    throw new SourceException(
+        "Batch loading failed, an identifier is too long for the maximum URI length and Ad-hoc Queries using POST " +
+            "are not supported.");
+  }
+
+  /**
+   * Loads all features of a collection into a new snapshot of its replica. The features are requested with all
+   * properties, so that the replica serves any selection of properties, and stored as they have been received. The
+   * pages are split and written to the replica on a thread that may block.
+   */
+  private Mono<ReplicaStore> loadReplica(String collectionId, String idProperty, ReplicaOptions options) {
+    return Mono.zip(configuration.getCapabilities(), collections.get(collectionId)).flatMap(tuple -> {
+      Map<String, String> queryParams = new HashMap<>();
+      if (srid != null) {
+        queryParams.put("crs", getSridUri(srid));
+      }
+      if (tuple.getT1().isSupportsRelProfiles()) {
+        queryParams.put("profile", "rel-as-key");
+      }
+      queryParams.put("limit", String.valueOf(tuple.getT2().getPageSize(options.getPageSize())));
+      var uri = getUri(queryParams,
+          COLLECTION_TEMPLATE.replace("{apiLandingPage}", apiLandingPage).replace("{collectionId}", collectionId));
+      return Mono.fromCallable(() -> ReplicaStore.builder(MAPPER, idProperty, options.getIndexes()))
+          .subscribeOn(Schedulers.boundedElastic())
+          .flatMap(builder -> getReplicaPages(uri, collectionId)
+              .doOnNext(builder::add)
+              .then(Mono.fromCallable(builder::build))
+              .doOnError(error -> builder.close())
+              .doOnCancel(builder::close));
+    });
+  }
+
+  /**
+   * Follows the "next" links of the pages of a replicated collection, the request for the next page is issued once
+   * the previous page has been received completely. Each attempt of a page has its own splitter.
+   */
+  private Flux<byte[]> getReplicaPages(String uri, String collectionId) {
+    return Flux.defer(() -> {
+      var page = new AtomicReference<GeoJsonFeatureSplitter>();
+      var attempts = Flux.defer(() -> {
+        var splitter = new GeoJsonFeatureSplitter(MAPPER);
+        return getReplicaFeatures(uri, splitter,
+            metrics.start(collectionId, OgcApiFeaturesMetrics.LOAD_REPLICA, "GET", uri.length()))
+            .doOnComplete(() -> page.set(splitter));
       });
-    } else if (supportsAdHocQuery) {
-      var properties = propertyList.isEmpty() ? "" :
-          String.format(", \"properties\": [ \"%s\" ]", String.join("\", \"", propertyList));
-      var requestContent =
-          String.format(AD_HOC_QUERY_TEMPLATE, collectionId, idProperty, String.join("\", \"", objectKeys), properties);
-      responseContent = CLIENT.post().uri(SEARCH_TEMPLATE.replace("{apiLandingPage}", apiLandingPage))
-          .send(ByteBufFlux.fromString(Flux.just(requestContent))).responseSingle((response, content) -> {
-            if (response.status() != HttpResponseStatus.OK && response.status() != HttpResponseStatus.NOT_FOUND) {
-              throw new SourceException(
-                  String.format("Collection request returned a status different than 200: %d. Request: %s",
-                      response.status().code(), batchRequest));
+      return requestPolicy.apply(attempts, collectionId, OgcApiFeaturesMetrics.LOAD_REPLICA, "GET")
+          .concatWith(Flux.defer(() -> {
+            var nextLink = page.get().getNextLink();
+            if (nextLink == null) {
+              return Flux.empty();
             }
-            return response.status() == HttpResponseStatus.OK ? content.asByteArray() : Mono.empty();
-          });
-    } else {
+            return getReplicaPages(balancer != null ? balancer.normalize(nextLink) : nextLink, collectionId);
+          }));
+    });
+  }
+
+  /**
+   * Requests a page of a replicated collection. The body is guarded like the responses of the other requests, and
+   * decompressed and split on a thread that may block.
+   */
+  private Flux<byte[]> getReplicaFeatures(String uri, GeoJsonFeatureSplitter splitter,
+                                          OgcApiFeaturesMetrics.Request requestMetrics) {
+    return route(uri, target -> client.get().uri(target).response((response, content) -> {
+      requestMetrics.responseReceived(response.status().code());
+      if (response.status() != HttpResponseStatus.OK) {
+        throw getStatusError(response.status().code(),
+            String.format("Replica request returned a status different than 200: %d. URI: %s",
+                response.status().code(), uri));
+      }
+      var headers = response.responseHeaders();
+      var decompressor = ContentDecompressor.forEncoding(headers.get(HttpHeaderNames.CONTENT_ENCODING));
+      var chunks = responseSizeGuard == null ? content : responseSizeGuard.guard(content,
+          headers.get(HttpHeaderNames.CONTENT_LENGTH), response.resourceUrl(), requestMetrics);
+      return splitter.split(chunks, decompressor, Schedulers.boundedElastic(), decodePrefetch);
+    })).doFinally(requestMetrics::finished)
+        .contextWrite(Context.of(OgcApiFeaturesMetrics.Request.class, requestMetrics));
+  }
+
+  /**
+   * The current snapshot of the replica of a collection, {@code null} if the collection is not replicated or its
+   * replica has not been loaded yet.
+   */
+  private ReplicaStore getReplicaStore(String collectionId) {
+    var replica = replicas.get(collectionId);
+    return replica != null ? replica.getStore() : null;
+  }
+
+  /**
+   * The values of an "equals" filter, if all of its properties are indexed by the replica, or no values, if the
+   * request has no filter. Returns {@code null}, if the request must be sent to the API.
+   */
+  private static Map<String, String> getReplicaFilter(CollectionRequest collectionRequest, ReplicaStore store) {
+    var filterExpression = collectionRequest.getFilter();
+    if (filterExpression == null) {
+      return Map.of();
+    }
+    if (!"equals".equals(filterExpression.getOperator().getType())) {
+      return null;
+    }
+    Map<String, String> values = new HashMap<>();
+    if (filterExpression.getValue() instanceof Map<?, ?> filterValues) {
+      filterValues.forEach((key, value) -> values.put(key.toString(), getReplicaValue(value)));
+    } else if (filterExpression.getPath() != null) {
+      values.put(String.join(PATH_SEPARATOR, filterExpression.getPath().getSegments()),
+          getReplicaValue(filterExpression.getValue()));
+    }
+    return !values.isEmpty() && !values.containsValue(null) && values.keySet().stream().allMatch(store::isIndexed) ?
+        values : null;
+  }
+
+  /**
+   * The value as it is indexed by the replica, {@code null} if the value is not a literal.
+   */
+  private static String getReplicaValue(Object value) {
+    return value instanceof String || value instanceof Number || value instanceof Boolean ? value.toString() : null;
+  }
+
+  /**
+   * Decodes the features of a replica, each feature is decoded when it is requested by the subscriber.
+   */
+  private Flux<Map<String, Object>> decodeReplicated(List<ByteBuffer> features, ProjectionPlan plan) {
+    return Flux.fromIterable(features).concatMapIterable(feature -> {
+      var decoder = GeoJsonDecoder.forFeature(MAPPER, plan, geometrySrid);
+      var decoded = new ArrayList<>(decoder.feed(Unpooled.wrappedBuffer(feature)));
+      decoded.addAll(decoder.endOfInput());
+      return decoded;
+    });
+  }
+
+  /**
+   * Rejects filters on properties that are not queryables of the collection, if the queryables are known.
+   */
+  private void validateQueryable(CollectionDescriptor descriptor, String path, CollectionRequest collectionRequest) {
+    if (!descriptor.isQueryable(path)) {
       throw new SourceException(
-          "Batch loading failed, too many identifiers, the resulting URI is too long and Ad-hoc Queries using POST are not supported.");
+          String.format("Invalid collection request: '%s' is not a queryable of collection '%s'. Request: %s", path,
+              descriptor.id(), collectionRequest));
     }
+  }
 
-    return responseContent.map(geojsonFeatureCollectionAsByteArray -> {
-      Map<String, Object> geojsonFeatureCollection;
-      try {
-        //noinspection unchecked
-        geojsonFeatureCollection = MAPPER.readValue(geojsonFeatureCollectionAsByteArray, Map.class);
-      } catch (IOException e) {
-        throw new SourceException("Received invalid feature collection response.", e);
+  /**
+   * The query parameters for the response CRS, the selected properties and the geometry. If no geometry attribute is
+   * selected, the geometry is skipped, otherwise it may be simplified.
+   */
+  private Map<String, String> getQueryParams(ObjectType objectType, List<SelectedProperty> selectedProperties,
+                                             ProjectionPlan plan, Capabilities capabilities) {
+    Map<String, String> queryParams = new HashMap<>();
+    if (srid != null) {
+      queryParams.put("crs", getSridUri(srid));
+    }
+    if (capabilities.isSupportsPropertySelection()) {
+      queryParams.put("properties", getPropertiesParameterString(objectType, selectedProperties, ImmutableList.of()));
+    }
+    if (capabilities.isSupportsRelProfiles()) {
+      queryParams.put("profile", "rel-as-key");
+    }
+    if (!plan.needsGeometry()) {
+      if (capabilities.isSupportsSkipGeometry()) {
+        queryParams.put("skipGeometry", "true");
       }
+    } else if (capabilities.isSupportsMaxAllowableOffset()) {
+      queryParams.put("maxAllowableOffset", String.valueOf(transfer.getMaxAllowableOffset()));
+    }
+    return queryParams;
+  }
+
+  private String getExchangeKey(String method, String uri, String body, String planKey) {
+    return body == null ? String.join(" ", method, uri, planKey) : String.join(" ", method, uri, planKey, body);
+  }
 
-      //noinspection unchecked
-      return ((List<Map<String, Object>>) geojsonFeatureCollection.get(FEATURES)).stream()
-          .map(geojsonFeature -> getFeature(batchRequest.getSelectedProperties(), geojsonFeature)).toList();
-    }).flatMapMany(Flux::fromIterable);
+  /**
+   * The CQL2 filter that selects the features with the identifiers, using the IN operator, if supported. The literals
+   * are typed by the queryable of the identity property when the filter is rendered.
+   */
+  Cql2Expression getBatchFilter(String idProperty, List<String> objectKeys, Capabilities capabilities) {
+    if (capabilities.isSupportsCql2InOperator()) {
+      return new Cql2Expression.In(idProperty, objectKeys);
+    }
+    List<Cql2Expression> comparisons = objectKeys.stream()
+        .<Cql2Expression>map(key -> new Cql2Expression.Comparison("=", idProperty, key))
+        .toList();
+    return comparisons.size() == 1 ? comparisons.get(0) : new Cql2Expression.Logical("or", comparisons);
   }
 
-  private String getUri(Map<String, String> queryParams, String baseUri) {
+  String getUri(Map<String, String> queryParams, String baseUri) {
     return queryParams.keySet().stream().map(key -> key + "=" + encodeValue(queryParams.get(key)))
         .collect(joining("&", baseUri, ""));
   }
@@ -353,91 +1066,25 @@ class OgcApiFeaturesDataRepository implements DataRepository {
     }).flatMap(List::stream).toList();
   }
 
-  private String getPropertiesParameterString(ObjectType objectType, List<SelectedProperty> selectedProperties,
-                                              List<String> parentPath) {
+  String getPropertiesParameterString(ObjectType objectType, List<SelectedProperty> selectedProperties,
+                                       List<String> parentPath) {
 
     return String.join(",", getPropertiesParameter(objectType, selectedProperties, parentPath));
   }
 
-  private Map<String, Object> getFeature(List<SelectedProperty> selectedProperties,
-                                         Map<String, Object> geojsonFeature) {
-    //noinspection unchecked
-    var featureProperties =
-        Objects.nonNull(geojsonFeature.get(PROPERTIES)) ? (Map<String, Object>) geojsonFeature.get(PROPERTIES) :
-            ImmutableMap.<String, Object>of();
-
-    //noinspection unchecked
-    var featureGeometry =
-        Objects.nonNull(geojsonFeature.get(GEOMETRY)) ? (Map<String, Object>) geojsonFeature.get(GEOMETRY) :
-            ImmutableMap.<String, Object>of();
-
-    // ignoring geometry for now
-    return getObject(selectedProperties, geojsonFeature.get(ID), featureProperties, featureGeometry);
-  }
-
-  private Map<String, Object> getObject(List<SelectedProperty> selectedProperties, Object featureId,
-                                        Map<String, Object> featureProperties, Map<String, Object> featureGeometry) {
-    var builder = ImmutableMap.<String, Object>builder();
-    selectedProperties.forEach(
-        selectedProperty -> processProperty(builder, selectedProperty, featureId, featureProperties, featureGeometry));
-    return builder.build();
-  }
-
-  private void processProperty(ImmutableMap.Builder<String, Object> builder, SelectedProperty selectedProperty,
-                               Object featureId, Map<String, Object> featureProperties,
-                               Map<String, Object> featureGeometry) {
-    var key = selectedProperty.getProperty().getName();
-    if (selectedProperty.getProperty().isIdentifier() && featureId != null) {
-      builder.put(key, featureId);
-    } else if (selectedProperty.getProperty() instanceof Attribute attribute) {
-      processAttribute(builder, selectedProperty, featureProperties, key, attribute, featureGeometry);
-    } else if (selectedProperty.getProperty() instanceof Relation) {
-      processAssociationRole(builder, selectedProperty, featureProperties, key);
-    }
-  }
-
-  private void processAssociationRole(ImmutableMap.Builder<String, Object> builder, SelectedProperty selectedProperty,
-                                      Map<String, Object> featureProperties, String key) {
-    var value = featureProperties.get(key);
-    if (value != null) {
-      if (value instanceof List) {
-        //noinspection unchecked
-        var valueAsList = (List<Map<String, Object>>) value;
-        var listBuilder = ImmutableList.<Map<String, Object>>builder();
-        valueAsList.forEach(refProperties -> listBuilder.add(
-            getObject(selectedProperty.getSelectedProperties().stream().toList(), null, refProperties,
-                ImmutableMap.of())));
-        builder.put(key, listBuilder.build());
-      } else if (value instanceof Map) {
-        //noinspection unchecked
-        builder.put(key,
-            getObject(selectedProperty.getSelectedProperties().stream().toList(), null, (Map<String, Object>) value,
-                ImmutableMap.of()));
-      } else if (value instanceof String && selectedProperty.getProperty() instanceof Relation) {
-        var idProperty =
-            model.getObjectType(((Relation) selectedProperty.getProperty()).getTarget()).getIdentityProperties().get(0)
-                .getName();
-        builder.put(key, getObject(selectedProperty.getSelectedProperties().stream().toList(), null,
-            ImmutableMap.of(idProperty, value), ImmutableMap.of()));
-      } else {
-        throw new SourceException(String.format("Unsupported value type: %s", value.getClass().getSimpleName()));
-      }
+  private FeatureCache getFeatureCache(String collectionId) {
+    if (cacheOptions == null) {
+      return null;
     }
+    return featureCaches.computeIfAbsent(collectionId, key -> {
+      var featureCache = new FeatureCache(cacheOptions, Ticker.systemTicker());
+      metrics.bindFeatureCache(collectionId, featureCache);
+      return featureCache;
+    });
   }
 
-  private void processAttribute(ImmutableMap.Builder<String, Object> builder, SelectedProperty sp,
-                                Map<String, Object> featureProperties, String key, Attribute attribute,
-                                Map<String, Object> featureGeometry) {
-    var value = featureProperties.get(key);
-    if (value != null) {
-      switch (attribute.getType().getName()) {
-        case "Boolean", "Double", "Float", "Integer", "Long", "String" -> builder.put(key, value);
-        default -> throw new SourceException(
-            String.format("Unsupported attribute type: %s", ((Attribute) sp.getProperty()).getType().getName()));
-      }
-    } else if (attribute.getType() instanceof GeometryType && !featureGeometry.isEmpty()) {
-      // use the primary geometry as fallback
-      builder.put(key, featureGeometry);
-    }
+  private ProjectionPlan getProjectionPlan(ObjectType objectType, List<SelectedProperty> selectedProperties) {
+    return projectionPlans.computeIfAbsent(ProjectionPlan.getCacheKey(objectType, selectedProperties),
+        key -> ProjectionPlan.compile(model, selectedProperties));
   }
 }
@@ -0,0 +1,373 @@
+package de.ii.orchestrate.ogcapi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import reactor.core.publisher.SignalType;
+
+/**
+ * The meters of a source. All meters are tagged with the source, i.e. the URL of the landing page of the API, and,
+ * where applicable, with the collection and the operation ("findOne", "find", "findBatch").
+ *
+ * <p>Each exchange with the API is recorded in phases: the time to acquire a connection from the pool (including
+ * the time to establish a new connection), the time to the first byte, the transfer of the response body and the time
+ * spent decompressing and decoding it. The state of the connection pool is recorded by Reactor Netty (meters
+ * "reactor.netty.*").
+ */
+class OgcApiFeaturesMetrics {
+
+  static final String PREFIX = "orchestrate.ogcapi.";
+
+  static final String FIND_ONE = "findOne";
+  static final String FIND = "find";
+  static final String FIND_BATCH = "findBatch";
+  static final String LOAD_REPLICA = "loadReplica";
+
+  private final MeterRegistry registry;
+  private final Tags sourceTags;
+
+  OgcApiFeaturesMetrics(MeterRegistry registry, String source) {
+    this.registry = registry;
+    this.sourceTags = Tags.of("source", source);
+  }
+
+  /**
+   * Starts recording an exchange with the API.
+   */
+  Request start(String collectionId, String operation, String method, int uriLength) {
+    var tags = sourceTags.and("collection", collectionId, "operation", operation, "method", method);
+    DistributionSummary.builder(PREFIX + "request.uri.length")
+        .description("The length of the request URIs")
+        .baseUnit("characters")
+        .tags(tags)
+        .register(registry)
+        .record(uriLength);
+    return new Request(tags);
+  }
+
+  /**
+   * Counts the way the identifiers of a batch request are sent to the API.
+   *
+   * @param strategy "in" for the CQL2 IN operator, "or" for a logical OR of comparisons or "ad-hoc" for an Ad-hoc Query
+   */
+  void batchStrategy(String collectionId, String method, String strategy) {
+    Counter.builder(PREFIX + "batch.requests")
+        .description("The batch requests by the way the identifiers are sent to the API")
+        .tags(sourceTags.and("collection", collectionId, "method", method, "strategy", strategy))
+        .register(registry)
+        .increment();
+  }
+
+  /**
+   * Counts the way the tiles of an "intersects" filter are sent to the API.
+   *
+   * @param strategy "bbox" for the "bbox" parameter, "cql2-text" for a CQL2 filter parameter, "cql2-json" for an
+   *                 Ad-hoc Query or "local" for a filter that is evaluated locally
+   */
+  void spatialFilterStrategy(String collectionId, String method, String strategy) {
+    Counter.builder(PREFIX + "spatial.requests")
+        .description("The requests for intersects filters by the way the filter is sent to the API")
+        .tags(sourceTags.and("collection", collectionId, "method", method, "strategy", strategy))
+        .register(registry)
+        .increment();
+  }
+
+  /**
+   * Counts a retry of a request.
+   *
+   * @param reason "status" for a server error or "429 Too Many Requests", "connection" for a connection error or
+   *               "timeout" for a timeout
+   */
+  void requestRetry(String collectionId, String operation, String method, String reason) {
+    Counter.builder(PREFIX + "requests.retries")
+        .description("The retries of requests that failed with a transient error")
+        .tags(sourceTags.and("collection", collectionId, "operation", operation, "method", method, "reason", reason))
+        .register(registry)
+        .increment();
+  }
+
+  void requestTimeout(String collectionId, String operation, String method) {
+    Counter.builder(PREFIX + "requests.timeouts")
+        .description("The requests that did not receive a response within the timeout of the operation")
+        .tags(sourceTags.and("collection", collectionId, "operation", operation, "method", method))
+        .register(registry)
+        .increment();
+  }
+
+  /**
+   * Counts a request for which a hedged request has been sent.
+   *
+   * @param winner "primary", if the first request responded first, otherwise "hedge"
+   */
+  void hedgedRequest(String collectionId, String operation, String method, String winner) {
+    Counter.builder(PREFIX + "requests.hedged")
+        .description("The requests for which a hedged request has been sent, by the request that responded first")
+        .tags(sourceTags.and("collection", collectionId, "operation", operation, "method", method, "winner", winner))
+        .register(registry)
+        .increment();
+  }
+
+  void bindFeatureCache(String collectionId, FeatureCache cache) {
+    var tags = sourceTags.and("collection", collectionId);
+    Gauge.builder(PREFIX + "cache.size", cache, FeatureCache::getSize)
+        .description("The number of cached features")
+        .tags(tags)
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "cache.gets", cache, FeatureCache::getHitCount)
+        .description("The lookups of cached features")
+        .tags(tags.and("result", "hit"))
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "cache.gets", cache, FeatureCache::getStaleCount)
+        .description("The lookups of cached features")
+        .tags(tags.and("result", "stale"))
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "cache.gets", cache, FeatureCache::getMissCount)
+        .description("The lookups of cached features")
+        .tags(tags.and("result", "miss"))
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "cache.evictions", cache, FeatureCache::getEvictionCount)
+        .description("The features that have been evicted from the cache")
+        .tags(tags)
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "cache.revalidations", cache, FeatureCache::getRevalidationCount)
+        .description("The conditional requests to revalidate cached features")
+        .tags(tags.and("result", "requested"))
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "cache.revalidations", cache, FeatureCache::getNotModifiedCount)
+        .description("The conditional requests to revalidate cached features")
+        .tags(tags.and("result", "not-modified"))
+        .register(registry);
+  }
+
+  void bindRequestCoalescer(RequestCoalescer coalescer) {
+    FunctionCounter.builder(PREFIX + "requests.coalesced", coalescer, RequestCoalescer::getCoalescedCount)
+        .description("The requests that joined an identical request in flight")
+        .tags(sourceTags)
+        .register(registry);
+    Gauge.builder(PREFIX + "requests.inflight", coalescer, RequestCoalescer::getInFlightCount)
+        .description("The distinct requests in flight")
+        .tags(sourceTags)
+        .register(registry);
+  }
+
+  void bindConcurrencyLimiter(ConcurrencyLimiter limiter) {
+    Gauge.builder(PREFIX + "concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+        .description("The current limit of the requests in flight")
+        .tags(sourceTags)
+        .register(registry);
+    Gauge.builder(PREFIX + "concurrency.active", limiter, ConcurrencyLimiter::getInFlightCount)
+        .description("The requests in flight within the limit")
+        .tags(sourceTags)
+        .register(registry);
+    Gauge.builder(PREFIX + "concurrency.queued", limiter, ConcurrencyLimiter::getQueuedCount)
+        .description("The requests that wait for the limit")
+        .tags(sourceTags)
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "requests.rejected", limiter, ConcurrencyLimiter::getRejectedCount)
+        .description("The requests that have been rejected without being sent")
+        .tags(sourceTags.and("reason", "queue-full"))
+        .register(registry);
+  }
+
+  void bindCircuitBreaker(CircuitBreaker circuitBreaker) {
+    Gauge.builder(PREFIX + "circuit.state", circuitBreaker, c -> c.getState().ordinal())
+        .description("The state of the circuit breaker: 0 closed, 1 half-open, 2 open")
+        .tags(sourceTags)
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "requests.rejected", circuitBreaker, CircuitBreaker::getRejectedCount)
+        .description("The requests that have been rejected without being sent")
+        .tags(sourceTags.and("reason", "circuit-open"))
+        .register(registry);
+  }
+
+  void bindEndpointBalancer(EndpointBalancer balancer) {
+    balancer.getEndpoints().forEach(endpoint -> {
+      var tags = sourceTags.and("endpoint", endpoint.getLandingPage());
+      Gauge.builder(PREFIX + "endpoint.healthy", endpoint, e -> e.isHealthy() ? 1 : 0)
+          .description("Whether the landing page receives requests")
+          .tags(tags)
+          .register(registry);
+      FunctionCounter.builder(PREFIX + "endpoint.requests", endpoint, EndpointBalancer.Endpoint::getRequestCount)
+          .description("The requests that have been sent to the landing page")
+          .tags(tags)
+          .register(registry);
+      FunctionCounter.builder(PREFIX + "endpoint.ejections", endpoint, EndpointBalancer.Endpoint::getEjectionCount)
+          .description("The ejections of the landing page")
+          .tags(tags)
+          .register(registry);
+    });
+  }
+
+  void bindReplica(String collectionId, CollectionReplica replica) {
+    var tags = sourceTags.and("collection", collectionId);
+    Gauge.builder(PREFIX + "replica.features", replica, CollectionReplica::getSize)
+        .description("The features of the current snapshot of the replica")
+        .tags(tags)
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "replica.refreshes", replica, CollectionReplica::getRefreshCount)
+        .description("The attempts to load a snapshot of the replica")
+        .tags(tags.and("result", "success"))
+        .register(registry);
+    FunctionCounter.builder(PREFIX + "replica.refreshes", replica, CollectionReplica::getFailureCount)
+        .description("The attempts to load a snapshot of the replica")
+        .tags(tags.and("result", "failure"))
+        .register(registry);
+  }
+
+  void replicaRequest(String collectionId, String operation) {
+    Counter.builder(PREFIX + "replica.requests")
+        .description("The requests that have been served by the replica")
+        .tags(sourceTags.and("collection", collectionId, "operation", operation))
+        .register(registry)
+        .increment();
+  }
+
+  void objectBatch(int size) {
+    DistributionSummary.builder(PREFIX + "object.batch.size")
+        .description("The number of object requests that have been collected into a batch request")
+        .tags(sourceTags)
+        .register(registry)
+        .record(size);
+  }
+
+  class Request {
+
+    private final Tags tags;
+    private final long start = System.nanoTime();
+    private long sent;
+    private long firstByte;
+    private String status = "NONE";
+    private GeoJsonDecoder decoder;
+    private ContentDecompressor decompressor;
+
+    private Request(Tags tags) {
+      this.tags = tags;
+    }
+
+    /**
+     * Records that a connection has been acquired and the request is sent.
+     */
+    void requestSent() {
+      sent = System.nanoTime();
+      Timer.builder(PREFIX + "connection.acquire")
+          .description("The time from the start of the request until a connection has been acquired")
+          .tags(tags)
+          .register(registry)
+          .record(sent - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the arrival of the response headers.
+     */
+    void responseReceived(int statusCode) {
+      firstByte = System.nanoTime();
+      status = String.valueOf(statusCode);
+      Timer.builder(PREFIX + "request.ttfb")
+          .description("The time from sending the request until the response headers are received")
+          .tags(tags)
+          .register(registry)
+          .record(firstByte - (sent != 0 ? sent : start), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records that the response body is decoded. The decompressor is {@code null}, if the body is not compressed.
+     */
+    void decoding(GeoJsonDecoder decoder, ContentDecompressor decompressor) {
+      this.decoder = decoder;
+      this.decompressor = decompressor;
+    }
+
+    /**
+     * Records a response that exceeded the maximum response size.
+     *
+     * @param action "failed" for a rejected response or "spilled" for a response that has been spilled to disk
+     * @param spilledBytes the number of bytes that have been spilled
+     */
+    void responseOversized(String action, long spilledBytes) {
+      Counter.builder(PREFIX + "responses.oversized")
+          .description("The responses that exceeded the maximum response size")
+          .tags(tags.and("action", action))
+          .register(registry)
+          .increment();
+      if (ResponseSizeGuard.SPILLED.equals(action)) {
+        DistributionSummary.builder(PREFIX + "response.spilled.size")
+            .description("The number of bytes of the responses that have been spilled to disk")
+            .baseUnit("bytes")
+            .tags(tags)
+            .register(registry)
+            .record(spilledBytes);
+      }
+    }
+
+    /**
+     * Records the end of the exchange.
+     */
+    void finished(SignalType signal) {
+      var end = System.nanoTime();
+      var outcome = switch (signal) {
+        case ON_COMPLETE -> "SUCCESS";
+        case CANCEL -> "CANCELLED";
+        default -> "ERROR";
+      };
+      var exchangeTags = tags.and("status", status, "outcome", outcome);
+      Timer.builder(PREFIX + "requests")
+          .description("The exchanges with the API, from the start of the request to the end of the response")
+          .tags(exchangeTags)
+          .register(registry)
+          .record(end - start, TimeUnit.NANOSECONDS);
+      if (firstByte == 0) {
+        return;
+      }
+      Timer.builder(PREFIX + "response.transfer")
+          .description("The time from the response headers to the end of the response")
+          .tags(exchangeTags)
+          .register(registry)
+          .record(end - firstByte, TimeUnit.NANOSECONDS);
+      if (decoder == null) {
+        return;
+      }
+      Timer.builder(PREFIX + "response.decode")
+          .description("The time spent decoding the response")
+          .tags(tags)
+          .register(registry)
+          .record(decoder.getDecodeNanos(), TimeUnit.NANOSECONDS);
+      Timer.builder(PREFIX + "response.eventloop")
+          .description("The time the response blocked the thread that received it with guarding, decompressing and "
+              + "decoding or handing off the chunks")
+          .tags(tags)
+          .register(registry)
+          .record(decoder.getReceiveThreadNanos(), TimeUnit.NANOSECONDS);
+      DistributionSummary.builder(PREFIX + "response.size")
+          .description("The size of the decoded response bodies")
+          .baseUnit("bytes")
+          .tags(tags)
+          .register(registry)
+          .record(decoder.getBytes());
+      // the uncompressed bodies are recorded as well, so that the ratio of compressed and decoded bytes is comparable
+      DistributionSummary.builder(PREFIX + "response.wire.size")
+          .description("The size of the response bodies as transferred, by content encoding")
+          .baseUnit("bytes")
+          .tags(tags.and("encoding", decompressor != null ? decompressor.getEncoding() : "identity"))
+          .register(registry)
+          .record(decompressor != null ? decompressor.getWireBytes() : decoder.getBytes());
+      if (decompressor != null) {
+        Timer.builder(PREFIX + "response.decompress")
+            .description("The time spent decompressing the response")
+            .tags(tags.and("encoding", decompressor.getEncoding()))
+            .register(registry)
+            .record(decompressor.getDecompressNanos(), TimeUnit.NANOSECONDS);
+      }
+      DistributionSummary.builder(PREFIX + "response.features")
+          .description("The number of features per response")
+          .baseUnit("features")
+          .tags(tags)
+          .register(registry)
+          .record(decoder.getFeatureCount());
+    }
+  }
+}
@@ -3,17 +3,26 @@ package de.ii.orchestrate.ogcapi;
 import org.dotwebstack.orchestrate.source.DataRepository;
 import org.dotwebstack.orchestrate.source.Source;
 
-public class OgcApiFeaturesSource implements Source {
+public class OgcApiFeaturesSource implements Source, AutoCloseable {
 
-  private final OgcApiFeaturesConfiguration configuration;
+  private final OgcApiFeaturesDataRepository dataRepository;
 
   public OgcApiFeaturesSource(OgcApiFeaturesConfiguration configuration) {
-    this.configuration = configuration;
+    // a single repository per source, so that the caches are shared by all requests
+    this.dataRepository = new OgcApiFeaturesDataRepository(configuration);
   }
 
   @Override
   public DataRepository getDataRepository() {
-    return new OgcApiFeaturesDataRepository(configuration);
+    return dataRepository;
+  }
+
+  /**
+   * Releases the replicas of the collections, the source remains usable without them.
+   */
+  @Override
+  public void close() {
+    dataRepository.close();
   }
 
 }
@@ -1,8 +1,15 @@
 package de.ii.orchestrate.ogcapi;
 
 import com.google.auto.service.AutoService;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 import org.dotwebstack.orchestrate.model.Model;
 import org.dotwebstack.orchestrate.source.Source;
 import org.dotwebstack.orchestrate.source.SourceException;
@@ -13,10 +20,98 @@ public class OgcApiFeaturesSourceType implements SourceType {
 
   private static final String SOURCE_TYPE = "ogcapi";
 
+  private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)(ms|s|m|h)?");
+
   private static final String URL_KEY = "url";
   private static final String LIMIT_KEY = "limit";
+  private static final String PAGE_PREFETCH_KEY = "pagePrefetch";
+  private static final String MAX_LIMIT_KEY = "maxLimit";
+  private static final String BATCH_CONCURRENCY_KEY = "batchConcurrency";
   private static final String SUPPORTS_PROPERTY_SELECTION_KEY = "supportsPropertySelection";
   private static final String SUPPORTS_REL_PROFILES_KEY = "supportsRelProfiles";
+  private static final String JTS_GEOMETRIES_KEY = "jtsGeometries";
+  private static final String TRANSPORT_KEY = "transport";
+  private static final String CACHE_KEY = "cache";
+  private static final String OBJECT_BATCHING_KEY = "objectBatching";
+  private static final String DISCOVERY_KEY = "discovery";
+  private static final String TRANSFER_KEY = "transfer";
+  private static final String SPATIAL_FILTER_KEY = "spatialFilter";
+  private static final String PAGING_KEY = "paging";
+  private static final String DECODING_KEY = "decoding";
+  private static final String RESILIENCE_KEY = "resilience";
+  private static final String CONCURRENCY_LIMIT_KEY = "concurrencyLimit";
+  private static final String CIRCUIT_BREAKER_KEY = "circuitBreaker";
+  private static final String BALANCING_KEY = "balancing";
+  private static final String REPLICAS_KEY = "replicas";
+
+  private static final String MAX_CONNECTIONS_KEY = "maxConnections";
+  private static final String PENDING_ACQUIRE_MAX_COUNT_KEY = "pendingAcquireMaxCount";
+  private static final String PENDING_ACQUIRE_TIMEOUT_KEY = "pendingAcquireTimeout";
+  private static final String MAX_IDLE_TIME_KEY = "maxIdleTime";
+  private static final String MAX_LIFE_TIME_KEY = "maxLifeTime";
+  private static final String EVICTION_INTERVAL_KEY = "evictionInterval";
+  private static final String CONNECT_TIMEOUT_KEY = "connectTimeout";
+  private static final String RESPONSE_TIMEOUT_KEY = "responseTimeout";
+  private static final String HTTP2_KEY = "http2";
+  private static final String MAX_CONCURRENT_STREAMS_KEY = "maxConcurrentStreams";
+  private static final String KEEP_ALIVE_KEY = "keepAlive";
+  private static final String METRICS_KEY = "metrics";
+
+  private static final String MAXIMUM_SIZE_KEY = "maximumSize";
+  private static final String TTL_KEY = "ttl";
+  private static final String REVALIDATION_WINDOW_KEY = "revalidationWindow";
+
+  private static final String MAX_WAIT_KEY = "maxWait";
+  private static final String MAX_SIZE_KEY = "maxSize";
+
+  private static final String SNAPSHOT_DIRECTORY_KEY = "snapshotDirectory";
+  private static final String SNAPSHOT_TTL_KEY = "snapshotTtl";
+
+  private static final String SKIP_GEOMETRY_KEY = "skipGeometry";
+  private static final String MAX_ALLOWABLE_OFFSET_KEY = "maxAllowableOffset";
+  private static final String DETECT_CAPABILITIES_KEY = "detectCapabilities";
+  private static final String CONTENT_ENCODINGS_KEY = "contentEncodings";
+  private static final String MAX_RESPONSE_SIZE_KEY = "maxResponseSize";
+  private static final String SPILL_OVERSIZED_RESPONSES_KEY = "spillOversizedResponses";
+
+  private static final String TILE_SIZE_KEY = "tileSize";
+  private static final String MAX_TILES_KEY = "maxTiles";
+  private static final String CONCURRENCY_KEY = "concurrency";
+
+  private static final String ORDERED_KEY = "ordered";
+
+  private static final String OFFLOAD_KEY = "offload";
+  private static final String THREADS_KEY = "threads";
+  private static final String PREFETCH_KEY = "prefetch";
+
+  private static final String FIND_ONE_TIMEOUT_KEY = "findOneTimeout";
+  private static final String FIND_TIMEOUT_KEY = "findTimeout";
+  private static final String FIND_BATCH_TIMEOUT_KEY = "findBatchTimeout";
+  private static final String MAX_RETRIES_KEY = "maxRetries";
+  private static final String MIN_BACKOFF_KEY = "minBackoff";
+  private static final String MAX_BACKOFF_KEY = "maxBackoff";
+  private static final String JITTER_KEY = "jitter";
+  private static final String HEDGING_KEY = "hedging";
+  private static final String HEDGE_PERCENTILE_KEY = "hedgePercentile";
+  private static final String MIN_HEDGE_DELAY_KEY = "minHedgeDelay";
+
+  private static final String INITIAL_LIMIT_KEY = "initialLimit";
+  private static final String MIN_LIMIT_KEY = "minLimit";
+  private static final String BACKOFF_RATIO_KEY = "backoffRatio";
+  private static final String LATENCY_TOLERANCE_KEY = "latencyTolerance";
+  private static final String MAX_QUEUE_SIZE_KEY = "maxQueueSize";
+
+  private static final String FAILURE_RATE_THRESHOLD_KEY = "failureRateThreshold";
+  private static final String MINIMUM_REQUESTS_KEY = "minimumRequests";
+  private static final String OPEN_DURATION_KEY = "openDuration";
+  private static final String PROBES_KEY = "probes";
+
+  private static final String MAX_FAILURES_KEY = "maxFailures";
+  private static final String EJECTION_DURATION_KEY = "ejectionDuration";
+
+  private static final String INDEXES_KEY = "indexes";
+  private static final String REFRESH_INTERVAL_KEY = "refreshInterval";
+  private static final String PAGE_SIZE_KEY = "pageSize";
 
   @Override
   public String getName() {
@@ -27,14 +122,389 @@ public class OgcApiFeaturesSourceType implements SourceType {
   public Source create(Model model, Map<String, Object> options) {
     validateBasic(model, options);
 
-    var landingPage = (String)options.get(URL_KEY);
+    var urls = getUrls(options.get(URL_KEY));
+    var landingPage = urls.get(0);
     var limit = Objects.requireNonNullElse((Integer)options.get(LIMIT_KEY), 10);
+    var pagePrefetch = Objects.requireNonNullElse((Integer)options.get(PAGE_PREFETCH_KEY),
+        OgcApiFeaturesConfiguration.DEFAULT_PAGE_PREFETCH);
+    var maxLimit = Objects.requireNonNullElse((Integer)options.get(MAX_LIMIT_KEY),
+        OgcApiFeaturesConfiguration.DEFAULT_MAX_LIMIT);
+    var batchConcurrency = Objects.requireNonNullElse((Integer)options.get(BATCH_CONCURRENCY_KEY),
+        OgcApiFeaturesConfiguration.DEFAULT_BATCH_CONCURRENCY);
     var supportsPropertySelection = Objects.requireNonNullElse((Boolean)options.get(SUPPORTS_PROPERTY_SELECTION_KEY), false);
     var supportsRelProfiles = Objects.requireNonNullElse((Boolean)options.get(SUPPORTS_REL_PROFILES_KEY), false);
-    var configuration = new OgcApiFeaturesConfiguration(model, landingPage, limit, supportsPropertySelection, supportsRelProfiles);
+    var jtsGeometries = Objects.requireNonNullElse((Boolean) options.get(JTS_GEOMETRIES_KEY), false);
+    var transport = getTransportOptions(options.get(TRANSPORT_KEY));
+    var cache = getCacheOptions(options.get(CACHE_KEY));
+    var batching = getBatchingOptions(options.get(OBJECT_BATCHING_KEY));
+    var discovery = getDiscoveryOptions(options.get(DISCOVERY_KEY));
+    var transfer = getTransferOptions(options.get(TRANSFER_KEY));
+    var spatialFilter = getSpatialFilterOptions(options.get(SPATIAL_FILTER_KEY));
+    var paging = getPagingOptions(options.get(PAGING_KEY));
+    var decoding = getDecodingOptions(options.get(DECODING_KEY));
+    var resilience = getResilienceOptions(options.get(RESILIENCE_KEY));
+    var concurrencyLimit = getConcurrencyLimitOptions(options.get(CONCURRENCY_LIMIT_KEY));
+    var circuitBreaker = getCircuitBreakerOptions(options.get(CIRCUIT_BREAKER_KEY));
+    var balancing = getBalancingOptions(options.get(BALANCING_KEY));
+    var replicas = getReplicas(options.get(REPLICAS_KEY));
+    var configuration = new OgcApiFeaturesConfiguration(model, landingPage, limit, pagePrefetch, maxLimit,
+        batchConcurrency, transport, cache, batching, discovery, transfer, spatialFilter, paging, decoding, resilience,
+        concurrencyLimit, circuitBreaker, urls.subList(1, urls.size()), balancing, replicas, null,
+        supportsPropertySelection, supportsRelProfiles, jtsGeometries);
     return new OgcApiFeaturesSource(configuration);
   }
 
+  /**
+   * Parses the landing page of the API, optionally followed by its mirrors. Either a URL or a list of URLs.
+   */
+  private List<String> getUrls(Object value) {
+    if (value instanceof String url) {
+      return List.of(url);
+    }
+    if (value instanceof List<?> urls && !urls.isEmpty() && urls.stream().allMatch(String.class::isInstance)) {
+      return urls.stream().map(String.class::cast).toList();
+    }
+    throw new SourceException(String.format("Config '%s' must be a URL or a list of URLs.", URL_KEY));
+  }
+
+  private TransportOptions getTransportOptions(Object value) {
+    var transport = TransportOptions.builder().build();
+    if (value == null) {
+      return transport;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", TRANSPORT_KEY));
+    }
+    return transport.toBuilder()
+        .maxConnections(Objects.requireNonNullElse((Integer) options.get(MAX_CONNECTIONS_KEY),
+            transport.getMaxConnections()))
+        .pendingAcquireMaxCount(Objects.requireNonNullElse((Integer) options.get(PENDING_ACQUIRE_MAX_COUNT_KEY),
+            transport.getPendingAcquireMaxCount()))
+        .pendingAcquireTimeout(Objects.requireNonNullElse(parseDuration(options, PENDING_ACQUIRE_TIMEOUT_KEY),
+            transport.getPendingAcquireTimeout()))
+        .maxIdleTime(Objects.requireNonNullElse(parseDuration(options, MAX_IDLE_TIME_KEY),
+            transport.getMaxIdleTime()))
+        .maxLifeTime(Objects.requireNonNullElse(parseDuration(options, MAX_LIFE_TIME_KEY),
+            transport.getMaxLifeTime()))
+        .evictionInterval(Objects.requireNonNullElse(parseDuration(options, EVICTION_INTERVAL_KEY),
+            transport.getEvictionInterval()))
+        .connectTimeout(Objects.requireNonNullElse(parseDuration(options, CONNECT_TIMEOUT_KEY),
+            transport.getConnectTimeout()))
+        .responseTimeout(Objects.requireNonNullElse(parseDuration(options, RESPONSE_TIMEOUT_KEY),
+            transport.getResponseTimeout()))
+        .http2(Objects.requireNonNullElse((Boolean) options.get(HTTP2_KEY), transport.isHttp2()))
+        .maxConcurrentStreams(Objects.requireNonNullElse((Integer) options.get(MAX_CONCURRENT_STREAMS_KEY),
+            transport.getMaxConcurrentStreams()))
+        .keepAlive(Objects.requireNonNullElse((Boolean) options.get(KEEP_ALIVE_KEY), transport.isKeepAlive()))
+        .metrics(Objects.requireNonNullElse((Boolean) options.get(METRICS_KEY), transport.isMetrics()))
+        .build();
+  }
+
+  private CacheOptions getCacheOptions(Object value) {
+    if (value == null || Boolean.FALSE.equals(value)) {
+      return null;
+    }
+    var cache = CacheOptions.builder().build();
+    if (Boolean.TRUE.equals(value)) {
+      return cache;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object or a boolean.", CACHE_KEY));
+    }
+    return cache.toBuilder()
+        .maximumSize(Objects.requireNonNullElse((Number) options.get(MAXIMUM_SIZE_KEY), cache.getMaximumSize())
+            .longValue())
+        .ttl(Objects.requireNonNullElse(parseDuration(options, TTL_KEY), cache.getTtl()))
+        .revalidationWindow(Objects.requireNonNullElse(parseDuration(options, REVALIDATION_WINDOW_KEY),
+            cache.getRevalidationWindow()))
+        .build();
+  }
+
+  private BatchingOptions getBatchingOptions(Object value) {
+    if (value == null || Boolean.FALSE.equals(value)) {
+      return null;
+    }
+    var batching = BatchingOptions.builder().build();
+    if (Boolean.TRUE.equals(value)) {
+      return batching;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object or a boolean.", OBJECT_BATCHING_KEY));
+    }
+    return batching.toBuilder()
+        .maxWait(Objects.requireNonNullElse(parseDuration(options, MAX_WAIT_KEY), batching.getMaxWait()))
+        .maxSize(Objects.requireNonNullElse((Integer) options.get(MAX_SIZE_KEY), batching.getMaxSize()))
+        .build();
+  }
+
+  private DiscoveryOptions getDiscoveryOptions(Object value) {
+    var discovery = DiscoveryOptions.builder().build();
+    if (value == null) {
+      return discovery;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", DISCOVERY_KEY));
+    }
+    var snapshotDirectory = options.get(SNAPSHOT_DIRECTORY_KEY);
+    return discovery.toBuilder()
+        .snapshotDirectory(snapshotDirectory != null ? Path.of(snapshotDirectory.toString()) : null)
+        .snapshotTtl(Objects.requireNonNullElse(parseDuration(options, SNAPSHOT_TTL_KEY),
+            discovery.getSnapshotTtl()))
+        .build();
+  }
+
+  private TransferOptions getTransferOptions(Object value) {
+    var transfer = TransferOptions.builder().build();
+    if (value == null) {
+      return transfer;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", TRANSFER_KEY));
+    }
+    var maxAllowableOffset = (Number) options.get(MAX_ALLOWABLE_OFFSET_KEY);
+    var maxResponseSize = (Number) options.get(MAX_RESPONSE_SIZE_KEY);
+    return transfer.toBuilder()
+        .skipGeometry(Objects.requireNonNullElse((Boolean) options.get(SKIP_GEOMETRY_KEY), transfer.isSkipGeometry()))
+        .maxAllowableOffset(maxAllowableOffset != null ? maxAllowableOffset.doubleValue() : null)
+        .detectCapabilities(Objects.requireNonNullElse((Boolean) options.get(DETECT_CAPABILITIES_KEY),
+            transfer.isDetectCapabilities()))
+        .contentEncodings(getContentEncodings(options.get(CONTENT_ENCODINGS_KEY), transfer.getContentEncodings()))
+        .maxResponseSize(maxResponseSize != null ? maxResponseSize.longValue() : null)
+        .spillOversizedResponses(Objects.requireNonNullElse((Boolean) options.get(SPILL_OVERSIZED_RESPONSES_KEY),
+            transfer.isSpillOversizedResponses()))
+        .build();
+  }
+
+  private SpatialFilterOptions getSpatialFilterOptions(Object value) {
+    var spatialFilter = SpatialFilterOptions.builder().build();
+    if (value == null) {
+      return spatialFilter;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", SPATIAL_FILTER_KEY));
+    }
+    var tileSize = (Number) options.get(TILE_SIZE_KEY);
+    return spatialFilter.toBuilder()
+        .tileSize(tileSize != null ? tileSize.doubleValue() : null)
+        .maxTiles(Objects.requireNonNullElse((Integer) options.get(MAX_TILES_KEY), spatialFilter.getMaxTiles()))
+        .concurrency(Objects.requireNonNullElse((Integer) options.get(CONCURRENCY_KEY), spatialFilter.getConcurrency()))
+        .build();
+  }
+
+  private PagingOptions getPagingOptions(Object value) {
+    var paging = PagingOptions.builder().build();
+    if (value == null) {
+      return paging;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", PAGING_KEY));
+    }
+    return paging.toBuilder()
+        .concurrency(Objects.requireNonNullElse((Integer) options.get(CONCURRENCY_KEY), paging.getConcurrency()))
+        .ordered(Objects.requireNonNullElse((Boolean) options.get(ORDERED_KEY), paging.isOrdered()))
+        .build();
+  }
+
+  private DecodingOptions getDecodingOptions(Object value) {
+    var decoding = DecodingOptions.builder().build();
+    if (value == null) {
+      return decoding;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", DECODING_KEY));
+    }
+    return decoding.toBuilder()
+        .offload(Objects.requireNonNullElse((Boolean) options.get(OFFLOAD_KEY), decoding.isOffload()))
+        .threads(Objects.requireNonNullElse((Integer) options.get(THREADS_KEY), decoding.getThreads()))
+        .prefetch(Objects.requireNonNullElse((Integer) options.get(PREFETCH_KEY), decoding.getPrefetch()))
+        .build();
+  }
+
+  private ResilienceOptions getResilienceOptions(Object value) {
+    var resilience = ResilienceOptions.builder().build();
+    if (value == null) {
+      return resilience;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", RESILIENCE_KEY));
+    }
+    var jitter = (Number) options.get(JITTER_KEY);
+    var hedgePercentile = (Number) options.get(HEDGE_PERCENTILE_KEY);
+    return resilience.toBuilder()
+        .findOneTimeout(parseDuration(options, FIND_ONE_TIMEOUT_KEY))
+        .findTimeout(parseDuration(options, FIND_TIMEOUT_KEY))
+        .findBatchTimeout(parseDuration(options, FIND_BATCH_TIMEOUT_KEY))
+        .maxRetries(Objects.requireNonNullElse((Integer) options.get(MAX_RETRIES_KEY), resilience.getMaxRetries()))
+        .minBackoff(Objects.requireNonNullElse(parseDuration(options, MIN_BACKOFF_KEY), resilience.getMinBackoff()))
+        .maxBackoff(Objects.requireNonNullElse(parseDuration(options, MAX_BACKOFF_KEY), resilience.getMaxBackoff()))
+        .jitter(jitter != null ? jitter.doubleValue() : resilience.getJitter())
+        .hedging(Objects.requireNonNullElse((Boolean) options.get(HEDGING_KEY), resilience.isHedging()))
+        .hedgePercentile(hedgePercentile != null ? hedgePercentile.doubleValue() : resilience.getHedgePercentile())
+        .minHedgeDelay(Objects.requireNonNullElse(parseDuration(options, MIN_HEDGE_DELAY_KEY),
+            resilience.getMinHedgeDelay()))
+        .build();
+  }
+
+  private ConcurrencyLimitOptions getConcurrencyLimitOptions(Object value) {
+    if (value == null || Boolean.FALSE.equals(value)) {
+      return null;
+    }
+    var concurrencyLimit = ConcurrencyLimitOptions.builder().build();
+    if (Boolean.TRUE.equals(value)) {
+      return concurrencyLimit;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object or a boolean.", CONCURRENCY_LIMIT_KEY));
+    }
+    var backoffRatio = (Number) options.get(BACKOFF_RATIO_KEY);
+    var latencyTolerance = (Number) options.get(LATENCY_TOLERANCE_KEY);
+    return concurrencyLimit.toBuilder()
+        .initialLimit(Objects.requireNonNullElse((Integer) options.get(INITIAL_LIMIT_KEY),
+            concurrencyLimit.getInitialLimit()))
+        .minLimit(Objects.requireNonNullElse((Integer) options.get(MIN_LIMIT_KEY), concurrencyLimit.getMinLimit()))
+        .maxLimit(Objects.requireNonNullElse((Integer) options.get(MAX_LIMIT_KEY), concurrencyLimit.getMaxLimit()))
+        .backoffRatio(backoffRatio != null ? backoffRatio.doubleValue() : concurrencyLimit.getBackoffRatio())
+        .latencyTolerance(latencyTolerance != null ? latencyTolerance.doubleValue() :
+            concurrencyLimit.getLatencyTolerance())
+        .maxQueueSize(Objects.requireNonNullElse((Integer) options.get(MAX_QUEUE_SIZE_KEY),
+            concurrencyLimit.getMaxQueueSize()))
+        .build();
+  }
+
+  private CircuitBreakerOptions getCircuitBreakerOptions(Object value) {
+    if (value == null || Boolean.FALSE.equals(value)) {
+      return null;
+    }
+    var circuitBreaker = CircuitBreakerOptions.builder().build();
+    if (Boolean.TRUE.equals(value)) {
+      return circuitBreaker;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object or a boolean.", CIRCUIT_BREAKER_KEY));
+    }
+    var failureRateThreshold = (Number) options.get(FAILURE_RATE_THRESHOLD_KEY);
+    return circuitBreaker.toBuilder()
+        .failureRateThreshold(failureRateThreshold != null ? failureRateThreshold.doubleValue() :
+            circuitBreaker.getFailureRateThreshold())
+        .minimumRequests(Objects.requireNonNullElse((Integer) options.get(MINIMUM_REQUESTS_KEY),
+            circuitBreaker.getMinimumRequests()))
+        .openDuration(Objects.requireNonNullElse(parseDuration(options, OPEN_DURATION_KEY),
+            circuitBreaker.getOpenDuration()))
+        .probes(Objects.requireNonNullElse((Integer) options.get(PROBES_KEY), circuitBreaker.getProbes()))
+        .build();
+  }
+
+  private BalancingOptions getBalancingOptions(Object value) {
+    var balancing = BalancingOptions.builder().build();
+    if (value == null) {
+      return balancing;
+    }
+    if (!(value instanceof Map<?, ?> options)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", BALANCING_KEY));
+    }
+    return balancing.toBuilder()
+        .maxFailures(Objects.requireNonNullElse((Integer) options.get(MAX_FAILURES_KEY), balancing.getMaxFailures()))
+        .ejectionDuration(Objects.requireNonNullElse(parseDuration(options, EJECTION_DURATION_KEY),
+            balancing.getEjectionDuration()))
+        .build();
+  }
+
+  /**
+   * Parses the replicated collections, an object with the collection identifiers as keys. The value of a collection is
+   * either an object with its replica options or a boolean.
+   */
+  private Map<String, ReplicaOptions> getReplicas(Object value) {
+    if (value == null) {
+      return Map.of();
+    }
+    if (!(value instanceof Map<?, ?> collections)) {
+      throw new SourceException(String.format("Config '%s' must be an object.", REPLICAS_KEY));
+    }
+    Map<String, ReplicaOptions> replicas = new HashMap<>();
+    collections.forEach((collectionId, collection) -> {
+      var replica = ReplicaOptions.builder().build();
+      if (Boolean.TRUE.equals(collection)) {
+        replicas.put(collectionId.toString(), replica);
+      } else if (collection instanceof Map<?, ?> options) {
+        replicas.put(collectionId.toString(), replica.toBuilder()
+            .indexes(getIndexes(options.get(INDEXES_KEY), replica.getIndexes()))
+            .refreshInterval(Objects.requireNonNullElse(parseDuration(options, REFRESH_INTERVAL_KEY),
+                replica.getRefreshInterval()))
+            .pageSize(Objects.requireNonNullElse((Integer) options.get(PAGE_SIZE_KEY), replica.getPageSize()))
+            .build());
+      } else if (!Boolean.FALSE.equals(collection)) {
+        throw new SourceException(String.format("Config '%s.%s' must be an object or a boolean.", REPLICAS_KEY,
+            collectionId));
+      }
+    });
+    return replicas;
+  }
+
+  /**
+   * Parses the indexed properties of a replica, either a list or a comma-separated string.
+   */
+  private List<String> getIndexes(Object value, List<String> defaultValue) {
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value instanceof List<?> indexes) {
+      return indexes.stream().map(String::valueOf).map(String::trim).toList();
+    }
+    if (value instanceof String indexes) {
+      return Arrays.stream(indexes.split(",")).map(String::trim).filter(index -> !index.isEmpty()).toList();
+    }
+    throw new SourceException(String.format("Config '%s' must be a list of properties.", INDEXES_KEY));
+  }
+
+  /**
+   * Parses the content encodings, either a list or a comma-separated string.
+   */
+  private List<String> getContentEncodings(Object value, List<String> defaultValue) {
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value instanceof List<?> encodings) {
+      return encodings.stream().map(String::valueOf).map(String::trim).toList();
+    }
+    if (value instanceof String encodings) {
+      return Arrays.stream(encodings.split(",")).map(String::trim).filter(encoding -> !encoding.isEmpty()).toList();
+    }
+    throw new SourceException(String.format("Config '%s' must be a list of content encodings.", CONTENT_ENCODINGS_KEY));
+  }
+
+  /**
+   * Parses a duration that is either given in milliseconds, as a number with one of the units "ms", "s", "m" or "h"
+   * (e.g. "30s") or in ISO-8601 notation (e.g. "PT30S").
+   */
+  static Duration parseDuration(Map<?, ?> options, String key) {
+    var value = options.get(key);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Number millis) {
+      return Duration.ofMillis(millis.longValue());
+    }
+    var text = value.toString().trim();
+    try {
+      if (text.startsWith("P") || text.startsWith("p")) {
+        return Duration.parse(text);
+      }
+      var matcher = DURATION_PATTERN.matcher(text);
+      if (matcher.matches()) {
+        var amount = Long.parseLong(matcher.group(1));
+        return switch (Objects.requireNonNullElse(matcher.group(2), "ms")) {
+          case "s" -> Duration.ofSeconds(amount);
+          case "m" -> Duration.ofMinutes(amount);
+          case "h" -> Duration.ofHours(amount);
+          default -> Duration.ofMillis(amount);
+        };
+      }
+    } catch (DateTimeParseException | NumberFormatException e) {
+      // handled below
+    }
+    throw new SourceException(String.format("Config '%s' is not a valid duration: %s", key, text));
+  }
+
   private void validateBasic(Model model, Map<String, Object> options) {
     if (model == null) {
       throw new SourceException("Model can't be null.");
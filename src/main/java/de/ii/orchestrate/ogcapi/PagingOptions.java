@@ -0,0 +1,27 @@
+package de.ii.orchestrate.ogcapi;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for paging through large feature collections.
+ */
+@Value
+@Builder(toBuilder = true)
+public class PagingOptions {
+
+  /**
+   * The maximum number of pages that are requested concurrently, once the first page of a collection request reports
+   * the number of matching features and the "next" link has an "offset" parameter. The pages are requested one after
+   * the other by following the "next" links, if 1.
+   */
+  @Builder.Default
+  int concurrency = 1;
+
+  /**
+   * Emit the features of concurrently requested pages in the order of the pages. Otherwise, the features are emitted
+   * as soon as they have been received.
+   */
+  @Builder.Default
+  boolean ordered = true;
+}
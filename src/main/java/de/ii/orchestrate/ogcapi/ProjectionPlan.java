@@ -0,0 +1,219 @@
+package de.ii.orchestrate.ogcapi;
+
+import static java.util.stream.Collectors.joining;
+
+import graphql.com.google.common.collect.ImmutableList;
+import graphql.com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.Relation;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * The projection of GeoJSON features onto a tree of selected properties. A plan is compiled once per object type and
+ * property selection, the type checks on the model are resolved at that point. The {@link GeoJsonDecoder} asks the
+ * plan which members of a feature are needed and skips all other members while parsing, selected values are written
+ * directly into the slots of a {@link FeatureBuilder}.
+ */
+class ProjectionPlan {
+
+  private static final List<String> SCALAR_TYPES = List.of("Boolean", "Double", "Float", "Integer", "Long", "String");
+
+  private final String[] keys;
+  private final Projection[] projections;
+  private final int identifierSlot;
+  private final boolean[] geometrySlots;
+  private final Set<String> geometryKeys;
+  private final Map<String, Integer> slots;
+
+  private ProjectionPlan(List<String> keys, List<Projection> projections, int identifierSlot,
+                         Set<String> geometryKeys) {
+    this.keys = keys.toArray(String[]::new);
+    this.projections = projections.toArray(Projection[]::new);
+    this.identifierSlot = identifierSlot;
+    this.geometrySlots = new boolean[this.keys.length];
+    this.geometryKeys = geometryKeys;
+    this.slots = new HashMap<>();
+    for (int i = 0; i < this.keys.length; i++) {
+      slots.put(this.keys[i], i);
+      geometrySlots[i] = geometryKeys.contains(this.keys[i]);
+    }
+  }
+
+  static ProjectionPlan compile(Model model, List<SelectedProperty> selectedProperties) {
+    Map<String, SelectedProperty> selection = new LinkedHashMap<>();
+    selectedProperties.forEach(selectedProperty ->
+        selection.putIfAbsent(selectedProperty.getProperty().getName(), selectedProperty));
+
+    List<String> keys = new ArrayList<>();
+    List<Projection> projections = new ArrayList<>();
+    int identifierSlot = -1;
+    Set<String> geometryKeys = new HashSet<>();
+    for (var selectedProperty : selection.values()) {
+      var property = selectedProperty.getProperty();
+      Projection projection;
+      if (property instanceof Attribute attribute) {
+        if (attribute.getType() instanceof GeometryType) {
+          projection = value -> value;
+          geometryKeys.add(attribute.getName());
+        } else if (SCALAR_TYPES.contains(attribute.getType().getName())) {
+          projection = value -> value;
+        } else {
+          projection = value -> {
+            throw new SourceException(
+                String.format("Unsupported attribute type: %s", attribute.getType().getName()));
+          };
+        }
+      } else if (property instanceof Relation relation) {
+        projection = new RelationProjection(compile(model, selectedProperty.getSelectedProperties().stream().toList()),
+            getTargetIdentityProperty(model, relation));
+      } else {
+        continue;
+      }
+      if (property.isIdentifier() && identifierSlot < 0) {
+        identifierSlot = keys.size();
+      }
+      keys.add(property.getName());
+      projections.add(projection);
+    }
+    return new ProjectionPlan(keys, projections, identifierSlot, Set.copyOf(geometryKeys));
+  }
+
+  /**
+   * Returns a key that is identical for equal object types and property selections, used to cache compiled plans.
+   */
+  static String getCacheKey(ObjectType objectType, List<SelectedProperty> selectedProperties) {
+    return objectType.getName() + ":" + getSelectionKey(selectedProperties);
+  }
+
+  private static String getSelectionKey(List<SelectedProperty> selectedProperties) {
+    return selectedProperties.stream()
+        .map(selectedProperty -> selectedProperty.getSelectedProperties().isEmpty() ?
+            selectedProperty.getProperty().getName() :
+            String.format("%s(%s)", selectedProperty.getProperty().getName(),
+                getSelectionKey(selectedProperty.getSelectedProperties().stream().toList())))
+        .collect(joining(","));
+  }
+
+  private static String getTargetIdentityProperty(Model model, Relation relation) {
+    var target = model.getObjectType(relation.getTarget());
+    return target == null || target.getIdentityProperties().isEmpty() ? null :
+        target.getIdentityProperties().get(0).getName();
+  }
+
+  /**
+   * Returns whether the member of the "properties" object of a feature is selected.
+   */
+  boolean isSelected(String member) {
+    return slots.containsKey(member);
+  }
+
+  /**
+   * Returns whether the primary geometry of a feature is needed, i.e. a geometry attribute is selected that may not be
+   * present in the "properties" object.
+   */
+  boolean needsGeometry() {
+    return !geometryKeys.isEmpty();
+  }
+
+  /**
+   * Returns whether the member of the "properties" object of a feature is a selected geometry attribute.
+   */
+  boolean isGeometry(String member) {
+    return geometryKeys.contains(member);
+  }
+
+  FeatureBuilder newFeature() {
+    return new FeatureBuilder();
+  }
+
+  /**
+   * Projects a feature that has already been materialized, e.g. an object that is embedded in a relation.
+   */
+  Map<String, Object> project(Object featureId, Map<?, ?> featureProperties) {
+    var feature = newFeature();
+    feature.id(featureId);
+    featureProperties.forEach((key, value) -> feature.property(key.toString(), value));
+    return feature.build();
+  }
+
+  class FeatureBuilder {
+
+    private final Object[] values = new Object[keys.length];
+    private Object featureId;
+    private Object geometry;
+
+    void id(Object featureId) {
+      this.featureId = featureId;
+    }
+
+    void geometry(Object geometry) {
+      this.geometry = geometry;
+    }
+
+    void property(String member, Object value) {
+      var slot = slots.get(member);
+      if (slot != null) {
+        values[slot] = value;
+      }
+    }
+
+    Map<String, Object> build() {
+      var builder = ImmutableMap.<String, Object>builderWithExpectedSize(keys.length);
+      for (int i = 0; i < keys.length; i++) {
+        Object value;
+        if (i == identifierSlot && featureId != null) {
+          value = featureId;
+        } else if (values[i] != null) {
+          value = projections[i].apply(values[i]);
+        } else if (geometrySlots[i] && (geometry instanceof Geometry ||
+            geometry instanceof Map<?, ?> geometryMap && !geometryMap.isEmpty())) {
+          // use the primary geometry as fallback for each geometry attribute that is not a member of "properties"
+          value = geometry;
+        } else {
+          continue;
+        }
+        builder.put(keys[i], value);
+      }
+      return builder.build();
+    }
+  }
+
+  private interface Projection {
+
+    Object apply(Object value);
+  }
+
+  private record RelationProjection(ProjectionPlan target, String targetIdentityProperty) implements Projection {
+
+    @Override
+    public Object apply(Object value) {
+      if (value instanceof List<?> values) {
+        var listBuilder = ImmutableList.<Map<String, Object>>builder();
+        values.forEach(reference -> listBuilder.add(projectReference(reference)));
+        return listBuilder.build();
+      }
+      return projectReference(value);
+    }
+
+    private Map<String, Object> projectReference(Object reference) {
+      if (reference instanceof Map<?, ?> referenceProperties) {
+        return target.project(null, referenceProperties);
+      } else if (reference instanceof String && targetIdentityProperty != null) {
+        return target.project(null, ImmutableMap.of(targetIdentityProperty, reference));
+      }
+      throw new SourceException(String.format("Unsupported value type: %s", reference.getClass().getSimpleName()));
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options of the local replica of a collection.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ReplicaOptions {
+
+  /**
+   * The queryables with an index, in addition to the identity property. Only "equals" filters on indexed properties
+   * are evaluated by the replica.
+   */
+  @Builder.Default
+  List<String> indexes = List.of();
+
+  /**
+   * The time after which the replica is loaded again.
+   */
+  @Builder.Default
+  Duration refreshInterval = Duration.ofHours(1);
+
+  /**
+   * The number of features per page that is requested to load the replica.
+   */
+  @Builder.Default
+  int pageSize = 1000;
+}
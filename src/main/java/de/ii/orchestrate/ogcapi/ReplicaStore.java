@@ -0,0 +1,226 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.dotwebstack.orchestrate.source.SourceException;
+
+/**
+ * An immutable snapshot of the features of a collection. The features are stored as GeoJSON in a memory-mapped
+ * temporary file, as they have been received, so that they are neither held on the heap nor re-encoded, and they are
+ * decoded with the projection plan of each request. The store has a hash index on the identity property and on each
+ * indexed property, which maps the values to the features. Arrays of values, e.g. the keys of a relation, are indexed
+ * element by element.
+ */
+final class ReplicaStore implements AutoCloseable {
+
+  private final String idProperty;
+  private final FileChannel channel;
+  private final ByteBuffer features;
+  private final int[] offsets;
+  private final int[] lengths;
+  private final Map<String, Integer> ids;
+  private final Map<String, Map<String, int[]>> indexes;
+
+  private ReplicaStore(String idProperty, FileChannel channel, ByteBuffer features, int[] offsets, int[] lengths,
+                       Map<String, Integer> ids, Map<String, Map<String, int[]>> indexes) {
+    this.idProperty = idProperty;
+    this.channel = channel;
+    this.features = features;
+    this.offsets = offsets;
+    this.lengths = lengths;
+    this.ids = ids;
+    this.indexes = indexes;
+  }
+
+  static Builder builder(ObjectMapper mapper, String idProperty, List<String> indexedProperties) {
+    return new Builder(mapper, idProperty, indexedProperties);
+  }
+
+  int size() {
+    return offsets.length;
+  }
+
+  /**
+   * The GeoJSON of the feature with the identifier, {@code null} if there is no such feature.
+   */
+  ByteBuffer get(String id) {
+    var feature = ids.get(id);
+    return feature != null ? getFeature(feature) : null;
+  }
+
+  /**
+   * Whether the property is the identity property or an indexed property.
+   */
+  boolean isIndexed(String property) {
+    return idProperty.equals(property) || indexes.containsKey(property);
+  }
+
+  /**
+   * The GeoJSON of the features whose indexed properties have all of the given values, in the order of the
+   * collection. Without values, all features are returned.
+   */
+  List<ByteBuffer> find(Map<String, String> values) {
+    int[] matches = null;
+    for (var entry : values.entrySet()) {
+      int[] features;
+      if (idProperty.equals(entry.getKey())) {
+        var feature = ids.get(entry.getValue());
+        features = feature != null ? new int[] {feature} : new int[0];
+      } else {
+        features = indexes.get(entry.getKey()).getOrDefault(entry.getValue(), new int[0]);
+      }
+      matches = matches == null ? features : intersect(matches, features);
+    }
+    var selected = matches != null ? IntStream.of(matches) : IntStream.range(0, offsets.length);
+    return selected.mapToObj(this::getFeature).toList();
+  }
+
+  /**
+   * Closes and deletes the file. The features that are still being decoded remain readable until they are garbage
+   * collected.
+   */
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // nothing to release
+    }
+  }
+
+  private ByteBuffer getFeature(int feature) {
+    return features.slice(offsets[feature], lengths[feature]);
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    return IntStream.of(a).filter(feature -> Arrays.binarySearch(b, feature) >= 0).toArray();
+  }
+
+  /**
+   * Writes the features of a collection to a temporary file and indexes them.
+   */
+  static final class Builder implements AutoCloseable {
+
+    private final ObjectMapper mapper;
+    private final String idProperty;
+    private final FileChannel channel;
+    private final OutputStream output;
+    private final List<Integer> offsets = new ArrayList<>();
+    private final List<Integer> lengths = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<String, Map<String, List<Integer>>> indexes = new HashMap<>();
+    private long size;
+    private boolean built;
+
+    private Builder(ObjectMapper mapper, String idProperty, List<String> indexedProperties) {
+      this.mapper = mapper;
+      this.idProperty = idProperty;
+      indexedProperties.forEach(property -> indexes.put(property, new HashMap<>()));
+      try {
+        var file = Files.createTempFile("ogcapi-replica-", ".json");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+      } catch (IOException e) {
+        throw new SourceException("Could not create the file of a replica.", e);
+      }
+      this.output = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+    }
+
+    /**
+     * Adds the bytes of a GeoJSON feature, the bytes are written as they are and only parsed to index the feature.
+     */
+    Builder add(byte[] bytes) {
+      JsonNode feature;
+      try {
+        output.write(bytes);
+        feature = mapper.readTree(bytes);
+      } catch (IOException e) {
+        throw new SourceException("Could not write the features of a replica.", e);
+      }
+      if (size + bytes.length > Integer.MAX_VALUE) {
+        throw new SourceException("The features of a replica exceed the maximum size of 2 GB.");
+      }
+      var index = offsets.size();
+      offsets.add((int) size);
+      lengths.add(bytes.length);
+      size += bytes.length;
+
+      var properties = feature.path(GeoJsonDecoder.PROPERTIES);
+      var id = properties.path(idProperty);
+      // the identifier of the feature, if the identity property is not a property of the feature
+      ids.putIfAbsent((id.isValueNode() ? id : feature.path(GeoJsonDecoder.ID)).asText(), index);
+      indexes.forEach((property, values) -> getValues(properties, property)
+          .forEach(value -> values.computeIfAbsent(value, key -> new ArrayList<>()).add(index)));
+      return this;
+    }
+
+    ReplicaStore build() {
+      try {
+        output.flush();
+        var features = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        built = true;
+        Map<String, Map<String, int[]>> compacted = new HashMap<>();
+        indexes.forEach((property, index) -> {
+          Map<String, int[]> values = new HashMap<>();
+          index.forEach((value, matches) -> values.put(value, matches.stream().mapToInt(Integer::intValue).toArray()));
+          compacted.put(property, values);
+        });
+        return new ReplicaStore(idProperty, channel, features,
+            offsets.stream().mapToInt(Integer::intValue).toArray(),
+            lengths.stream().mapToInt(Integer::intValue).toArray(), Map.copyOf(ids), Map.copyOf(compacted));
+      } catch (IOException e) {
+        close();
+        throw new SourceException("Could not map the features of a replica.", e);
+      }
+    }
+
+    /**
+     * Discards the features, if the replica has not been built.
+     */
+    @Override
+    public void close() {
+      if (built) {
+        return;
+      }
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // nothing to release
+      }
+    }
+
+    /**
+     * The values of a property as text, the segments of a nested path are separated by a dot.
+     */
+    private static List<String> getValues(JsonNode properties, String property) {
+      var node = properties;
+      for (var segment : property.split("\\.")) {
+        node = node.path(segment);
+      }
+      if (node.isArray()) {
+        List<String> values = new ArrayList<>();
+        node.forEach(element -> {
+          if (element.isValueNode() && !element.isNull()) {
+            values.add(element.asText());
+          }
+        });
+        return values;
+      }
+      return node.isValueNode() && !node.isNull() ? List.of(node.asText()) : List.of();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import reactor.core.publisher.Flux;
+
+/**
+ * Deduplicates identical requests that are in flight at the same time. The key identifies the request (method, URI,
+ * body) and the projection of the features, so all subscribers of an exchange share a single request to the API and a
+ * single decoding of the response.
+ *
+ * <p>Subscribers can join an exchange until it emits its first feature. The features are not retained, so an exchange
+ * holds no more than the prefetched features of a page; a subscriber that comes later sends its own request. The
+ * request is cancelled, when all subscribers have cancelled. Once the first feature has been emitted or the request
+ * has terminated, the exchange is removed, so errors are not cached and a subsequent request is issued again.
+ */
+class RequestCoalescer {
+
+  private final Map<String, Exchange> exchanges = new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Returns the exchange that is in flight for the key or starts a new one, when the returned features are subscribed.
+   */
+  Exchange exchange(String key, Supplier<GeoJsonDecoder> decoders,
+                    Function<GeoJsonDecoder, Flux<Map<String, Object>>> request) {
+    return exchange(key, decoders, request, UnaryOperator.identity());
+  }
+
+  /**
+   * Returns the exchange that is in flight for the key or starts a new one, when the returned features are subscribed.
+   * The policy is applied to the attempts of the request, e.g. to retry it; each attempt has its own decoder.
+   */
+  Exchange exchange(String key, Supplier<GeoJsonDecoder> decoders,
+                    Function<GeoJsonDecoder, Flux<Map<String, Object>>> request,
+                    UnaryOperator<Flux<Map<String, Object>>> policy) {
+    return exchanges.computeIfAbsent(key, k -> new Exchange(k, decoders, request, policy));
+  }
+
+  /**
+   * The number of subscribers that joined the shared request of an exchange that was already in flight.
+   */
+  long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  int getInFlightCount() {
+    return exchanges.size();
+  }
+
+  final class Exchange {
+
+    private final String key;
+    private final Flux<Map<String, Object>> request;
+    private final Flux<Map<String, Object>> features;
+    private volatile boolean emitting;
+    private int subscribers;
+    private volatile GeoJsonDecoder decoder;
+
+    private Exchange(String key, Supplier<GeoJsonDecoder> decoders,
+                     Function<GeoJsonDecoder, Flux<Map<String, Object>>> request,
+                     UnaryOperator<Flux<Map<String, Object>>> policy) {
+      // the decoder of the attempt that has received the response completely
+      var attempts = Flux.defer(() -> {
+        var attemptDecoder = decoders.get();
+        return request.apply(attemptDecoder).doOnComplete(() -> decoder = attemptDecoder);
+      });
+      this.key = key;
+      this.request = Flux.defer(() -> policy.apply(attempts));
+      this.features = this.request
+          .doOnNext(feature -> started())
+          .doFinally(signal -> {
+            exchanges.remove(key, this);
+            terminated();
+          })
+          .publish()
+          .refCount();
+    }
+
+    Flux<Map<String, Object>> getFeatures() {
+      Publisher<Map<String, Object>> join = this::join;
+      return Flux.from(join);
+    }
+
+    private void join(Subscriber<? super Map<String, Object>> subscriber) {
+      synchronized (this) {
+        if (!emitting) {
+          if (subscribers++ > 0) {
+            coalesced.increment();
+          }
+          features.subscribe(subscriber);
+          return;
+        }
+      }
+      request.subscribe(subscriber);
+    }
+
+    /**
+     * The shared request has terminated or has been cancelled, a subsequent subscriber issues it again.
+     */
+    private synchronized void terminated() {
+      subscribers = 0;
+    }
+
+    private void started() {
+      if (!emitting) {
+        synchronized (this) {
+          emitting = true;
+        }
+        exchanges.remove(key, this);
+      }
+    }
+
+    /**
+     * The "next" link of the response, available once the features have been received completely.
+     */
+    String getNextLink() {
+      var current = decoder;
+      return current != null ? current.getNextLink() : null;
+    }
+
+    /**
+     * The number of matching features reported by the response, available once the features have been received
+     * completely.
+     */
+    Long getNumberMatched() {
+      var current = decoder;
+      return current != null ? current.getNumberMatched() : null;
+    }
+  }
+}
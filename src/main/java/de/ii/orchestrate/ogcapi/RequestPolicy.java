@@ -0,0 +1,227 @@
+package de.ii.orchestrate.ogcapi;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Applies timeouts, retries with jittered exponential backoff and hedged requests to the exchanges of a source. All
+ * requests of a source are idempotent, they are either GET requests or POST requests of Ad-hoc Queries.
+ *
+ * <p>Each attempt decodes the response with its own decoder. A request is only retried, if no feature has been
+ * emitted yet, so that a subscriber never receives a feature twice. A hedged request is sent, once the latency of the
+ * first attempt exceeds the observed percentile of the latencies of the operation; the attempt that responds first is
+ * used and the other one is cancelled. The latency is the time until the first feature or the end of the response.
+ *
+ * <p>If the source has a circuit breaker, an attempt fails fast while the circuit is open. If the source has a
+ * concurrency limiter, an attempt waits for a permit before it is sent; the time in the queue is not part of the
+ * latency and the timeout.
+ */
+class RequestPolicy {
+
+  static final String PRIMARY = "primary";
+  static final String HEDGE = "hedge";
+
+  private final ResilienceOptions options;
+  private final ConcurrencyLimiter limiter;
+  private final CircuitBreaker circuitBreaker;
+  private final OgcApiFeaturesMetrics metrics;
+  private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+  RequestPolicy(ResilienceOptions options, OgcApiFeaturesMetrics metrics) {
+    this(options, null, null, metrics);
+  }
+
+  RequestPolicy(ResilienceOptions options, ConcurrencyLimiter limiter, CircuitBreaker circuitBreaker,
+                OgcApiFeaturesMetrics metrics) {
+    this.options = options;
+    this.limiter = limiter;
+    this.circuitBreaker = circuitBreaker;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Applies the policy to the attempts of an exchange, each subscription to the attempts issues a new request.
+   */
+  <T> Flux<T> apply(Flux<T> attempts, String collectionId, String operation, String method) {
+    var latency = latencies.computeIfAbsent(operation, key -> new LatencyTracker());
+    var timeout = options.getTimeout(operation);
+    var attempt = Flux.defer(() -> {
+      if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+        return Flux.error(new SourceException(String.format("The API is unavailable, requests fail fast until it " +
+            "has recovered. Collection: %s, operation: %s", collectionId, operation)));
+      }
+      return limiter != null ?
+          limiter.acquire(operation).flatMapMany(permit -> send(attempts, permit, latency, timeout, collectionId,
+              operation, method)) :
+          send(attempts, null, latency, timeout, collectionId, operation, method);
+    });
+    var hedged = options.isHedging() ? hedge(attempt, latency, collectionId, operation, method) : attempt;
+    var retried = options.getMaxRetries() <= 0 ? hedged : Flux.defer(() -> {
+      var emitted = new AtomicBoolean();
+      return hedged.doOnNext(item -> emitted.set(true))
+          .retryWhen(Retry.backoff(options.getMaxRetries(), options.getMinBackoff())
+              .maxBackoff(options.getMaxBackoff())
+              .jitter(options.getJitter())
+              .filter(error -> !emitted.get() && isTransient(error))
+              .doBeforeRetry(signal -> metrics.requestRetry(collectionId, operation, method,
+                  getReason(signal.failure())))
+              .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    });
+    return retried.onErrorMap(error -> error instanceof TransientStatusException || error instanceof TimeoutException,
+        error -> error instanceof TimeoutException ?
+            new SourceException(String.format("No response from the API within %s. Collection: %s, operation: %s",
+                timeout, collectionId, operation)) :
+            new SourceException(error.getMessage()));
+  }
+
+  /**
+   * Sends an attempt and reports its outcome to the concurrency limiter and the circuit breaker.
+   */
+  private <T> Flux<T> send(Flux<T> attempts, ConcurrencyLimiter.Permit permit, LatencyTracker latency,
+                           Duration timeout, String collectionId, String operation, String method) {
+    return Flux.defer(() -> {
+      var start = System.nanoTime();
+      var responded = new AtomicBoolean();
+      var timed = attempts.doOnEach(signal -> {
+        if (!signal.isOnError() && responded.compareAndSet(false, true)) {
+          latency.record(System.nanoTime() - start);
+        }
+      });
+      var limited = timeout == null ? timed : timed.timeout(Mono.delay(timeout), item -> Mono.never())
+          .doOnError(TimeoutException.class, error -> metrics.requestTimeout(collectionId, operation, method));
+      if (permit == null && circuitBreaker == null) {
+        return limited;
+      }
+      var outcome = new AtomicBoolean();
+      return limited
+          .doOnEach(signal -> {
+            if ((signal.isOnNext() || signal.isOnComplete() || signal.isOnError()) &&
+                outcome.compareAndSet(false, true)) {
+              var failed = signal.isOnError() && isTransient(signal.getThrowable());
+              if (permit != null) {
+                if (failed) {
+                  permit.onDropped();
+                } else if (!signal.isOnError()) {
+                  permit.onSuccess(System.nanoTime() - start);
+                }
+              }
+              if (circuitBreaker != null) {
+                if (failed) {
+                  circuitBreaker.onFailure();
+                } else {
+                  circuitBreaker.onSuccess();
+                }
+              }
+            }
+          })
+          .doFinally(signal -> {
+            if (circuitBreaker != null && outcome.compareAndSet(false, true)) {
+              circuitBreaker.onCancel();
+            }
+            if (permit != null) {
+              permit.release();
+            }
+          });
+    });
+  }
+
+  private <T> Flux<T> hedge(Flux<T> attempt, LatencyTracker latency, String collectionId, String operation,
+                            String method) {
+    return Flux.defer(() -> {
+      var delay = latency.getPercentile(options.getHedgePercentile());
+      if (delay == null) {
+        return attempt;
+      }
+      var hedgeSent = new AtomicBoolean();
+      var winner = new AtomicReference<String>();
+      return Flux.firstWithSignal(
+          attempt.doOnEach(signal -> responded(winner, PRIMARY, hedgeSent, collectionId, operation, method)),
+          attempt.delaySubscription(Duration.ofNanos(Math.max(delay, options.getMinHedgeDelay().toNanos())))
+              .doOnSubscribe(subscription -> hedgeSent.set(true))
+              .doOnEach(signal -> responded(winner, HEDGE, hedgeSent, collectionId, operation, method)));
+    });
+  }
+
+  private void responded(AtomicReference<String> winner, String attempt, AtomicBoolean hedgeSent,
+                         String collectionId, String operation, String method) {
+    if (winner.compareAndSet(null, attempt) && hedgeSent.get()) {
+      metrics.hedgedRequest(collectionId, operation, method, attempt);
+    }
+  }
+
+  /**
+   * Server errors, "429 Too Many Requests", connection errors and timeouts are transient.
+   */
+  static boolean isTransient(Throwable error) {
+    return error instanceof TransientStatusException || error instanceof IOException ||
+        error instanceof TimeoutException || error instanceof ReadTimeoutException;
+  }
+
+  private static String getReason(Throwable error) {
+    if (error instanceof TransientStatusException) {
+      return "status";
+    }
+    return error instanceof IOException ? "connection" : "timeout";
+  }
+
+  /**
+   * A response with a status that indicates a transient problem of the API, i.e. a server error or "429 Too Many
+   * Requests". The error is reported as a {@link SourceException}, if the request is not retried.
+   */
+  static final class TransientStatusException extends RuntimeException {
+
+    TransientStatusException(String message) {
+      super(message, null, false, false);
+    }
+
+    static boolean isTransient(int statusCode) {
+      return statusCode >= 500 || statusCode == 429;
+    }
+  }
+
+  /**
+   * The latencies of the most recent requests of an operation.
+   */
+  static final class LatencyTracker {
+
+    private static final int SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    private final long[] samples = new long[SIZE];
+    private int next;
+    private int count;
+
+    synchronized void record(long nanos) {
+      samples[next] = nanos;
+      next = (next + 1) % SIZE;
+      count = Math.min(count + 1, SIZE);
+    }
+
+    /**
+     * The percentile of the recorded latencies in nanoseconds, {@code null} if too few latencies have been recorded.
+     */
+    Long getPercentile(double percentile) {
+      long[] sorted;
+      synchronized (this) {
+        if (count < MIN_SAMPLES) {
+          return null;
+        }
+        sorted = Arrays.copyOf(samples, count);
+      }
+      Arrays.sort(sorted);
+      var index = (int) Math.ceil(percentile * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+  }
+}
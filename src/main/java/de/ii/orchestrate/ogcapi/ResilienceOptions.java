@@ -0,0 +1,80 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for timeouts, retries and hedged requests of a source.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ResilienceOptions {
+
+  /**
+   * The maximum time until the first feature of an object request is received. Not limited, if {@code null}.
+   */
+  Duration findOneTimeout;
+
+  /**
+   * The maximum time until the first feature of a page of a collection request is received. Not limited, if
+   * {@code null}.
+   */
+  Duration findTimeout;
+
+  /**
+   * The maximum time until the first feature of a batch request is received. Not limited, if {@code null}.
+   */
+  Duration findBatchTimeout;
+
+  /**
+   * The maximum number of retries of a request that failed with a server error, "429 Too Many Requests", a
+   * connection error or a timeout before a feature has been received.
+   */
+  @Builder.Default
+  int maxRetries = 2;
+
+  /**
+   * The backoff before the first retry, the backoff doubles with each retry.
+   */
+  @Builder.Default
+  Duration minBackoff = Duration.ofMillis(100);
+
+  /**
+   * The maximum backoff before a retry.
+   */
+  @Builder.Default
+  Duration maxBackoff = Duration.ofSeconds(2);
+
+  /**
+   * The jitter factor of the backoff, between 0 and 1.
+   */
+  @Builder.Default
+  double jitter = 0.5;
+
+  /**
+   * Send a second, identical request, if the first request has not received a response after the observed
+   * {@code hedgePercentile} of the latencies, and use the response that arrives first.
+   */
+  boolean hedging;
+
+  /**
+   * The percentile of the observed latencies after which a hedged request is sent.
+   */
+  @Builder.Default
+  double hedgePercentile = 0.95;
+
+  /**
+   * The minimum delay of a hedged request.
+   */
+  @Builder.Default
+  Duration minHedgeDelay = Duration.ofMillis(10);
+
+  Duration getTimeout(String operation) {
+    return switch (operation) {
+      case OgcApiFeaturesMetrics.FIND_ONE -> findOneTimeout;
+      case OgcApiFeaturesMetrics.FIND_BATCH -> findBatchTimeout;
+      default -> findTimeout;
+    };
+  }
+}
@@ -0,0 +1,211 @@
+package de.ii.orchestrate.ogcapi;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.RejectedExecutionException;
+import org.dotwebstack.orchestrate.source.SourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Limits the size of the response bodies that are received at the pace of the decoding. A response body that exceeds
+ * the maximum size is either rejected or the remaining chunks are spilled to a temporary file as fast as they are
+ * received, so that the connection is released and the received data is not held on the heap. The file is created and
+ * written on a worker of the bounded elastic scheduler, so that the event loop is not blocked by the file I/O. The
+ * spilled chunks are decoded from the memory-mapped file once the response is complete and all chunks have been
+ * written. The size is the size of the body as transferred, i.e. before the decompression.
+ */
+class ResponseSizeGuard {
+
+  static final String FAILED = "failed";
+  static final String SPILLED = "spilled";
+
+  private static final int REGION_SIZE = 1 << 20;
+
+  private final long maxResponseSize;
+  private final boolean spill;
+
+  ResponseSizeGuard(long maxResponseSize, boolean spill) {
+    this.maxResponseSize = maxResponseSize;
+    this.spill = spill;
+  }
+
+  /**
+   * Guards the chunks of a response body. Without spilling, a response is rejected before its body is read, if the
+   * "Content-Length" header exceeds the maximum size.
+   */
+  Flux<ByteBuf> guard(Flux<ByteBuf> content, String contentLength, String uri,
+                      OgcApiFeaturesMetrics.Request requestMetrics) {
+    if (!spill && getLength(contentLength) > maxResponseSize) {
+      requestMetrics.responseOversized(FAILED, 0);
+      return Flux.error(tooLarge(uri));
+    }
+    return Flux.defer(() -> {
+      var state = new State();
+      return content.<ByteBuf>handle((chunk, sink) -> {
+            if (state.writer == null && state.received + chunk.readableBytes() <= maxResponseSize) {
+              state.received += chunk.readableBytes();
+              sink.next(chunk);
+            } else if (!spill) {
+              requestMetrics.responseOversized(FAILED, 0);
+              sink.error(tooLarge(uri));
+            } else if (state.error != null) {
+              sink.error(spillFailed(uri, state.error));
+            } else {
+              state.spill(chunk);
+            }
+          })
+          .concatWith(Flux.defer(() -> {
+            if (state.writer == null) {
+              return Flux.empty();
+            }
+            return state.written().thenMany(Flux.defer(() -> {
+              if (state.error != null) {
+                return Flux.error(spillFailed(uri, state.error));
+              }
+              requestMetrics.responseOversized(SPILLED, state.spilled);
+              return state.read(uri);
+            }));
+          }))
+          .doFinally(signal -> state.close());
+    });
+  }
+
+  private static long getLength(String contentLength) {
+    try {
+      return contentLength != null ? Long.parseLong(contentLength.trim()) : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static SourceException spillFailed(String uri, Exception error) {
+    return new SourceException(String.format("Could not spill response to disk. URI: %s", uri), error);
+  }
+
+  private SourceException tooLarge(String uri) {
+    return new SourceException(String.format("Response exceeds the maximum size of %d bytes. URI: %s",
+        maxResponseSize, uri));
+  }
+
+  /**
+   * The chunks of a response body that have been received and spilled. The file is only accessed by the worker, the
+   * spilled chunks are read once the worker has written all of them.
+   */
+  private static final class State {
+
+    private long received;
+    private Scheduler.Worker writer;
+    private volatile Exception error;
+    private long spilled;
+    private FileChannel channel;
+
+    /**
+     * Hands a chunk off to the worker, the chunk is retained until it has been written.
+     */
+    private void spill(ByteBuf chunk) {
+      if (writer == null) {
+        writer = Schedulers.boundedElastic().createWorker();
+      }
+      chunk.retain();
+      try {
+        writer.schedule(() -> {
+          try {
+            if (error == null) {
+              write(chunk);
+            }
+          } catch (IOException e) {
+            error = e;
+          } finally {
+            chunk.release();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        chunk.release();
+        error = e;
+      }
+    }
+
+    /**
+     * Completes, when the chunks that have been handed off to the worker have been written.
+     */
+    private Mono<Void> written() {
+      return Mono.create(sink -> {
+        try {
+          writer.schedule(sink::success);
+        } catch (RejectedExecutionException e) {
+          error = e;
+          sink.success();
+        }
+      });
+    }
+
+    private void write(ByteBuf chunk) throws IOException {
+      if (channel == null) {
+        var file = Files.createTempFile("ogcapi-response-", ".json");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+      }
+      var index = chunk.readerIndex();
+      var end = chunk.writerIndex();
+      while (index < end) {
+        var written = chunk.getBytes(index, channel, spilled, end - index);
+        index += written;
+        spilled += written;
+      }
+    }
+
+    /**
+     * The spilled chunks as regions of the memory-mapped file, a region is only mapped on demand.
+     */
+    private Flux<ByteBuf> read(String uri) {
+      return Flux.generate(() -> 0L, (position, sink) -> {
+        if (position >= spilled) {
+          sink.complete();
+          return position;
+        }
+        var length = Math.min(REGION_SIZE, spilled - position);
+        try {
+          sink.next(Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, position, length)));
+        } catch (IOException e) {
+          sink.error(new SourceException(String.format("Could not read spilled response. URI: %s", uri), e));
+        }
+        return position + length;
+      });
+    }
+
+    /**
+     * Closes and deletes the file, once the chunks that have been handed off have been written. A region that is still
+     * mapped remains valid until it is garbage collected.
+     */
+    private void close() {
+      if (writer == null) {
+        return;
+      }
+      try {
+        writer.schedule(() -> {
+          closeChannel();
+          writer.dispose();
+        });
+      } catch (RejectedExecutionException e) {
+        closeChannel();
+      }
+    }
+
+    private void closeChannel() {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // nothing to release
+        }
+      }
+    }
+  }
+}
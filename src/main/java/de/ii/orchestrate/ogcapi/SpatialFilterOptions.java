@@ -0,0 +1,30 @@
+package de.ii.orchestrate.ogcapi;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options for "intersects" filters with large filter geometries.
+ */
+@Value
+@Builder(toBuilder = true)
+public class SpatialFilterOptions {
+
+  /**
+   * The maximum edge length of a tile in the units of the CRS of the filter geometry. A filter geometry with a larger
+   * envelope is split into tiles that are requested in parallel. Filter geometries are not split, if {@code null}.
+   */
+  Double tileSize;
+
+  /**
+   * The maximum number of tiles of a filter geometry, the tiles are enlarged, if the tile size results in more tiles.
+   */
+  @Builder.Default
+  int maxTiles = 64;
+
+  /**
+   * The maximum number of tiles that are requested concurrently.
+   */
+  @Builder.Default
+  int concurrency = 4;
+}
@@ -0,0 +1,166 @@
+package de.ii.orchestrate.ogcapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * The encodings of "intersects" filters: the "bbox" parameter for axis-aligned rectangles, CQL2 JSON for Ad-hoc
+ * Queries and the decomposition of large filter geometries into tiles.
+ */
+final class SpatialFilters {
+
+  private SpatialFilters() {
+  }
+
+  /**
+   * The value of the "bbox" parameter for an envelope.
+   */
+  static String getBbox(Envelope envelope) {
+    return String.join(",", format(envelope.getMinX()), format(envelope.getMinY()), format(envelope.getMaxX()),
+        format(envelope.getMaxY()));
+  }
+
+  /**
+   * Splits a filter geometry into the parts that intersect a grid of tiles with the given edge length. The tiles are
+   * enlarged, if the grid would have more than {@code maxTiles} tiles. A tile that is covered by the geometry is a
+   * rectangle, so that it can be requested with a "bbox" parameter. Returns the geometry itself, if it fits into a
+   * single tile.
+   */
+  static List<Geometry> tile(Geometry geometry, double tileSize, int maxTiles) {
+    if (!(tileSize > 0)) {
+      return List.of(geometry);
+    }
+    var envelope = geometry.getEnvelopeInternal();
+    var max = Math.max(1, maxTiles);
+    // the tiles of a square envelope fit exactly, otherwise the tiles are enlarged until they fit
+    var size = Math.max(tileSize, Math.sqrt(envelope.getArea() / max));
+    while (getTiles(envelope.getWidth(), size) * getTiles(envelope.getHeight(), size) > max) {
+      size *= 1.1;
+    }
+    var columns = getTiles(envelope.getWidth(), size);
+    var rows = getTiles(envelope.getHeight(), size);
+    if (columns * rows <= 1) {
+      return List.of(geometry);
+    }
+    var prepared = PreparedGeometryFactory.prepare(geometry);
+    List<Geometry> tiles = new ArrayList<>();
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        var minX = envelope.getMinX() + column * size;
+        var minY = envelope.getMinY() + row * size;
+        var box = geometry.getFactory().toGeometry(new Envelope(minX, Math.min(minX + size, envelope.getMaxX()), minY,
+            Math.min(minY + size, envelope.getMaxY())));
+        Geometry tile;
+        if (prepared.covers(box)) {
+          tile = box;
+        } else if (prepared.intersects(box)) {
+          tile = geometry.intersection(box);
+        } else {
+          continue;
+        }
+        // a tile that only touches a polygonal geometry adds no features to the adjacent tiles
+        if (!tile.isEmpty() && !(geometry instanceof Polygonal && tile.getDimension() < 2)) {
+          tile.setSRID(geometry.getSRID());
+          tiles.add(tile);
+        }
+      }
+    }
+    return tiles;
+  }
+
+  /**
+   * The CQL2 JSON expression of an "intersects" filter on a property.
+   */
+  static ObjectNode getIntersectsFilter(ObjectMapper mapper, String property, Geometry geometry) {
+    var filter = mapper.createObjectNode();
+    filter.put("op", "s_intersects");
+    var args = filter.putArray("args");
+    args.addObject().put("property", property);
+    args.add(toGeoJson(mapper, geometry));
+    return filter;
+  }
+
+  private static ObjectNode toGeoJson(ObjectMapper mapper, Geometry geometry) {
+    var node = mapper.createObjectNode();
+    if (geometry instanceof GeometryCollection collection &&
+        !(collection instanceof MultiPoint || collection instanceof MultiLineString ||
+            collection instanceof MultiPolygon)) {
+      node.put("type", "GeometryCollection");
+      var geometries = node.putArray("geometries");
+      for (int i = 0; i < collection.getNumGeometries(); i++) {
+        geometries.add(toGeoJson(mapper, collection.getGeometryN(i)));
+      }
+      return node;
+    }
+    // a linear ring is encoded as a line string
+    node.put("type", geometry instanceof LineString ? "LineString" : geometry.getGeometryType());
+    var coordinates = node.putArray("coordinates");
+    if (geometry instanceof Point point) {
+      if (!point.isEmpty()) {
+        addPosition(coordinates, point.getCoordinateSequence(), 0);
+      }
+    } else if (geometry instanceof LineString line) {
+      addPositions(coordinates, line.getCoordinateSequence());
+    } else if (geometry instanceof Polygon polygon) {
+      addRings(coordinates, polygon);
+    } else {
+      for (int i = 0; i < geometry.getNumGeometries(); i++) {
+        var part = geometry.getGeometryN(i);
+        if (part instanceof Point point && !point.isEmpty()) {
+          addPosition(coordinates, point.getCoordinateSequence(), 0);
+        } else if (part instanceof LineString line) {
+          addPositions(coordinates.addArray(), line.getCoordinateSequence());
+        } else if (part instanceof Polygon polygon) {
+          addRings(coordinates.addArray(), polygon);
+        }
+      }
+    }
+    return node;
+  }
+
+  private static void addRings(ArrayNode rings, Polygon polygon) {
+    if (polygon.isEmpty()) {
+      return;
+    }
+    addPositions(rings.addArray(), polygon.getExteriorRing().getCoordinateSequence());
+    for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+      addPositions(rings.addArray(), polygon.getInteriorRingN(i).getCoordinateSequence());
+    }
+  }
+
+  private static void addPositions(ArrayNode positions, CoordinateSequence sequence) {
+    for (int i = 0; i < sequence.size(); i++) {
+      addPosition(positions, sequence, i);
+    }
+  }
+
+  private static void addPosition(ArrayNode positions, CoordinateSequence sequence, int index) {
+    var position = positions.addArray().add(sequence.getX(index)).add(sequence.getY(index));
+    if (sequence.hasZ() && !Double.isNaN(sequence.getZ(index))) {
+      position.add(sequence.getZ(index));
+    }
+  }
+
+  private static int getTiles(double extent, double size) {
+    return Math.max(1, (int) Math.ceil(extent / size));
+  }
+
+  private static String format(double value) {
+    return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+  }
+}
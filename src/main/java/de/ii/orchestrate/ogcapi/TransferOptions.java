@@ -0,0 +1,53 @@
+package de.ii.orchestrate.ogcapi;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The options to reduce the data that is transferred from the API.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TransferOptions {
+
+  /**
+   * Request features without geometry ("skipGeometry=true"), if no geometry attribute is selected.
+   */
+  @Builder.Default
+  boolean skipGeometry = true;
+
+  /**
+   * The maximum distance in the units of the response CRS by which the API may simplify geometries
+   * ("maxAllowableOffset"), if a geometry attribute is selected. Geometries are not simplified, if {@code null}.
+   */
+  Double maxAllowableOffset;
+
+  /**
+   * Detect the support of the query parameters that are not covered by a conformance class ("properties",
+   * "profile=rel-as-key", "skipGeometry", "maxAllowableOffset") with a request for each parameter. Otherwise, only the
+   * parameters that are enabled in the configuration are used.
+   */
+  @Builder.Default
+  boolean detectCapabilities = true;
+
+  /**
+   * The content encodings that are accepted for feature responses ("gzip", "deflate", "br"), an empty list to
+   * request uncompressed responses. Brotli is only accepted, if the native library is available.
+   */
+  @Builder.Default
+  List<String> contentEncodings = List.of(ContentDecompressor.GZIP, ContentDecompressor.DEFLATE,
+      ContentDecompressor.BROTLI);
+
+  /**
+   * The maximum size in bytes of a feature response body as transferred that is received at the pace of the decoding.
+   * The size is not limited, if {@code null}.
+   */
+  Long maxResponseSize;
+
+  /**
+   * Spill the remainder of a response body that exceeds {@code maxResponseSize} to a temporary file and decode it from
+   * there. Otherwise, the request is aborted.
+   */
+  boolean spillOversizedResponses;
+}
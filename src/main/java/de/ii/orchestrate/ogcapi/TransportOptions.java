@@ -0,0 +1,113 @@
+package de.ii.orchestrate.ogcapi;
+
+import io.netty.channel.ChannelOption;
+import java.time.Duration;
+import java.util.regex.Pattern;
+import lombok.Builder;
+import lombok.Value;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * The options for the HTTP transport of a source. Each source gets its own connection pool, so that a slow API cannot
+ * exhaust the connections of other sources.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TransportOptions {
+
+  private static final Pattern FEATURE_PATH = Pattern.compile("/items/[^/]+$");
+
+  /**
+   * The maximum number of connections to the API. With HTTP/2 this is the maximum number of multiplexed connections.
+   */
+  @Builder.Default
+  int maxConnections = 50;
+
+  /**
+   * The maximum number of requests that wait for a connection, -1 for no limit.
+   */
+  @Builder.Default
+  int pendingAcquireMaxCount = 1_000;
+
+  @Builder.Default
+  Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+  @Builder.Default
+  Duration maxIdleTime = Duration.ofSeconds(30);
+
+  @Builder.Default
+  Duration maxLifeTime = Duration.ofMinutes(10);
+
+  @Builder.Default
+  Duration evictionInterval = Duration.ofSeconds(30);
+
+  @Builder.Default
+  Duration connectTimeout = Duration.ofSeconds(10);
+
+  /**
+   * The maximum time without receiving data once the request has been sent.
+   */
+  @Builder.Default
+  Duration responseTimeout = Duration.ofSeconds(60);
+
+  /**
+   * Use HTTP/2 (with a fallback to HTTP/1.1), requests are multiplexed on the connections.
+   */
+  @Builder.Default
+  boolean http2 = false;
+
+  @Builder.Default
+  int maxConcurrentStreams = 100;
+
+  @Builder.Default
+  boolean keepAlive = true;
+
+  /**
+   * Record the Reactor Netty meters of the client and the connection pool in the global meter registry.
+   */
+  @Builder.Default
+  boolean metrics = true;
+
+  HttpClient createHttpClient(String apiLandingPage) {
+    var provider = ConnectionProvider.builder("ogcapi-" + apiLandingPage)
+        .maxConnections(maxConnections)
+        .pendingAcquireMaxCount(pendingAcquireMaxCount)
+        .pendingAcquireTimeout(pendingAcquireTimeout)
+        .maxIdleTime(maxIdleTime)
+        .maxLifeTime(maxLifeTime)
+        .evictInBackground(evictionInterval)
+        .metrics(metrics);
+    if (http2) {
+      provider.allocationStrategy(Http2AllocationStrategy.builder()
+          .maxConnections(maxConnections)
+          .maxConcurrentStreams(maxConcurrentStreams)
+          .build());
+    }
+
+    var client = HttpClient.create(provider.build())
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+        .responseTimeout(responseTimeout)
+        .keepAlive(keepAlive)
+        .metrics(metrics, TransportOptions::getUriTag);
+    if (http2) {
+      // HTTP/2 over TLS is negotiated with ALPN, without TLS the connection is upgraded (h2c)
+      client = apiLandingPage.startsWith("https:") ?
+          client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure() :
+          client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+    return client;
+  }
+
+  /**
+   * The value of the "uri" tag of the client meters, without query parameters and feature identifiers to bound the
+   * number of tag values.
+   */
+  static String getUriTag(String uri) {
+    var query = uri.indexOf('?');
+    var path = query >= 0 ? uri.substring(0, query) : uri;
+    return FEATURE_PATH.matcher(path).replaceFirst("/items/{featureId}");
+  }
+}
@@ -0,0 +1,37 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BatchPartitionerTest {
+
+  private static final List<String> KEYS = List.of("a", "bb", "ccc", "dddd", "eeeee");
+
+  @Test
+  void test_max_size() {
+    assertThat(BatchPartitioner.partition(KEYS, 2, Integer.MAX_VALUE, String::length, 1))
+        .containsExactly(List.of("a", "bb"), List.of("ccc", "dddd"), List.of("eeeee"));
+  }
+
+  @Test
+  void test_budget() {
+    // a,bb = 4; a,bb,ccc = 8
+    assertThat(BatchPartitioner.partition(KEYS, 10, 7, String::length, 1))
+        .containsExactly(List.of("a", "bb"), List.of("ccc"), List.of("dddd"), List.of("eeeee"));
+    assertThat(BatchPartitioner.partition(KEYS, 10, 8, String::length, 1))
+        .containsExactly(List.of("a", "bb", "ccc"), List.of("dddd"), List.of("eeeee"));
+  }
+
+  @Test
+  void test_oversized_key() {
+    assertThat(BatchPartitioner.partition(KEYS, 10, 3, String::length, 1))
+        .containsExactly(List.of("a"), List.of("bb"), List.of("ccc"), List.of("dddd"), List.of("eeeee"));
+  }
+
+  @Test
+  void test_empty() {
+    assertThat(BatchPartitioner.partition(List.of(), 10, 10, String::length, 1)).isEmpty();
+  }
+}
@@ -0,0 +1,237 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import org.dotwebstack.orchestrate.source.CollectionRequest;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+public class CapabilityProbesTest {
+
+  private static final Capabilities CAPABILITIES = Capabilities.of(List.of(
+      "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core",
+      "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson",
+      "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs",
+      "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter",
+      "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text"));
+
+  private static final String CONFORMANCE = """
+      {"conformsTo": [
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core",
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson",
+        "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs",
+        "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text",
+        "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter"
+      ]}
+      """;
+
+  private static final ObjectType PAND = ObjectType.builder()
+      .name("Pand")
+      .property(Attribute.builder()
+          .name("identificatie")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .identifier(true)
+          .build())
+      .property(Attribute.builder()
+          .name("status")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .property(Attribute.builder()
+          .name("geometrie")
+          .type(new GeometryType())
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .build();
+
+  private static final Model BAG = Model.builder().alias("bag").objectType(PAND).build();
+
+  @Test
+  void test_apply_detected() {
+    var probes = getProbes(TransferOptions.builder().maxAllowableOffset(0.5).build(), false);
+    var capabilities = probes.apply(CAPABILITIES, Map.of(CapabilityProbes.PROPERTY_SELECTION, true,
+        CapabilityProbes.REL_PROFILES, false, CapabilityProbes.SKIP_GEOMETRY, true));
+
+    assertThat(capabilities.isSupportsPropertySelection()).isTrue();
+    assertThat(capabilities.isSupportsRelProfiles()).isFalse();
+    assertThat(capabilities.isSupportsSkipGeometry()).isTrue();
+    // not detected
+    assertThat(capabilities.isSupportsMaxAllowableOffset()).isFalse();
+  }
+
+  @Test
+  void test_apply_configured() {
+    var probes = getProbes(TransferOptions.builder().detectCapabilities(false).maxAllowableOffset(0.5).build(), true);
+    var capabilities = probes.apply(CAPABILITIES, Map.of());
+
+    assertThat(capabilities.isSupportsPropertySelection()).isTrue();
+    assertThat(capabilities.isSupportsRelProfiles()).isTrue();
+    assertThat(capabilities.isSupportsSkipGeometry()).isTrue();
+    assertThat(capabilities.isSupportsMaxAllowableOffset()).isTrue();
+    assertThat(probes.detect().block()).isEmpty();
+  }
+
+  @Test
+  void test_apply_disabled() {
+    var probes = getProbes(TransferOptions.builder().skipGeometry(false).build(), false);
+    var capabilities = probes.apply(CAPABILITIES, Map.of(CapabilityProbes.SKIP_GEOMETRY, true));
+
+    assertThat(capabilities.isSupportsSkipGeometry()).isFalse();
+    assertThat(capabilities.isSupportsMaxAllowableOffset()).isFalse();
+  }
+
+  @Test
+  void test_failed_probes_detect_no_support() {
+    var probes = getProbes(TransferOptions.builder().maxAllowableOffset(0.5).build(), false, BAG);
+
+    assertThat(probes.detect().block()).containsOnly(Map.entry(CapabilityProbes.PROPERTY_SELECTION, false),
+        Map.entry(CapabilityProbes.REL_PROFILES, false), Map.entry(CapabilityProbes.SKIP_GEOMETRY, false),
+        Map.entry(CapabilityProbes.MAX_ALLOWABLE_OFFSET, false));
+  }
+
+  @Test
+  void test_probes_detect_support() {
+    var server = startServer(true, new ArrayList<>());
+    try {
+      var probes = getProbes(TransferOptions.builder().maxAllowableOffset(0.5).build(), false, BAG,
+          "http://localhost:" + server.port() + "/api");
+
+      assertThat(probes.detect().block()).containsOnly(Map.entry(CapabilityProbes.PROPERTY_SELECTION, true),
+          Map.entry(CapabilityProbes.REL_PROFILES, true), Map.entry(CapabilityProbes.SKIP_GEOMETRY, true),
+          Map.entry(CapabilityProbes.MAX_ALLOWABLE_OFFSET, true));
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_probes_detect_ignored_parameters() {
+    var server = startServer(false, new ArrayList<>());
+    try {
+      var probes = getProbes(TransferOptions.builder().maxAllowableOffset(0.5).build(), false, BAG,
+          "http://localhost:" + server.port() + "/api");
+
+      // the parameters are accepted, but have no effect; only the acceptance of "maxAllowableOffset" is observed
+      assertThat(probes.detect().block()).containsOnly(Map.entry(CapabilityProbes.PROPERTY_SELECTION, false),
+          Map.entry(CapabilityProbes.REL_PROFILES, false), Map.entry(CapabilityProbes.SKIP_GEOMETRY, false),
+          Map.entry(CapabilityProbes.MAX_ALLOWABLE_OFFSET, true));
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_detected_parameters_are_requested() {
+    List<String> queries = Collections.synchronizedList(new ArrayList<>());
+    var server = startServer(true, queries);
+    try {
+      var repository = new OgcApiFeaturesSource(OgcApiFeaturesConfiguration.builder()
+          .model(BAG)
+          .apiLandingPage("http://localhost:" + server.port() + "/api")
+          .limit(10)
+          .transfer(TransferOptions.builder().maxAllowableOffset(0.5).build())
+          .build()).getDataRepository();
+
+      StepVerifier.create(repository.find(getPandRequest("identificatie"))).expectNextCount(1).verifyComplete();
+      assertThat(queries).last().asString().contains("properties=identificatie", "profile=rel-as-key",
+          "skipGeometry=true").doesNotContain("maxAllowableOffset");
+
+      StepVerifier.create(repository.find(getPandRequest("identificatie", "geometrie"))).expectNextCount(1)
+          .verifyComplete();
+      assertThat(queries).last().asString().contains("maxAllowableOffset=0.5").doesNotContain("skipGeometry");
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_ignored_parameters_are_not_requested() {
+    List<String> queries = Collections.synchronizedList(new ArrayList<>());
+    var server = startServer(false, queries);
+    try {
+      var repository = new OgcApiFeaturesSource(OgcApiFeaturesConfiguration.builder()
+          .model(BAG)
+          .apiLandingPage("http://localhost:" + server.port() + "/api")
+          .limit(10)
+          .transfer(TransferOptions.builder().build())
+          .build()).getDataRepository();
+
+      StepVerifier.create(repository.find(getPandRequest("identificatie"))).expectNextCount(1).verifyComplete();
+      assertThat(queries).last().asString().doesNotContain("properties", "profile", "skipGeometry");
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  /**
+   * Serves a single feature of "Pand" with a relation and a geometry. A supporting server applies the "properties",
+   * "profile" and "skipGeometry" parameters, the other server accepts and ignores them. The query strings of the
+   * requests are recorded.
+   */
+  private static DisposableServer startServer(boolean supporting, List<String> queries) {
+    return HttpServer.create()
+        .port(0)
+        .route(routes -> routes
+            .get("/api/conformance", (request, response) -> response.sendString(Mono.just(CONFORMANCE)))
+            .get("/api/collections/Pand/items", (request, response) -> {
+              var decoder = new QueryStringDecoder(request.uri());
+              queries.add(decoder.rawQuery());
+              var parameters = supporting ? decoder.parameters() : Map.<String, List<String>>of();
+              var selected = parameters.getOrDefault("properties", List.of("identificatie,status,ligtIn")).get(0);
+              List<String> properties = new ArrayList<>();
+              for (var property : selected.split(",")) {
+                properties.add(switch (property) {
+                  case "ligtIn" -> parameters.containsKey("profile") ? "\"ligtIn\": \"0001\"" :
+                      "\"ligtIn\": {\"href\": \"http://localhost/api/collections/Wijk/items/0001\"}";
+                  case "status" -> "\"status\": \"Pand in gebruik\"";
+                  default -> String.format("\"%s\": \"0001\"", property);
+                });
+              }
+              var geometry = parameters.containsKey("skipGeometry") ? "null" :
+                  "{\"type\": \"Point\", \"coordinates\": [155000.0, 463000.0]}";
+              return response.sendString(Mono.just(String.format("{\"type\": \"FeatureCollection\", " +
+                  "\"features\": [{\"type\": \"Feature\", \"id\": \"0001\", \"geometry\": %s, " +
+                  "\"properties\": {%s}}]}", geometry, String.join(", ", properties))));
+            }))
+        .bindNow();
+  }
+
+  private static CollectionRequest getPandRequest(String... properties) {
+    List<SelectedProperty> selectedProperties = new ArrayList<>();
+    for (var property : properties) {
+      selectedProperties.add(new SelectedProperty(PAND.getProperty(property)));
+    }
+    return CollectionRequest.builder().objectType(PAND).selectedProperties(selectedProperties).build();
+  }
+
+  private static CapabilityProbes getProbes(TransferOptions transfer, boolean configured) {
+    return getProbes(transfer, configured, Model.builder().build());
+  }
+
+  private static CapabilityProbes getProbes(TransferOptions transfer, boolean configured, Model model) {
+    return getProbes(transfer, configured, model, "http://localhost:1/api");
+  }
+
+  private static CapabilityProbes getProbes(TransferOptions transfer, boolean configured, Model model,
+                                            String apiLandingPage) {
+    return new CapabilityProbes(HttpClient.create(), apiLandingPage, model, transfer, configured, configured,
+        OgcApiFeaturesConfiguration.MAPPER);
+  }
+}
@@ -0,0 +1,79 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class CircuitBreakerTest {
+
+  private static final CircuitBreakerOptions OPTIONS = CircuitBreakerOptions.builder()
+      .minimumRequests(4)
+      .openDuration(Duration.ofSeconds(10))
+      .build();
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  @Test
+  void test_circuit_opens_and_closes_after_probe() {
+    var circuitBreaker = new CircuitBreaker(OPTIONS, nanos::get);
+    circuitBreaker.onSuccess();
+    circuitBreaker.onFailure();
+    circuitBreaker.onSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    circuitBreaker.onFailure();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+    nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertThat(circuitBreaker.tryAcquire()).isTrue();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    // only one probe at a time
+    assertThat(circuitBreaker.tryAcquire()).isFalse();
+    circuitBreaker.onSuccess();
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(circuitBreaker.getRejectedCount()).isEqualTo(2);
+  }
+
+  @Test
+  void test_failed_probe_opens_circuit_again() {
+    var circuitBreaker = new CircuitBreaker(OPTIONS, nanos::get);
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.onFailure();
+    }
+    nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertThat(circuitBreaker.tryAcquire()).isTrue();
+    circuitBreaker.onFailure();
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void test_requests_fail_fast_while_open() {
+    var circuitBreaker = new CircuitBreaker(OPTIONS, nanos::get);
+    var policy = new RequestPolicy(ResilienceOptions.builder().maxRetries(0).build(), null, circuitBreaker,
+        new OgcApiFeaturesMetrics(new SimpleMeterRegistry(), "source"));
+    var attempts = new AtomicInteger();
+    var features = Flux.defer(() -> {
+      attempts.incrementAndGet();
+      return Flux.<Map<String, Object>>error(new RequestPolicy.TransientStatusException("Status 503."));
+    });
+    for (int i = 0; i < 4; i++) {
+      StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND, "GET"))
+          .verifyErrorMessage("Status 503.");
+    }
+
+    StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND, "GET"))
+        .verifyErrorSatisfies(error -> assertThat(error).isInstanceOf(SourceException.class)
+            .hasMessageStartingWith("The API is unavailable"));
+    assertThat(attempts).hasValue(4);
+  }
+}
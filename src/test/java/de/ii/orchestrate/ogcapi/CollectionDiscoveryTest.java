@@ -0,0 +1,83 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class CollectionDiscoveryTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Test
+  void test_collections() throws Exception {
+    var collections = MAPPER.readTree("""
+        {"collections": [
+          {"id": "Pand", "links": [
+            {"rel": "self", "href": "https://wau.ldproxy.net/bag/collections/Pand"},
+            {"rel": "http://www.opengis.net/def/rel/ogc/1.0/queryables",
+             "href": "https://wau.ldproxy.net/bag/collections/Pand/queryables?f=json"}]},
+          {"id": "Verblijfsobject", "links": []}
+        ]}""");
+
+    assertThat(CollectionDiscovery.getQueryablesLinks(collections)).containsExactlyInAnyOrderEntriesOf(Map.of(
+        "Pand", "https://wau.ldproxy.net/bag/collections/Pand/queryables?f=json",
+        "Verblijfsobject", ""));
+  }
+
+  @Test
+  void test_queryables() throws Exception {
+    var schema = MAPPER.readTree("""
+        {"type": "object", "properties": {
+          "identificatie": {"type": "string"},
+          "oorspronkelijkBouwjaar": {"type": "integer"},
+          "geometrie": {"format": "geometry-polygon"},
+          "bijgewerkt": {"$ref": "https://geojson.org/schema/Point.json"}
+        }}""");
+
+    assertThat(CollectionDiscovery.getQueryables(schema)).containsExactlyInAnyOrderEntriesOf(Map.of(
+        "identificatie", "string",
+        "oorspronkelijkBouwjaar", "integer",
+        "geometrie", CollectionDescriptor.GEOMETRY,
+        "bijgewerkt", CollectionDescriptor.GEOMETRY));
+  }
+
+  @Test
+  void test_limits() throws Exception {
+    var definition = MAPPER.readTree("""
+        {"paths": {
+          "/collections/Pand/items": {"get": {"parameters": [
+            {"$ref": "#/components/parameters/limit_Pand"}, {"name": "bbox", "in": "query"}]}},
+          "/collections/{collectionId}/items": {"get": {"parameters": [
+            {"name": "limit", "in": "query", "schema": {"type": "integer", "maximum": 10000, "default": 10}}]}},
+          "/collections/Pand/items/{featureId}": {"get": {"parameters": []}}
+        },
+        "components": {"parameters": {
+          "limit_Pand": {"name": "limit", "in": "query", "schema": {"type": "integer", "maximum": 500}}
+        }}}""");
+
+    var limits = CollectionDiscovery.getLimits(definition);
+    assertThat(limits).containsOnlyKeys("Pand", "*");
+    assertThat(limits.get("Pand")).isEqualTo(new CollectionDiscovery.Limits(500, null));
+    assertThat(limits.get("*")).isEqualTo(new CollectionDiscovery.Limits(10000, 10));
+  }
+
+  @Test
+  void test_descriptor() {
+    var descriptor = new CollectionDescriptor("Pand",
+        Map.of("identificatie", "string", "oorspronkelijkBouwjaar", "integer"), 500, 10);
+
+    assertThat(descriptor.getPageSize(1000)).isEqualTo(500);
+    assertThat(descriptor.getPageSize(50)).isEqualTo(50);
+    assertThat(descriptor.isQueryable("identificatie")).isTrue();
+    assertThat(descriptor.isQueryable("status")).isFalse();
+    assertThat(descriptor.getLiteral("oorspronkelijkBouwjaar", 1967)).isEqualTo("1967");
+    assertThat(descriptor.getLiteral("identificatie", "0034'1")).isEqualTo("'0034''1'");
+
+    var unknown = CollectionDescriptor.unknown("Pand");
+    assertThat(unknown.getPageSize(1000)).isEqualTo(1000);
+    assertThat(unknown.isQueryable("status")).isTrue();
+    assertThat(unknown.getLiteral("oorspronkelijkBouwjaar", 1967)).isEqualTo("'1967'");
+  }
+}
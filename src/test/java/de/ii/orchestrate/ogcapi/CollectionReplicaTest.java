@@ -0,0 +1,60 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class CollectionReplicaTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ReplicaOptions OPTIONS = ReplicaOptions.builder().refreshInterval(Duration.ofMinutes(1)).build();
+
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void test_disposed_replica_is_not_refreshed() {
+    var replica = new CollectionReplica(OPTIONS, Mono.fromCallable(() -> {
+      loads.incrementAndGet();
+      return load();
+    }), scheduler);
+    replica.start();
+    assertThat(replica.getStore()).isNotNull();
+
+    scheduler.advanceTimeBy(Duration.ofMinutes(1));
+    assertThat(loads).hasValue(2);
+    assertThat(replica.getRefreshCount()).isEqualTo(2);
+
+    replica.dispose();
+    assertThat(replica.getStore()).isNull();
+    scheduler.advanceTimeBy(Duration.ofMinutes(5));
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void test_dispose_cancels_the_load_in_progress() {
+    var cancelled = new AtomicBoolean();
+    var replica = new CollectionReplica(OPTIONS, Mono.<ReplicaStore>never().doOnCancel(() -> cancelled.set(true)),
+        scheduler);
+    replica.start();
+
+    replica.dispose();
+    assertThat(cancelled).isTrue();
+    assertThat(replica.getStore()).isNull();
+  }
+
+  private static ReplicaStore load() {
+    try (var builder = ReplicaStore.builder(MAPPER, "identificatie", List.of())) {
+      return builder.build();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+public class ConcurrencyLimiterTest {
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  @Test
+  void test_object_requests_are_served_first() {
+    var limiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.builder().initialLimit(1).build(), nanos::get);
+    var first = limiter.acquire(OgcApiFeaturesMetrics.FIND).block();
+    List<String> served = new ArrayList<>();
+    List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+    for (var operation : List.of(OgcApiFeaturesMetrics.FIND, OgcApiFeaturesMetrics.FIND_BATCH,
+        OgcApiFeaturesMetrics.FIND_ONE, OgcApiFeaturesMetrics.FIND_ONE)) {
+      limiter.acquire(operation).subscribe(permit -> {
+        served.add(operation);
+        permits.add(permit);
+      });
+    }
+    assertThat(limiter.getQueuedCount()).isEqualTo(4);
+
+    first.release();
+    while (!permits.isEmpty()) {
+      permits.remove(0).release();
+    }
+    assertThat(served).containsExactly(OgcApiFeaturesMetrics.FIND_ONE, OgcApiFeaturesMetrics.FIND_ONE,
+        OgcApiFeaturesMetrics.FIND_BATCH, OgcApiFeaturesMetrics.FIND);
+    assertThat(limiter.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void test_collection_requests_are_served_while_object_requests_keep_arriving() {
+    var limiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.builder().initialLimit(1).build(), nanos::get);
+    var permit = limiter.acquire(OgcApiFeaturesMetrics.FIND_ONE).block();
+    List<String> served = new ArrayList<>();
+    List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+    limiter.acquire(OgcApiFeaturesMetrics.FIND).subscribe(granted -> {
+      served.add(OgcApiFeaturesMetrics.FIND);
+      permits.add(granted);
+    });
+    limiter.acquire(OgcApiFeaturesMetrics.FIND_ONE).subscribe(granted -> {
+      served.add(OgcApiFeaturesMetrics.FIND_ONE);
+      permits.add(granted);
+    });
+
+    // a new object request arrives before each permit is released
+    for (int i = 0; i < 7; i++) {
+      limiter.acquire(OgcApiFeaturesMetrics.FIND_ONE).subscribe(granted -> {
+        served.add(OgcApiFeaturesMetrics.FIND_ONE);
+        permits.add(granted);
+      });
+      permit.release();
+      permit = permits.remove(0);
+    }
+    assertThat(served).contains(OgcApiFeaturesMetrics.FIND);
+    assertThat(served.indexOf(OgcApiFeaturesMetrics.FIND)).isGreaterThan(0);
+    assertThat(limiter.getQueuedCount()).isEqualTo(2);
+  }
+
+  @Test
+  void test_limit_increases_additively_and_decreases_multiplicatively() {
+    var limiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.builder().initialLimit(4).build(), nanos::get);
+    for (int i = 0; i < 8; i++) {
+      var permits = new ArrayList<ConcurrencyLimiter.Permit>();
+      for (int j = 0; j < limiter.getLimit(); j++) {
+        permits.add(limiter.acquire(OgcApiFeaturesMetrics.FIND).block());
+      }
+      permits.forEach(permit -> permit.onSuccess(1_000_000));
+      permits.forEach(ConcurrencyLimiter.Permit::release);
+    }
+    // about one more permit per round
+    assertThat(limiter.getLimit()).isEqualTo(11);
+
+    nanos.addAndGet(1_000_000);
+    var permit = limiter.acquire(OgcApiFeaturesMetrics.FIND).block();
+    permit.onDropped();
+    permit.release();
+    assertThat(limiter.getLimit()).isEqualTo(9);
+
+    // a second transient error within the same round trip does not decrease the limit again
+    permit = limiter.acquire(OgcApiFeaturesMetrics.FIND).block();
+    permit.onDropped();
+    permit.release();
+    assertThat(limiter.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void test_full_queue_is_rejected() {
+    var limiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.builder().initialLimit(1).maxQueueSize(1).build(),
+        nanos::get);
+    limiter.acquire(OgcApiFeaturesMetrics.FIND).block();
+    var queued = limiter.acquire(OgcApiFeaturesMetrics.FIND).subscribe();
+
+    StepVerifier.create(limiter.acquire(OgcApiFeaturesMetrics.FIND_ONE))
+        .verifyError(SourceException.class);
+    assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+    // a cancelled request leaves the queue
+    queued.dispose();
+    assertThat(limiter.getQueuedCount()).isZero();
+  }
+}
@@ -0,0 +1,91 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+
+public class ContentDecompressorTest {
+
+  private static final String FEATURE = """
+      {"type": "Feature", "id": "1", "properties": {"status": "Pand in gebruik"}}""";
+
+  private static final String CONTENT = """
+      {"type": "FeatureCollection", "features": [%s]}""".formatted(String.join(",", Collections.nCopies(200, FEATURE)));
+
+  @Test
+  void test_gzip() throws IOException {
+    var compressed = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(compressed)) {
+      out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+    var decompressor = ContentDecompressor.forEncoding("gzip");
+
+    assertThat(decompress(decompressor, compressed.toByteArray())).isEqualTo(CONTENT);
+    assertThat(decompressor.getWireBytes()).isEqualTo(compressed.size()).isLessThan(CONTENT.length());
+    assertThat(decompressor.getDecompressNanos()).isPositive();
+  }
+
+  @Test
+  void test_deflate() throws IOException {
+    var compressed = new ByteArrayOutputStream();
+    try (var out = new DeflaterOutputStream(compressed)) {
+      out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertThat(decompress(ContentDecompressor.forEncoding("Deflate"), compressed.toByteArray())).isEqualTo(CONTENT);
+  }
+
+  @Test
+  void test_identity() {
+    assertThat(ContentDecompressor.forEncoding(null)).isNull();
+    assertThat(ContentDecompressor.forEncoding("identity")).isNull();
+  }
+
+  @Test
+  void test_invalid() {
+    var decompressor = ContentDecompressor.forEncoding("gzip");
+    assertThatThrownBy(() -> decompress(decompressor, CONTENT.getBytes(StandardCharsets.UTF_8)))
+        .isInstanceOf(SourceException.class)
+        .hasMessageStartingWith("Invalid response with content encoding 'gzip'.");
+    assertThatThrownBy(() -> ContentDecompressor.forEncoding("compress"))
+        .isInstanceOf(SourceException.class);
+  }
+
+  @Test
+  void test_accept_encoding() {
+    assertThat(ContentDecompressor.getAcceptEncoding(List.of("gzip", "deflate"))).isEqualTo("gzip, deflate");
+    assertThat(ContentDecompressor.getAcceptEncoding(List.of())).isNull();
+    assertThatThrownBy(() -> ContentDecompressor.getAcceptEncoding(List.of("zstd")))
+        .isInstanceOf(SourceException.class);
+  }
+
+  private static String decompress(ContentDecompressor decompressor, byte[] content) {
+    var decompressed = new ByteArrayOutputStream();
+    Consumer<ByteBuf> consumer = buffer -> decompressed.writeBytes(ByteBufUtil.getBytes(buffer));
+    try {
+      for (int i = 0; i < content.length; i += 16) {
+        var chunk = Unpooled.wrappedBuffer(Arrays.copyOfRange(content, i, Math.min(i + 16, content.length)));
+        decompressor.decompress(chunk, consumer);
+        chunk.release();
+      }
+      decompressor.endOfInput(consumer);
+    } finally {
+      decompressor.close();
+    }
+    return decompressed.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,121 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.Path;
+import org.dotwebstack.orchestrate.model.filters.FilterExpression;
+import org.dotwebstack.orchestrate.source.CollectionRequest;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class Cql2TranslatorTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String CORE = "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core";
+  private static final String GEOJSON = "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson";
+  private static final String CRS = "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs";
+  private static final String FILTER = "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter";
+  private static final String CQL2_TEXT = "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text";
+  private static final String ADVANCED = "http://www.opengis.net/spec/cql2/1.0/conf/advanced-comparison-operators";
+  private static final String SPATIAL = "http://www.opengis.net/spec/cql2/1.0/conf/spatial-operators";
+
+  private static final Capabilities BASIC = Capabilities.of(List.of(CORE, GEOJSON, CRS, FILTER, CQL2_TEXT));
+
+  private static final Capabilities ADVANCED_SPATIAL =
+      Capabilities.of(List.of(CORE, GEOJSON, CRS, FILTER, CQL2_TEXT, ADVANCED, SPATIAL));
+
+  private static final CollectionDescriptor PAND = new CollectionDescriptor("Pand", Map.of(
+      "identificatie", "string",
+      "status", "string",
+      "oorspronkelijkBouwjaar", "integer",
+      "maaktDeelUitVan.identificatie", "string",
+      "geometrie", CollectionDescriptor.GEOMETRY), null, null);
+
+  @Test
+  void test_logical_operators() {
+    var filter = and(
+        filter("equals", "status", "Pand in gebruik"),
+        or(filter("greaterThanOrEqual", "oorspronkelijkBouwjaar", "1900"),
+            filter("isNull", "oorspronkelijkBouwjaar", true)),
+        not(filter("like", "identificatie", "0363%")));
+    var expression = translate(filter, ADVANCED_SPATIAL);
+
+    assertThat(expression.toText(PAND)).isEqualTo("status='Pand in gebruik' AND " +
+        "(oorspronkelijkBouwjaar>=1900 OR oorspronkelijkBouwjaar IS NULL) AND NOT (identificatie LIKE '0363%')");
+    assertThat(expression.toJson(MAPPER, PAND).toString()).isEqualTo("{\"op\":\"and\",\"args\":[" +
+        "{\"op\":\"=\",\"args\":[{\"property\":\"status\"},\"Pand in gebruik\"]}," +
+        "{\"op\":\"or\",\"args\":[{\"op\":\">=\",\"args\":[{\"property\":\"oorspronkelijkBouwjaar\"},1900]}," +
+        "{\"op\":\"isNull\",\"args\":[{\"property\":\"oorspronkelijkBouwjaar\"}]}]}," +
+        "{\"op\":\"not\",\"args\":[{\"op\":\"like\",\"args\":[{\"property\":\"identificatie\"},\"0363%\"]}]}]}");
+  }
+
+  @Test
+  void test_advanced_comparison_operators() {
+    var expression = translate(and(
+        filter("in", "maaktDeelUitVan/identificatie", List.of("0363100012168052", "0363100012169587")),
+        filter("between", "oorspronkelijkBouwjaar", List.of(1900, 1950)),
+        filter("notEquals", "status", "Sloopvergunning verleend")), ADVANCED_SPATIAL);
+
+    assertThat(expression.toText(PAND)).isEqualTo(
+        "maaktDeelUitVan.identificatie IN ('0363100012168052','0363100012169587') AND " +
+            "oorspronkelijkBouwjaar BETWEEN 1900 AND 1950 AND status<>'Sloopvergunning verleend'");
+  }
+
+  @Test
+  void test_intersects_in_logical_operator() {
+    var point = new GeometryFactory(new PrecisionModel(), 28992).createPoint(new Coordinate(194000, 465000));
+    var expression = translate(or(filter("intersects", "geometrie", point), filter("isNotNull", "status", true)),
+        ADVANCED_SPATIAL);
+
+    assertThat(expression.toText(PAND))
+        .isEqualTo("s_intersects(geometrie,POINT (194000 465000)) OR NOT (status IS NULL)");
+    assertThat(expression.getGeometries()).containsExactly(point);
+  }
+
+  @Test
+  void test_unsupported_filters_are_rejected() {
+    assertThatThrownBy(() -> translate(filter("in", "status", List.of("a")), BASIC))
+        .isInstanceOf(SourceException.class)
+        .hasMessageStartingWith("Invalid collection request: the API does not support the CQL2 advanced comparison " +
+            "operators, which are required for 'in'.");
+    assertThatThrownBy(() -> translate(filter("contains", "status", "a"), ADVANCED_SPATIAL))
+        .isInstanceOf(SourceException.class)
+        .hasMessageStartingWith("Invalid collection request: the filter operator 'contains' is not supported.");
+    assertThatThrownBy(() -> translate(filter("equals", "bouwjaar", 1900), ADVANCED_SPATIAL))
+        .isInstanceOf(SourceException.class)
+        .hasMessageStartingWith("Invalid collection request: 'bouwjaar' is not a queryable of collection 'Pand'.");
+  }
+
+  private static Cql2Expression translate(FilterExpression filter, Capabilities capabilities) {
+    var request = CollectionRequest.builder()
+        .objectType(ObjectType.builder().name("Pand").build())
+        .filter(filter)
+        .build();
+    return Cql2Translator.translate(request, PAND, capabilities);
+  }
+
+  private static FilterExpression filter(String operator, String path, Object value) {
+    return FilterExpression.builder().operator(() -> operator).path(Path.fromString(path)).value(value).build();
+  }
+
+  private static FilterExpression and(FilterExpression... filters) {
+    return FilterExpression.builder().operator(() -> "and").value(List.of(filters)).build();
+  }
+
+  private static FilterExpression or(FilterExpression... filters) {
+    return FilterExpression.builder().operator(() -> "or").value(List.of(filters)).build();
+  }
+
+  private static FilterExpression not(FilterExpression filter) {
+    return FilterExpression.builder().operator(() -> "not").value(filter).build();
+  }
+}
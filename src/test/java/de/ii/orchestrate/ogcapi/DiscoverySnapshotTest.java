@@ -0,0 +1,60 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DiscoverySnapshotTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String CORE = "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void test_write_and_read() {
+    var snapshot = getSnapshot(Instant.now());
+    assertThat(snapshot.read("conformance", ConformanceDeclaration.class)).isNull();
+
+    snapshot.write("conformance", Map.of("conformsTo", List.of(CORE)));
+    assertThat(snapshot.read("conformance", ConformanceDeclaration.class).getConformsTo()).containsExactly(CORE);
+    assertThat(getSnapshot(Instant.now()).read("conformance", ConformanceDeclaration.class)).isNotNull();
+  }
+
+  @Test
+  void test_expired() {
+    getSnapshot(Instant.now()).write("conformance", Map.of("conformsTo", List.of(CORE)));
+
+    var later = getSnapshot(Instant.now().plus(Duration.ofHours(2)));
+    assertThat(later.read("conformance", ConformanceDeclaration.class)).isNull();
+  }
+
+  @Test
+  void test_unreadable() throws Exception {
+    var snapshot = getSnapshot(Instant.now());
+    snapshot.write("conformance", Map.of("conformsTo", List.of(CORE)));
+    try (var files = Files.walk(directory)) {
+      for (var file : files.filter(Files::isRegularFile).toList()) {
+        Files.writeString(file, "{\"conformsTo\": [");
+      }
+    }
+    assertThat(snapshot.read("conformance", ConformanceDeclaration.class)).isNull();
+  }
+
+  private DiscoverySnapshot getSnapshot(Instant now) {
+    return new DiscoverySnapshot(directory, "https://wau.ldproxy.net/bag", Duration.ofHours(1), MAPPER,
+        Clock.fixed(now, ZoneOffset.UTC));
+  }
+}
@@ -0,0 +1,95 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class EndpointBalancerTest {
+
+  private static final String API = "https://api.example.com/bag";
+  private static final String MIRROR = "https://mirror.example.com/bag";
+  private static final String BROKEN = "https://broken.example.com/bag";
+
+  private static final BalancingOptions OPTIONS = BalancingOptions.builder()
+      .maxFailures(2)
+      .ejectionDuration(Duration.ofSeconds(10))
+      .build();
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private final List<String> targets = new ArrayList<>();
+
+  @Test
+  void test_requests_are_routed_to_the_faster_landing_page() {
+    var balancer = new EndpointBalancer(API, List.of(MIRROR, BROKEN), OPTIONS, this::check, nanos::get);
+    balancer.checkMirrors();
+    // the API responds after 10 ms, the mirror after 1 ms
+    for (int i = 0; i < 10; i++) {
+      send(balancer, "/collections/Pand/items?limit=10", Set.of(MIRROR));
+    }
+
+    assertThat(targets).allMatch(target -> target.endsWith("/collections/Pand/items?limit=10"))
+        .noneMatch(target -> target.startsWith(BROKEN));
+    assertThat(targets.stream().filter(target -> target.startsWith(MIRROR)).count()).isGreaterThan(5);
+  }
+
+  @Test
+  void test_failing_landing_page_is_ejected_and_readmitted() {
+    var balancer = new EndpointBalancer(API, List.of(MIRROR), OPTIONS, this::check, nanos::get);
+    balancer.checkMirrors();
+    for (int i = 0; i < 6; i++) {
+      send(balancer, "/collections/Pand/items", Set.of());
+    }
+    var mirror = balancer.getEndpoints().get(1);
+    assertThat(mirror.isHealthy()).isFalse();
+    assertThat(mirror.getEjectionCount()).isEqualTo(1);
+
+    targets.clear();
+    send(balancer, "/collections/Pand/items", Set.of());
+    assertThat(targets).containsExactly(API + "/collections/Pand/items");
+
+    nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+    send(balancer, "/collections/Pand/items", Set.of());
+    assertThat(mirror.isHealthy()).isTrue();
+  }
+
+  @Test
+  void test_next_links_of_mirrors_are_normalized() {
+    var balancer = new EndpointBalancer(API, List.of(MIRROR), OPTIONS, this::check, nanos::get);
+
+    assertThat(balancer.normalize(MIRROR + "/collections/Pand/items?offset=10"))
+        .isEqualTo(API + "/collections/Pand/items?offset=10");
+    assertThat(balancer.normalize("https://other.example.com/items")).isEqualTo("https://other.example.com/items");
+  }
+
+  private Mono<Void> check(String landingPage) {
+    return BROKEN.equals(landingPage) ? Mono.error(new SourceException("Not available.")) : Mono.empty();
+  }
+
+  /**
+   * Sends a request that takes 1 ms on the fast landing pages and 10 ms on the others. Without fast landing pages,
+   * the requests to the mirror fail.
+   */
+  private void send(EndpointBalancer balancer, String path, Set<String> fast) {
+    var request = balancer.route(API + path, target -> {
+      targets.add(target);
+      var landingPage = target.substring(0, target.length() - path.length());
+      nanos.addAndGet(fast.contains(landingPage) ? 1_000_000 : 10_000_000);
+      return fast.isEmpty() && MIRROR.equals(landingPage) ? Flux.<String>error(new IOException("Connection reset")) :
+          Flux.just(target);
+    });
+    StepVerifier.create(request.onErrorResume(IOException.class, error -> Flux.empty()))
+        .thenConsumeWhile(target -> true)
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,75 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class FeatureCacheTest {
+
+  private static final CacheOptions OPTIONS = CacheOptions.builder()
+      .maximumSize(2)
+      .ttl(Duration.ofSeconds(10))
+      .revalidationWindow(Duration.ofSeconds(50))
+      .build();
+
+  private static final Map<String, Object> FEATURE = Map.of("identificatie", "0034100000000360");
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private final FeatureCache cache = new FeatureCache(OPTIONS, nanos::get);
+
+  @Test
+  void test_fresh_and_stale() {
+    var key = FeatureCache.getKey("0034100000000360", "Pand:identificatie");
+    cache.put(key, FEATURE, "\"v1\"", null);
+    assertThat(cache.get(key)).isEqualTo(new FeatureCache.Lookup(FEATURE, null));
+
+    advance(Duration.ofSeconds(11));
+    var lookup = cache.get(key);
+    assertThat(lookup.feature()).isNull();
+    var stale = lookup.stale();
+    assertThat(stale.etag()).isEqualTo("\"v1\"");
+    cache.revalidating();
+
+    assertThat(cache.notModified(key, stale)).isEqualTo(FEATURE);
+    assertThat(cache.get(key).feature()).isEqualTo(FEATURE);
+    assertThat(cache.getRevalidationCount()).isEqualTo(1);
+    assertThat(cache.getNotModifiedCount()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isEqualTo(2);
+    assertThat(cache.getStaleCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isZero();
+  }
+
+  @Test
+  void test_no_revalidation_without_validator() {
+    var key = FeatureCache.getKey("0034100000000360", "Pand:identificatie");
+    cache.put(key, FEATURE, null, null);
+    advance(Duration.ofSeconds(11));
+    assertThat(cache.get(key)).isEqualTo(new FeatureCache.Lookup(null, null));
+    assertThat(cache.getStaleCount()).isEqualTo(1);
+  }
+
+  @Test
+  void test_expiry() {
+    var key = FeatureCache.getKey("0034100000000360", "Pand:identificatie");
+    cache.put(key, FEATURE, null, "Wed, 21 Oct 2015 07:28:00 GMT");
+    advance(Duration.ofSeconds(61));
+    assertThat(cache.get(key).stale()).isNull();
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void test_selections_are_cached_independently() {
+    cache.put(FeatureCache.getKey("1", "Pand:identificatie"), FEATURE, null, null);
+    assertThat(cache.get(FeatureCache.getKey("1", "Pand:identificatie,status")).feature()).isNull();
+    assertThat(cache.getHitCount()).isZero();
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  private void advance(Duration duration) {
+    nanos.addAndGet(duration.toNanos());
+  }
+}
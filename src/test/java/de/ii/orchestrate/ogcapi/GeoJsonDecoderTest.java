@@ -0,0 +1,199 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class GeoJsonDecoderTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ObjectType PAND = ObjectType.builder()
+      .name("Pand")
+      .property(Attribute.builder()
+          .name("identificatie")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .identifier(true)
+          .build())
+      .property(Attribute.builder()
+          .name("oorspronkelijkBouwjaar")
+          .type(ScalarTypes.INTEGER)
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .property(Attribute.builder()
+          .name("status")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .property(Attribute.builder()
+          .name("geometrie")
+          .type(new GeometryType())
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .build();
+
+  private static final Model BAG = Model.builder().alias("bag").objectType(PAND).build();
+
+  private static final ProjectionPlan ALL = ProjectionPlan.compile(BAG, List.of(
+      new SelectedProperty(PAND.getProperty("identificatie")),
+      new SelectedProperty(PAND.getProperty("status")),
+      new SelectedProperty(PAND.getProperty("oorspronkelijkBouwjaar")),
+      new SelectedProperty(PAND.getProperty("geometrie"))));
+
+  private static final ProjectionPlan IDENTIFIER = ProjectionPlan.compile(BAG, List.of(
+      new SelectedProperty(PAND.getProperty("identificatie"))));
+
+  private static final String FEATURE_COLLECTION = """
+      {
+        "type": "FeatureCollection",
+        "numberMatched": 1234,
+        "features": [
+          {"type": "Feature", "id": "0034100000000360",
+           "geometry": {"type": "Point", "coordinates": [194000.5, 465000.25]},
+           "properties": {"status": "Pand in gebruik", "oorspronkelijkBouwjaar": 2005}},
+          {"type": "Feature", "id": "0313100000183898", "geometry": null,
+           "properties": {"oorspronkelijkBouwjaar": 1967, "skipped": {"list": [1, [2, 3], {"a": "b"}]}}}
+        ],
+        "links": [
+          {"rel": "self", "href": "https://example.org/collections/Pand/items?limit=2"},
+          {"rel": "next", "href": "https://example.org/collections/Pand/items?limit=2&offset=2"}
+        ],
+        "numberReturned": 2
+      }
+      """;
+
+  private static final String FEATURE = """
+      {"type": "Feature", "id": "0034100000000360", "properties": {"status": "Pand in gebruik"}}
+      """;
+
+  @Test
+  void test_feature_collection_in_chunks() {
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, ALL);
+    List<Map<String, Object>> features = new ArrayList<>();
+    chunks(FEATURE_COLLECTION, 7).forEach(chunk -> features.addAll(decoder.feed(chunk)));
+    features.addAll(decoder.endOfInput());
+
+    assertThat(features).containsExactly(
+        Map.of("identificatie", "0034100000000360", "status", "Pand in gebruik", "oorspronkelijkBouwjaar", 2005,
+            "geometrie", Map.of("type", "Point", "coordinates", List.of(194000.5, 465000.25))),
+        Map.of("identificatie", "0313100000183898", "oorspronkelijkBouwjaar", 1967));
+    assertThat(decoder.getNextLink()).isEqualTo("https://example.org/collections/Pand/items?limit=2&offset=2");
+    assertThat(decoder.getNumberMatched()).isEqualTo(1234L);
+  }
+
+  @Test
+  void test_features_are_emitted_before_end_of_input() {
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, IDENTIFIER);
+    var endOfFirstFeature = FEATURE_COLLECTION.indexOf("{\"type\": \"Feature\", \"id\": \"0313100000183898\"");
+    var head = FEATURE_COLLECTION.substring(0, endOfFirstFeature).getBytes(StandardCharsets.UTF_8);
+
+    assertThat(decoder.feed(head)).hasSize(1);
+    assertThat(decoder.getNextLink()).isNull();
+  }
+
+  @Test
+  void test_decode_flux() {
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, IDENTIFIER);
+    StepVerifier.create(decoder.decode(Flux.fromIterable(chunks(FEATURE_COLLECTION, 64)).map(Unpooled::wrappedBuffer)))
+        .expectNext(Map.of("identificatie", "0034100000000360"))
+        .expectNext(Map.of("identificatie", "0313100000183898"))
+        .verifyComplete();
+  }
+
+  @Test
+  void test_feature() {
+    var decoder = GeoJsonDecoder.forFeature(MAPPER, ALL);
+    StepVerifier.create(decoder.decode(Flux.fromIterable(chunks(FEATURE, 5)).map(Unpooled::wrappedBuffer)))
+        .expectNext(Map.of("identificatie", "0034100000000360", "status", "Pand in gebruik"))
+        .verifyComplete();
+  }
+
+  @Test
+  void test_pooled_buffers() {
+    var buffers = chunks(FEATURE_COLLECTION, 64).stream()
+        .map(chunk -> PooledByteBufAllocator.DEFAULT.directBuffer(chunk.length).writeBytes(chunk))
+        .toList();
+    // the last chunks are combined into a composite buffer
+    var composite = Unpooled.compositeBuffer().addComponents(true, buffers.subList(buffers.size() - 3, buffers.size()));
+    var chunks = new ArrayList<ByteBuf>(buffers.subList(0, buffers.size() - 3));
+    chunks.add(composite);
+
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, IDENTIFIER);
+    StepVerifier.create(decoder.decode(Flux.fromIterable(chunks)))
+        .expectNext(Map.of("identificatie", "0034100000000360"))
+        .expectNext(Map.of("identificatie", "0313100000183898"))
+        .verifyComplete();
+    assertThat(decoder.getBytes()).isEqualTo(FEATURE_COLLECTION.getBytes(StandardCharsets.UTF_8).length);
+    // the decoder does not retain the buffers, they are released by the owner
+    assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.release()).isTrue());
+  }
+
+  @Test
+  void test_offloaded_decoding() {
+    var chunks = chunks(FEATURE_COLLECTION, 64).stream()
+        .map(chunk -> PooledByteBufAllocator.DEFAULT.directBuffer(chunk.length).writeBytes(chunk))
+        .toList();
+    var scheduler = Schedulers.newSingle("decode");
+    try {
+      var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, IDENTIFIER);
+      StepVerifier.create(decoder.decode(Flux.fromIterable(chunks), UnaryOperator.identity(), null, scheduler, 2)
+              .map(feature -> Map.of(Thread.currentThread().getName().startsWith("decode"), feature)))
+          .expectNext(Map.of(true, Map.of("identificatie", "0034100000000360")))
+          .expectNext(Map.of(true, Map.of("identificatie", "0313100000183898")))
+          .verifyComplete();
+      // the hand-off on the receiving thread
+      assertThat(decoder.getReceiveThreadNanos()).isPositive();
+      // the chunks are retained for the hand-off and released once they have been decoded
+      assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.release()).isTrue());
+    } finally {
+      scheduler.dispose();
+    }
+  }
+
+  @Test
+  void test_incomplete_response() {
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, IDENTIFIER);
+    decoder.feed(FEATURE_COLLECTION.substring(0, 100).getBytes(StandardCharsets.UTF_8));
+    assertThatThrownBy(decoder::endOfInput).isInstanceOf(SourceException.class)
+        .hasMessage("Received incomplete feature collection response.");
+  }
+
+  @Test
+  void test_invalid_response() {
+    var decoder = GeoJsonDecoder.forFeatureCollection(MAPPER, IDENTIFIER);
+    assertThatThrownBy(() -> decoder.feed("[]".getBytes(StandardCharsets.UTF_8))).isInstanceOf(SourceException.class)
+        .hasMessage("Received invalid feature collection response, expected a GeoJSON feature collection.");
+  }
+
+  private static List<byte[]> chunks(String json, int size) {
+    var bytes = json.getBytes(StandardCharsets.UTF_8);
+    List<byte[]> chunks = new ArrayList<>();
+    for (int i = 0; i < bytes.length; i += size) {
+      chunks.add(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size)));
+    }
+    return chunks;
+  }
+}
@@ -0,0 +1,87 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+public class GeoJsonFeatureSplitterTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String FIRST = """
+      {"type": "Feature", "id": "1", "geometry": {"type": "Point", "coordinates": [155000.0, 463000.0]},
+       "properties": {"status": "Pand {in} gebruik", "features": [{"id": "x"}]}}""";
+
+  private static final String SECOND = """
+      {"type":"Feature","id":"2","geometry":null,"properties":{"links":[]}}""";
+
+  private static final String FEATURE_COLLECTION = """
+      {"type": "FeatureCollection", "numberMatched": 3,
+       "features": [%s, %s],
+       "links": [{"rel": "self", "href": "https://example.org/items"},
+                 {"rel": "next", "href": "https://example.org/items?offset=2"}]}
+      """.formatted(FIRST, SECOND);
+
+  @Test
+  void test_features_are_split_as_received() {
+    for (var size : List.of(1, 7, 64, FEATURE_COLLECTION.length())) {
+      var splitter = new GeoJsonFeatureSplitter(MAPPER);
+      List<byte[]> features = new ArrayList<>();
+      var bytes = FEATURE_COLLECTION.getBytes(StandardCharsets.UTF_8);
+      for (int i = 0; i < bytes.length; i += size) {
+        features.addAll(splitter.feed(Unpooled.wrappedBuffer(bytes, i, Math.min(size, bytes.length - i))));
+      }
+      features.addAll(splitter.endOfInput());
+
+      assertThat(features).extracting(feature -> new String(feature, StandardCharsets.UTF_8))
+          .containsExactly(FIRST, SECOND);
+      assertThat(splitter.getNextLink()).isEqualTo("https://example.org/items?offset=2");
+    }
+  }
+
+  @Test
+  void test_split_on_scheduler() {
+    var bytes = FEATURE_COLLECTION.getBytes(StandardCharsets.UTF_8);
+    var chunks = List.of(PooledByteBufAllocator.DEFAULT.directBuffer().writeBytes(bytes, 0, 100),
+        PooledByteBufAllocator.DEFAULT.directBuffer().writeBytes(bytes, 100, bytes.length - 100));
+    var scheduler = Schedulers.newSingle("split");
+    try {
+      var features = new GeoJsonFeatureSplitter(MAPPER).split(Flux.fromIterable(chunks), null, scheduler, 1)
+          .map(feature -> new String(feature, StandardCharsets.UTF_8))
+          .collectList()
+          .block();
+
+      assertThat(features).containsExactly(FIRST, SECOND);
+      // the chunks are retained for the hand-off and released once they have been split
+      assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.release()).isTrue());
+    } finally {
+      scheduler.dispose();
+    }
+  }
+
+  @Test
+  void test_incomplete_response() {
+    var splitter = new GeoJsonFeatureSplitter(MAPPER);
+    splitter.feed(Unpooled.copiedBuffer(FEATURE_COLLECTION.substring(0, 120), StandardCharsets.UTF_8));
+    assertThatThrownBy(splitter::endOfInput).isInstanceOf(SourceException.class)
+        .hasMessage("Received incomplete replica response.");
+  }
+
+  @Test
+  void test_invalid_response() {
+    var splitter = new GeoJsonFeatureSplitter(MAPPER);
+    assertThatThrownBy(() -> splitter.feed(Unpooled.copiedBuffer("[" + SECOND + "]", StandardCharsets.UTF_8)))
+        .isInstanceOf(SourceException.class)
+        .hasMessage("Received invalid replica response, expected a GeoJSON feature collection.");
+  }
+}
@@ -0,0 +1,136 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+public class GeoJsonGeometryReaderTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ObjectType PAND = ObjectType.builder()
+      .name("Pand")
+      .property(Attribute.builder()
+          .name("identificatie")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .identifier(true)
+          .build())
+      .property(Attribute.builder()
+          .name("geometrie")
+          .type(new GeometryType())
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .build();
+
+  private static final ProjectionPlan PLAN = ProjectionPlan.compile(Model.builder().alias("bag").objectType(PAND)
+      .build(), List.of(
+      new SelectedProperty(PAND.getProperty("identificatie")),
+      new SelectedProperty(PAND.getProperty("geometrie"))));
+
+  @Test
+  void test_polygon_with_hole() {
+    var geometry = decode("""
+        {"type": "Polygon", "coordinates": [
+          [[0, 0], [10, 0], [10, 10], [0, 10], [0, 0]],
+          [[2, 2], [4, 2], [4, 4], [2, 2]]
+        ]}""");
+
+    assertThat(geometry).isInstanceOf(Polygon.class);
+    var polygon = (Polygon) geometry;
+    assertThat(polygon.getSRID()).isEqualTo(28992);
+    assertThat(polygon.getExteriorRing().getCoordinateSequence()).isInstanceOf(PackedCoordinateSequence.Double.class);
+    assertThat(polygon.getExteriorRing().getNumPoints()).isEqualTo(5);
+    assertThat(polygon.getNumInteriorRing()).isEqualTo(1);
+    assertThat(polygon.getInteriorRingN(0).getCoordinateN(1)).isEqualTo(new Coordinate(4, 2));
+    assertThat(polygon.getArea()).isEqualTo(98.0);
+  }
+
+  @Test
+  void test_multi_polygon() {
+    var geometry = decode("""
+        {"coordinates": [
+          [[[0, 0], [1, 0], [1, 1], [0, 0]]],
+          [[[5, 5], [6, 5], [6, 6], [5, 5]]]
+        ], "type": "MultiPolygon"}""");
+
+    assertThat(geometry).isInstanceOf(MultiPolygon.class);
+    assertThat(geometry.getNumGeometries()).isEqualTo(2);
+    assertThat(geometry.getGeometryN(1).getCoordinates()[2]).isEqualTo(new Coordinate(6, 6));
+  }
+
+  @Test
+  void test_point_3d() {
+    var geometry = decode("""
+        {"type": "Point", "coordinates": [194000.5, 465000.25, 12.5], "bbox": [1, 2, 3, 4]}""");
+
+    assertThat(geometry).isInstanceOf(Point.class);
+    var coordinate = geometry.getCoordinate();
+    assertThat(coordinate.getX()).isEqualTo(194000.5);
+    assertThat(coordinate.getY()).isEqualTo(465000.25);
+    assertThat(coordinate.getZ()).isEqualTo(12.5);
+  }
+
+  @Test
+  void test_geometry_collection() {
+    var geometry = decode("""
+        {"type": "GeometryCollection", "geometries": [
+          {"type": "Point", "coordinates": [1, 2]},
+          {"type": "LineString", "coordinates": [[1, 2], [3, 4], [5, 6]]},
+          {"type": "MultiLineString", "coordinates": [[[1, 2], [3, 4]], [[5, 6], [7, 8]]]}
+        ]}""");
+
+    assertThat(geometry).isInstanceOf(GeometryCollection.class);
+    assertThat(geometry.getNumGeometries()).isEqualTo(3);
+    assertThat(geometry.getGeometryN(0).getGeometryType()).isEqualTo("Point");
+    assertThat(geometry.getGeometryN(1).getNumPoints()).isEqualTo(3);
+    assertThat(geometry.getGeometryN(2).getNumGeometries()).isEqualTo(2);
+    assertThat(geometry.getGeometryN(2).getSRID()).isEqualTo(28992);
+  }
+
+  @Test
+  void test_invalid_geometry() {
+    assertThatThrownBy(() -> decode("""
+        {"type": "Curve", "coordinates": [[1, 2], [3, 4]]}""")).isInstanceOf(SourceException.class)
+        .hasMessage("Received invalid GeoJSON geometry. Unsupported geometry type 'Curve'.");
+  }
+
+  private static Geometry decode(String geometry) {
+    var feature = String.format("""
+        {"type": "Feature", "id": "0034100000000360", "geometry": %s, "properties": {}}""", geometry);
+    var decoder = GeoJsonDecoder.forFeature(MAPPER, PLAN, 28992);
+    List<Map<String, Object>> features = new ArrayList<>();
+    // small chunks, so that the geometries are decoded across several chunks
+    var bytes = feature.getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < bytes.length; i += 3) {
+      features.addAll(decoder.feed(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 3))));
+    }
+    features.addAll(decoder.endOfInput());
+
+    assertThat(features).hasSize(1);
+    assertThat(features.get(0)).containsEntry("identificatie", "0034100000000360");
+    return (Geometry) features.get(0).get("geometrie");
+  }
+}
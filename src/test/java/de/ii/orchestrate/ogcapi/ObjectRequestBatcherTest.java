@@ -0,0 +1,106 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class ObjectRequestBatcherTest {
+
+  private static final String BATCH_KEY = "Pand:identificatie";
+
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+  private final ObjectRequestBatcher batcher = new ObjectRequestBatcher(BatchingOptions.builder()
+      .maxWait(Duration.ofMillis(10))
+      .maxSize(3)
+      .build(), scheduler);
+
+  private final List<List<String>> batches = new ArrayList<>();
+
+  private final Function<List<String>, Flux<Map<String, Object>>> loader = featureIds -> {
+    batches.add(featureIds);
+    return Flux.fromIterable(featureIds)
+        .filter(id -> !id.equals("missing"))
+        .map(id -> Map.of("identificatie", id));
+  };
+
+  @Test
+  void test_requests_within_window_are_batched() {
+    var first = load("1").toFuture();
+    var second = load("2").toFuture();
+    var duplicate = load("1").toFuture();
+    var missing = load("missing").toFuture();
+    assertThat(batches).containsExactly(List.of("1", "2", "missing"));
+
+    assertThat(first.join()).isEqualTo(Map.of("identificatie", "1"));
+    assertThat(second.join()).isEqualTo(Map.of("identificatie", "2"));
+    assertThat(duplicate.join()).isEqualTo(Map.of("identificatie", "1"));
+    assertThat(missing.join()).isNull();
+  }
+
+  @Test
+  void test_batch_is_requested_after_max_wait() {
+    var first = load("1").toFuture();
+    scheduler.advanceTimeBy(Duration.ofMillis(9));
+    assertThat(batches).isEmpty();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(1));
+    assertThat(batches).containsExactly(List.of("1"));
+    assertThat(first.join()).isEqualTo(Map.of("identificatie", "1"));
+
+    var second = load("2").toFuture();
+    scheduler.advanceTimeBy(Duration.ofMillis(10));
+    assertThat(batches).containsExactly(List.of("1"), List.of("2"));
+    assertThat(second.join()).isEqualTo(Map.of("identificatie", "2"));
+  }
+
+  @Test
+  void test_errors_are_propagated_to_all_requests() {
+    var first = batcher.load(BATCH_KEY, "1", ids -> Flux.error(new SourceException("Unavailable.")),
+        feature -> feature.get("identificatie"));
+    var second = batcher.load(BATCH_KEY, "2", loader, feature -> feature.get("identificatie"));
+    StepVerifier.create(Mono.zip(first, second))
+        .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(10)))
+        .verifyErrorMessage("Unavailable.");
+  }
+
+  @Test
+  void test_cancelled_requests_are_not_requested() {
+    var first = load("1").toFuture();
+    load("2").subscribe().dispose();
+    scheduler.advanceTimeBy(Duration.ofMillis(10));
+    assertThat(batches).containsExactly(List.of("1"));
+    assertThat(first.join()).isEqualTo(Map.of("identificatie", "1"));
+
+    load("3").subscribe().dispose();
+    scheduler.advanceTimeBy(Duration.ofMillis(10));
+    assertThat(batches).containsExactly(List.of("1"));
+  }
+
+  @Test
+  void test_batch_request_is_cancelled_without_waiting_requests() {
+    var cancelled = new AtomicBoolean();
+    var request = batcher.load(BATCH_KEY, "1", ids -> Flux.<Map<String, Object>>never()
+        .doOnCancel(() -> cancelled.set(true)), feature -> feature.get("identificatie")).subscribe();
+    scheduler.advanceTimeBy(Duration.ofMillis(10));
+    assertThat(cancelled).isFalse();
+
+    request.dispose();
+    assertThat(cancelled).isTrue();
+  }
+
+  private Mono<Map<String, Object>> load(String featureId) {
+    return batcher.load(BATCH_KEY, featureId, loader, feature -> feature.get("identificatie"));
+  }
+}
@@ -0,0 +1,36 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+public class OffsetPagingTest {
+
+  private static final String URI = "https://example.org/collections/Pand/items?limit=10&properties=status";
+
+  @Test
+  void test_page_uris() {
+    StepVerifier.create(OffsetPaging.getPageUris(URI,
+            "https://example.org/collections/Pand/items?limit=10&offset=10&properties=status", 35L))
+        .expectNext("https://example.org/collections/Pand/items?limit=10&offset=10&properties=status")
+        .expectNext("https://example.org/collections/Pand/items?limit=10&offset=20&properties=status")
+        .expectNext("https://example.org/collections/Pand/items?limit=10&offset=30&properties=status")
+        .verifyComplete();
+  }
+
+  @Test
+  void test_page_size_is_derived_from_offsets() {
+    // the API reduced the page size to 4
+    StepVerifier.create(OffsetPaging.getPageUris("https://example.org/collections/Pand/items?offset=4&limit=10",
+            "https://example.org/collections/Pand/items?offset=8&limit=4", 12L))
+        .expectNext("https://example.org/collections/Pand/items?offset=8&limit=4")
+        .verifyComplete();
+  }
+
+  @Test
+  void test_next_link_without_offset() {
+    assertThat(OffsetPaging.getPageUris(URI, "https://example.org/collections/Pand/items?cursor=abc", 35L)).isNull();
+    assertThat(OffsetPaging.getPageUris(URI, "https://example.org/collections/Pand/items?offset=10", null)).isNull();
+  }
+}
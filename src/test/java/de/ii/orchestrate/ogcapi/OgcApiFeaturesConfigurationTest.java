@@ -3,8 +3,13 @@ package de.ii.orchestrate.ogcapi;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
 import org.dotwebstack.orchestrate.model.Model;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class OgcApiFeaturesConfigurationTest {
 
@@ -19,10 +24,11 @@ public class OgcApiFeaturesConfigurationTest {
     assertThat(config.getApiLandingPage()).isEqualTo("https://wau.ldproxy.net/bag");
     assertThat(config.isSupportsPropertySelection()).isEqualTo(true);
     assertThat(config.isSupportsRelProfiles()).isEqualTo(true);
-    assertThat(config.isSupportsIntersects()).isEqualTo(true);
-    assertThat(config.isSupportsBatchLoading()).isEqualTo(true);
-    assertThat(config.isSupportsCql2InOperator()).isEqualTo(true);
-    assertThat(config.isSupportsAdHocQuery()).isEqualTo(false);
+    var capabilities = config.getCapabilities().block();
+    assertThat(capabilities.isSupportsIntersects()).isEqualTo(true);
+    assertThat(capabilities.isSupportsBatchLoading()).isEqualTo(true);
+    assertThat(capabilities.isSupportsCql2InOperator()).isEqualTo(true);
+    assertThat(capabilities.isSupportsAdHocQuery()).isEqualTo(false);
   }
 
   @Test
@@ -34,23 +40,49 @@ public class OgcApiFeaturesConfigurationTest {
     assertThat(config.getApiLandingPage()).isEqualTo("https://wau.ldproxy.net/bgt");
     assertThat(config.isSupportsPropertySelection()).isEqualTo(false);
     assertThat(config.isSupportsRelProfiles()).isEqualTo(false);
-    assertThat(config.isSupportsIntersects()).isEqualTo(true);
-    assertThat(config.isSupportsBatchLoading()).isEqualTo(true);
-    assertThat(config.isSupportsCql2InOperator()).isEqualTo(true);
-    assertThat(config.isSupportsAdHocQuery()).isEqualTo(false);
+    var capabilities = config.getCapabilities().block();
+    assertThat(capabilities.isSupportsIntersects()).isEqualTo(true);
+    assertThat(capabilities.isSupportsBatchLoading()).isEqualTo(true);
+    assertThat(capabilities.isSupportsCql2InOperator()).isEqualTo(true);
+    assertThat(capabilities.isSupportsAdHocQuery()).isEqualTo(false);
   }
 
   @Test
   void test_404() {
-    assertThatThrownBy(
-        () -> new OgcApiFeaturesConfiguration(DUMMY, "https://wau.ldproxy.net/abc", 10, false, false)).hasMessage(
+    var config = new OgcApiFeaturesConfiguration(DUMMY, "https://wau.ldproxy.net/abc", 10, false, false);
+    assertThatThrownBy(() -> config.getCapabilities().block()).hasMessage(
         "Conformance Declaration request returned a status different than 200: 404. URI: https://wau.ldproxy.net/abc/conformance");
   }
 
   @Test
   void test_no_cql2() {
-    assertThatThrownBy(
-        () -> new OgcApiFeaturesConfiguration(DUMMY, "https://ri.ldproxy.net/vineyards", 10, false, false)).hasMessage(
+    var config = new OgcApiFeaturesConfiguration(DUMMY, "https://ri.ldproxy.net/vineyards", 10, false, false);
+    assertThatThrownBy(() -> config.getCapabilities().block()).hasMessage(
         "APIs must support the OGC API Feature 'CQL2 Text' conformance class.");
   }
+
+  @Test
+  void test_snapshot(@TempDir Path directory) {
+    var discovery = DiscoveryOptions.builder().snapshotDirectory(directory).build();
+    var apiLandingPage = "http://localhost:1/bag";
+    new DiscoverySnapshot(directory, apiLandingPage, discovery.getSnapshotTtl(), OgcApiFeaturesConfiguration.MAPPER,
+        Clock.systemUTC()).write(OgcApiFeaturesConfiguration.CONFORMANCE_SNAPSHOT, Map.of("conformsTo", List.of(
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core",
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson",
+        "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs",
+        "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter",
+        "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text")));
+
+    // the API is not available, the capabilities are taken from the snapshot
+    var config = OgcApiFeaturesConfiguration.builder()
+        .model(DUMMY)
+        .apiLandingPage(apiLandingPage)
+        .limit(10)
+        .discovery(discovery)
+        .build();
+    assertThat(config.getCurrentCapabilities()).isNotNull();
+    var capabilities = config.getCapabilities().block();
+    assertThat(capabilities.isSupportsBatchLoading()).isEqualTo(true);
+    assertThat(capabilities.isSupportsCql2InOperator()).isEqualTo(false);
+  }
 }
@@ -1,9 +1,15 @@
 package de.ii.orchestrate.ogcapi;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.dotwebstack.orchestrate.model.Cardinality.INFINITE;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import graphql.com.google.common.collect.ImmutableMap;
 import graphql.com.google.common.collect.ImmutableSet;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
@@ -19,9 +25,16 @@ import org.dotwebstack.orchestrate.model.filters.FilterExpression;
 import org.dotwebstack.orchestrate.model.types.ScalarTypes;
 import org.dotwebstack.orchestrate.source.BatchRequest;
 import org.dotwebstack.orchestrate.source.CollectionRequest;
+import org.dotwebstack.orchestrate.source.DataRepository;
 import org.dotwebstack.orchestrate.source.ObjectRequest;
 import org.dotwebstack.orchestrate.source.SelectedProperty;
 import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
 import reactor.test.StepVerifier;
 
 public class OgcApiFeaturesDataRepositoryTest {
@@ -183,6 +196,19 @@ public class OgcApiFeaturesDataRepositoryTest {
       ImmutableMap.of("identificatie", "0313010000202088", "status", "Verblijfsobject in gebruik", "maaktDeelUitVan",
           ImmutableMap.of("identificatie", "0313100000187444"));
 
+  private static final int PAGES = 10;
+  private static final int PAGE_SIZE = 2;
+
+  private static final String CONFORMANCE = """
+      {"conformsTo": [
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core",
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson",
+        "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs",
+        "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text",
+        "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter"
+      ]}
+      """;
+
   @Test
   void test_bag_findOne() {
     var bag = new OgcApiFeaturesSource(
@@ -261,7 +287,7 @@ public class OgcApiFeaturesDataRepositoryTest {
     var result = bag.find(collectionRequest);
 
     StepVerifier.create(result).expectNext(PAND_0313100000183898).expectNext(PAND_0313100000184339)
-        .expectNext(PAND_0313100000184467).verifyComplete();
+        .expectNext(PAND_0313100000184467).thenCancel().verify();
 
     var verblijfsobject = BAG.getObjectType("Verblijfsobject");
     collectionRequest = CollectionRequest.builder()
@@ -275,7 +301,7 @@ public class OgcApiFeaturesDataRepositoryTest {
     result = bag.find(collectionRequest);
     StepVerifier.create(result).expectNext(VERBLIJFSOBJECT_0313010000193752)
         .expectNext(VERBLIJFSOBJECT_0313010000195924)
-        .expectNext(VERBLIJFSOBJECT_0313010000202088).verifyComplete();
+        .expectNext(VERBLIJFSOBJECT_0313010000202088).thenCancel().verify();
   }
 
   @Test
@@ -312,4 +338,219 @@ public class OgcApiFeaturesDataRepositoryTest {
         .expectNext(VERBLIJFSOBJECT_0313010000195924)
         .expectNext(VERBLIJFSOBJECT_0313010000202088).verifyComplete();
   }
+
+  @Test
+  void test_find_follows_next_links() {
+    List<Integer> pages = Collections.synchronizedList(new ArrayList<>());
+    var server = startPagedServer(pages);
+    try {
+      var result = getPagedRepository(server).find(getPandRequest());
+
+      StepVerifier.create(result)
+          .expectNext(getPagedFeature(0), getPagedFeature(1))
+          .expectNextCount(PAGES * PAGE_SIZE - 3)
+          .expectNext(getPagedFeature(PAGES * PAGE_SIZE - 1))
+          .verifyComplete();
+      assertThat(pages).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_find_stops_paging_on_cancel() throws InterruptedException {
+    List<Integer> pages = Collections.synchronizedList(new ArrayList<>());
+    var server = startPagedServer(pages);
+    try {
+      var result = getPagedRepository(server).find(getPandRequest()).take(PAGE_SIZE + 1);
+
+      StepVerifier.create(result).expectNextCount(PAGE_SIZE + 1).verifyComplete();
+      Thread.sleep(300);
+      assertThat(pages).containsExactly(1, 2);
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_find_prefetches_a_bounded_number_of_pages() {
+    List<Integer> pages = Collections.synchronizedList(new ArrayList<>());
+    var server = startPagedServer(pages);
+    try {
+      var result = getPagedRepository(server).find(getPandRequest());
+
+      // with a demand of one feature, limitRate(pagePrefetch * page size) requests the features of two pages; the
+      // request for the third page is sent once the second page has been received, no further pages are requested
+      StepVerifier.create(result, 1)
+          .expectNext(getPagedFeature(0))
+          .thenAwait(Duration.ofMillis(300))
+          .then(() -> assertThat(pages).containsExactly(1, 2, 3))
+          .thenRequest(PAGES * PAGE_SIZE)
+          .expectNextCount(PAGES * PAGE_SIZE - 1)
+          .verifyComplete();
+      assertThat(pages).hasSize(PAGES);
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_find_prefetches_pages_of_the_maximum_size_of_the_api() {
+    List<Integer> pages = Collections.synchronizedList(new ArrayList<>());
+    var server = startPagedServer(pages);
+    try {
+      // the configured limit exceeds the maximum of the API, the pages have the maximum size
+      var result = getPagedRepository(server, PAGE_SIZE * PAGES).find(getPandRequest());
+
+      StepVerifier.create(result, 1)
+          .expectNext(getPagedFeature(0))
+          .thenAwait(Duration.ofMillis(300))
+          .then(() -> assertThat(pages).containsExactly(1, 2, 3))
+          .thenRequest(PAGES * PAGE_SIZE)
+          .expectNextCount(PAGES * PAGE_SIZE - 1)
+          .verifyComplete();
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_local_spatial_filter_requests_geometries_without_simplification() {
+    List<String> queries = Collections.synchronizedList(new ArrayList<>());
+    var server = HttpServer.create()
+        .port(0)
+        .route(routes -> routes
+            .get("/api/conformance", (request, response) -> response.sendString(Mono.just(CONFORMANCE)))
+            .get("/api/collections/Pand/items", (request, response) -> {
+              queries.add(new QueryStringDecoder(request.uri()).rawQuery());
+              return response.sendString(Mono.just("{\"type\": \"FeatureCollection\", \"features\": [" +
+                  "{\"type\": \"Feature\", \"id\": \"1\", \"geometry\": {\"type\": \"Point\", " +
+                  "\"coordinates\": [10.0, 10.0]}, \"properties\": {\"oorspronkelijkBouwjaar\": 1901}}]}"));
+            }))
+        .bindNow();
+    try {
+      var repository = new OgcApiFeaturesSource(OgcApiFeaturesConfiguration.builder()
+          .model(BAG)
+          .apiLandingPage("http://localhost:" + server.port() + "/api")
+          .limit(PAGE_SIZE)
+          .jtsGeometries(true)
+          .transfer(TransferOptions.builder().detectCapabilities(false).maxAllowableOffset(1.0).build())
+          .build()).getDataRepository();
+      var pand = BAG.getObjectType("Pand");
+      var geometryFactory = new GeometryFactory(new PrecisionModel(), 28992);
+      var request = CollectionRequest.builder()
+          .objectType(pand)
+          .selectedProperties(List.of(new SelectedProperty(pand.getProperty("oorspronkelijkBouwjaar")),
+              new SelectedProperty(pand.getProperty("geometrie"))))
+          .filter(FilterExpression.builder()
+              .operator(() -> "intersects")
+              .path(Path.fromString("geometrie"))
+              .value(geometryFactory.toGeometry(new Envelope(0, 20, 0, 20)))
+              .build())
+          .build();
+
+      // the API does not support spatial filters, the filter is evaluated on the geometries as received
+      StepVerifier.create(repository.find(request)).expectNextCount(1).verifyComplete();
+      assertThat(queries).hasSize(1).allSatisfy(query -> assertThat(query).doesNotContain("maxAllowableOffset"));
+
+      StepVerifier.create(repository.find(CollectionRequest.builder()
+              .objectType(pand)
+              .selectedProperties(request.getSelectedProperties())
+              .build()))
+          .expectNextCount(1).verifyComplete();
+      assertThat(queries).hasSize(2).last().asString().contains("maxAllowableOffset=1.0");
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void test_batch_filter_is_typed_and_escaped() {
+    var repository = new OgcApiFeaturesDataRepository(OgcApiFeaturesConfiguration.builder()
+        .model(BAG)
+        .apiLandingPage("http://localhost/api")
+        .transfer(TransferOptions.builder().detectCapabilities(false).build())
+        .build());
+    var capabilities = Capabilities.of(List.of("http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/core",
+        "http://www.opengis.net/spec/ogcapi-features-1/1.0/conf/geojson",
+        "http://www.opengis.net/spec/ogcapi-features-2/1.0/conf/crs",
+        "http://www.opengis.net/spec/cql2/1.0/conf/cql2-text",
+        "http://www.opengis.net/spec/ogcapi-features-3/1.0/conf/features-filter"));
+    var descriptor = new CollectionDescriptor("Pand", Map.of("identificatie", "string", "nummer", "integer"), null,
+        null);
+    var keys = List.of("0001", "'s-Gravenhage");
+
+    assertThat(repository.getBatchFilter("identificatie", keys, capabilities.withSupportsCql2InOperator(true))
+        .toText(descriptor)).isEqualTo("identificatie IN ('0001','''s-Gravenhage')");
+    assertThat(repository.getBatchFilter("identificatie", keys, capabilities).toText(descriptor))
+        .isEqualTo("identificatie='0001' OR identificatie='''s-Gravenhage'");
+    assertThat(repository.getBatchFilter("identificatie", keys, capabilities.withSupportsCql2InOperator(true))
+        .toJson(new ObjectMapper(), descriptor).toString())
+        .isEqualTo("{\"op\":\"in\",\"args\":[{\"property\":\"identificatie\"},[\"0001\",\"'s-Gravenhage\"]]}");
+
+    // the identifiers of an integer queryable are not quoted
+    var numbers = List.of("1", "2");
+    assertThat(repository.getBatchFilter("nummer", numbers, capabilities.withSupportsCql2InOperator(true))
+        .toText(descriptor)).isEqualTo("nummer IN (1,2)");
+    assertThat(repository.getBatchFilter("nummer", numbers, capabilities).toJson(new ObjectMapper(), descriptor)
+        .toString()).isEqualTo("{\"op\":\"or\",\"args\":[{\"op\":\"=\",\"args\":[{\"property\":\"nummer\"},1]}," +
+        "{\"op\":\"=\",\"args\":[{\"property\":\"nummer\"},2]}]}");
+  }
+
+  /**
+   * Serves the features of "Pand" in pages that are linked with "next" links and records the requested pages. The API
+   * definition limits the page size to {@code PAGE_SIZE}.
+   */
+  private static DisposableServer startPagedServer(List<Integer> pages) {
+    return HttpServer.create()
+        .port(0)
+        .route(routes -> routes
+            .get("/api/conformance", (request, response) -> response.sendString(Mono.just(CONFORMANCE)))
+            .get("/api/api", (request, response) -> response.sendString(Mono.just(String.format("{\"paths\": " +
+                "{\"/collections/{collectionId}/items\": {\"get\": {\"parameters\": [{\"name\": \"limit\", " +
+                "\"in\": \"query\", \"schema\": {\"type\": \"integer\", \"maximum\": %d}}]}}}}", PAGE_SIZE))))
+            .get("/api/collections/Pand/items", (request, response) -> {
+              var parameters = new QueryStringDecoder(request.uri()).parameters();
+              var page = Integer.parseInt(parameters.getOrDefault("page", List.of("1")).get(0));
+              pages.add(page);
+              List<String> features = new ArrayList<>();
+              for (int i = (page - 1) * PAGE_SIZE; i < page * PAGE_SIZE; i++) {
+                features.add(String.format("{\"type\": \"Feature\", \"id\": \"%d\", \"geometry\": null, " +
+                    "\"properties\": {\"oorspronkelijkBouwjaar\": %d}}", i, 1900 + i));
+              }
+              var next = page < PAGES ? String.format(", \"links\": [{\"rel\": \"next\", " +
+                  "\"href\": \"http://localhost:%s/api/collections/Pand/items?page=%d\"}]", request.hostPort(),
+                  page + 1) : "";
+              return response.sendString(Mono.just(String.format("{\"type\": \"FeatureCollection\", " +
+                  "\"features\": [%s]%s}", String.join(", ", features), next)));
+            }))
+        .bindNow();
+  }
+
+  private static DataRepository getPagedRepository(DisposableServer server) {
+    return getPagedRepository(server, PAGE_SIZE);
+  }
+
+  private static DataRepository getPagedRepository(DisposableServer server, int limit) {
+    return new OgcApiFeaturesSource(OgcApiFeaturesConfiguration.builder()
+        .model(BAG)
+        .apiLandingPage("http://localhost:" + server.port() + "/api")
+        .limit(limit)
+        .transfer(TransferOptions.builder().detectCapabilities(false).build())
+        .build()).getDataRepository();
+  }
+
+  private static CollectionRequest getPandRequest() {
+    var pand = BAG.getObjectType("Pand");
+    return CollectionRequest.builder()
+        .objectType(pand)
+        .selectedProperties(List.of(
+            new SelectedProperty(pand.getProperty("identificatie")),
+            new SelectedProperty(pand.getProperty("oorspronkelijkBouwjaar"))))
+        .build();
+  }
+
+  private static Map<String, Object> getPagedFeature(int i) {
+    return Map.of("identificatie", String.valueOf(i), "oorspronkelijkBouwjaar", 1900 + i);
+  }
 }
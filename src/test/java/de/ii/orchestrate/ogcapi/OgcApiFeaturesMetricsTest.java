@@ -0,0 +1,95 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.SignalType;
+
+public class OgcApiFeaturesMetricsTest {
+
+  private static final ObjectType PAND = ObjectType.builder()
+      .name("Pand")
+      .property(Attribute.builder()
+          .name("identificatie")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .identifier(true)
+          .build())
+      .build();
+
+  private static final ProjectionPlan PLAN = ProjectionPlan.compile(Model.builder().alias("bag").objectType(PAND)
+      .build(), List.of(new SelectedProperty(PAND.getProperty("identificatie"))));
+
+  private static final String SOURCE = "https://wau.ldproxy.net/bag";
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final OgcApiFeaturesMetrics metrics = new OgcApiFeaturesMetrics(registry, SOURCE);
+
+  @Test
+  void test_exchange() {
+    var decoder = GeoJsonDecoder.forFeatureCollection(new ObjectMapper(), PLAN);
+    var request = metrics.start("Pand", OgcApiFeaturesMetrics.FIND, "GET", 120);
+    request.responseReceived(200);
+    request.decoding(decoder, null);
+    decoder.feed("""
+        {"type": "FeatureCollection", "features": [{"type": "Feature", "id": "1"}, {"type": "Feature", "id": "2"}]}
+        """.getBytes(StandardCharsets.UTF_8));
+    decoder.endOfInput();
+    request.finished(SignalType.ON_COMPLETE);
+
+    assertThat(registry.get("orchestrate.ogcapi.requests")
+        .tags("source", SOURCE, "collection", "Pand", "operation", "find", "method", "GET", "status", "200",
+            "outcome", "SUCCESS")
+        .timer()
+        .count()).isEqualTo(1);
+    assertThat(registry.get("orchestrate.ogcapi.request.ttfb").timer().count()).isEqualTo(1);
+    assertThat(registry.get("orchestrate.ogcapi.response.decode").timer().count()).isEqualTo(1);
+    assertThat(registry.get("orchestrate.ogcapi.response.features").summary().totalAmount()).isEqualTo(2);
+    assertThat(registry.get("orchestrate.ogcapi.response.size").summary().totalAmount()).isGreaterThan(100);
+    assertThat(registry.get("orchestrate.ogcapi.response.wire.size").tags("encoding", "identity").summary()
+        .totalAmount()).isEqualTo(registry.get("orchestrate.ogcapi.response.size").summary().totalAmount());
+    assertThat(registry.find("orchestrate.ogcapi.response.decompress").timer()).isNull();
+    assertThat(registry.get("orchestrate.ogcapi.request.uri.length").summary().totalAmount()).isEqualTo(120);
+  }
+
+  @Test
+  void test_failed_exchange() {
+    var request = metrics.start("Pand", OgcApiFeaturesMetrics.FIND_ONE, "GET", 80);
+    request.finished(SignalType.ON_ERROR);
+
+    assertThat(registry.get("orchestrate.ogcapi.requests").tags("status", "NONE", "outcome", "ERROR").timer().count())
+        .isEqualTo(1);
+    assertThat(registry.find("orchestrate.ogcapi.response.transfer").timer()).isNull();
+  }
+
+  @Test
+  void test_batch_strategy() {
+    metrics.batchStrategy("Pand", "GET", "in");
+    metrics.batchStrategy("Pand", "GET", "in");
+    metrics.batchStrategy("Pand", "POST", "ad-hoc");
+
+    assertThat(registry.get("orchestrate.ogcapi.batch.requests").tags("strategy", "in").counter().count())
+        .isEqualTo(2);
+    assertThat(registry.get("orchestrate.ogcapi.batch.requests").tags("strategy", "ad-hoc").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void test_uri_tag() {
+    assertThat(TransportOptions.getUriTag("/bag/collections/Pand/items/0034100000000360?crs=x"))
+        .isEqualTo("/bag/collections/Pand/items/{featureId}");
+    assertThat(TransportOptions.getUriTag("/bag/collections/Pand/items?limit=10"))
+        .isEqualTo("/bag/collections/Pand/items");
+  }
+}
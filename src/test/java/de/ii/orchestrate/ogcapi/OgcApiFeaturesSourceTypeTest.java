@@ -0,0 +1,34 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Map;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+
+public class OgcApiFeaturesSourceTypeTest {
+
+  @Test
+  void test_durations() {
+    assertThat(OgcApiFeaturesSourceType.parseDuration(Map.of("timeout", 1500), "timeout"))
+        .isEqualTo(Duration.ofMillis(1500));
+    assertThat(OgcApiFeaturesSourceType.parseDuration(Map.of("timeout", "250ms"), "timeout"))
+        .isEqualTo(Duration.ofMillis(250));
+    assertThat(OgcApiFeaturesSourceType.parseDuration(Map.of("timeout", "30s"), "timeout"))
+        .isEqualTo(Duration.ofSeconds(30));
+    assertThat(OgcApiFeaturesSourceType.parseDuration(Map.of("timeout", "5m"), "timeout"))
+        .isEqualTo(Duration.ofMinutes(5));
+    assertThat(OgcApiFeaturesSourceType.parseDuration(Map.of("timeout", "PT1H"), "timeout"))
+        .isEqualTo(Duration.ofHours(1));
+    assertThat(OgcApiFeaturesSourceType.parseDuration(Map.of(), "timeout")).isNull();
+  }
+
+  @Test
+  void test_invalid_duration() {
+    assertThatThrownBy(() -> OgcApiFeaturesSourceType.parseDuration(Map.of("timeout", "soon"), "timeout"))
+        .isInstanceOf(SourceException.class)
+        .hasMessage("Config 'timeout' is not a valid duration: soon");
+  }
+}
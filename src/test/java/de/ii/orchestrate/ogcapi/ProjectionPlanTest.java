@@ -0,0 +1,135 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import graphql.com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Map;
+import org.dotwebstack.orchestrate.ext.spatial.GeometryType;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.ObjectTypeRef;
+import org.dotwebstack.orchestrate.model.Relation;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+
+public class ProjectionPlanTest {
+
+  private static final Model BAG = Model.builder()
+      .alias("bag")
+      .objectType(ObjectType.builder()
+          .name("Pand")
+          .property(Attribute.builder()
+              .name("identificatie")
+              .type(ScalarTypes.STRING)
+              .cardinality(Cardinality.REQUIRED)
+              .identifier(true)
+              .build())
+          .build())
+      .objectType(ObjectType.builder()
+          .name("Verblijfsobject")
+          .property(Attribute.builder()
+              .name("identificatie")
+              .type(ScalarTypes.STRING)
+              .cardinality(Cardinality.REQUIRED)
+              .identifier(true)
+              .build())
+          .property(Attribute.builder()
+              .name("status")
+              .type(ScalarTypes.STRING)
+              .cardinality(Cardinality.REQUIRED)
+              .build())
+          .property(Relation.builder()
+              .name("maaktDeelUitVan")
+              .target(ObjectTypeRef.forType("Pand"))
+              .cardinality(Cardinality.MULTI)
+              .build())
+          .build())
+      .build();
+
+  private static final ObjectType PAND = BAG.getObjectType("Pand");
+
+  private static final ObjectType VERBLIJFSOBJECT = BAG.getObjectType("Verblijfsobject");
+
+  private static final List<SelectedProperty> SELECTION = List.of(
+      new SelectedProperty(VERBLIJFSOBJECT.getProperty("identificatie")),
+      new SelectedProperty(VERBLIJFSOBJECT.getProperty("status")),
+      new SelectedProperty(VERBLIJFSOBJECT.getProperty("maaktDeelUitVan"),
+          ImmutableSet.of(new SelectedProperty(PAND.getProperty("identificatie")))));
+
+  @Test
+  void test_members() {
+    var plan = ProjectionPlan.compile(BAG, SELECTION);
+    assertThat(plan.isSelected("status")).isTrue();
+    assertThat(plan.isSelected("maaktDeelUitVan")).isTrue();
+    assertThat(plan.isSelected("oorspronkelijkBouwjaar")).isFalse();
+    assertThat(plan.needsGeometry()).isFalse();
+  }
+
+  @Test
+  void test_primary_geometry_is_the_fallback_of_each_geometry_attribute() {
+    var perceel = ObjectType.builder()
+        .name("Perceel")
+        .property(Attribute.builder()
+            .name("begrenzing")
+            .type(new GeometryType())
+            .cardinality(Cardinality.REQUIRED)
+            .build())
+        .property(Attribute.builder()
+            .name("plaatscoordinaten")
+            .type(new GeometryType())
+            .cardinality(Cardinality.OPTIONAL)
+            .build())
+        .build();
+    var plan = ProjectionPlan.compile(Model.builder().alias("brk").objectType(perceel).build(),
+        List.of(new SelectedProperty(perceel.getProperty("begrenzing")),
+            new SelectedProperty(perceel.getProperty("plaatscoordinaten"))));
+    var primary = Map.of("type", "Polygon");
+    var point = Map.of("type", "Point");
+    assertThat(plan.needsGeometry()).isTrue();
+
+    var feature = plan.newFeature();
+    feature.geometry(primary);
+    assertThat(feature.build()).isEqualTo(Map.of("begrenzing", primary, "plaatscoordinaten", primary));
+
+    feature = plan.newFeature();
+    feature.geometry(primary);
+    feature.property("plaatscoordinaten", point);
+    assertThat(feature.build()).isEqualTo(Map.of("begrenzing", primary, "plaatscoordinaten", point));
+  }
+
+  @Test
+  void test_feature_id_takes_precedence() {
+    var plan = ProjectionPlan.compile(BAG, SELECTION);
+    var properties = Map.<String, Object>of("identificatie", "other", "status", "Verblijfsobject in gebruik");
+    assertThat(plan.project("0034010000006016", properties))
+        .isEqualTo(Map.of("identificatie", "0034010000006016", "status", "Verblijfsobject in gebruik"));
+    assertThat(plan.project(null, Map.of("identificatie", "0034010000006016")))
+        .isEqualTo(Map.of("identificatie", "0034010000006016"));
+  }
+
+  @Test
+  void test_relations() {
+    var plan = ProjectionPlan.compile(BAG, SELECTION);
+    assertThat(plan.project("1", Map.of("maaktDeelUitVan", "0034100000000360")))
+        .isEqualTo(Map.of("identificatie", "1", "maaktDeelUitVan", Map.of("identificatie", "0034100000000360")));
+    assertThat(plan.project("1", Map.of("maaktDeelUitVan", Map.of("identificatie", "0034100000000360", "x", 1))))
+        .isEqualTo(Map.of("identificatie", "1", "maaktDeelUitVan", Map.of("identificatie", "0034100000000360")));
+    assertThat(plan.project("1", Map.of("maaktDeelUitVan", List.of("0034100000000360", Map.of("identificatie", "2")))))
+        .isEqualTo(Map.of("identificatie", "1", "maaktDeelUitVan",
+            List.of(Map.of("identificatie", "0034100000000360"), Map.of("identificatie", "2"))));
+    assertThatThrownBy(() -> plan.project("1", Map.of("maaktDeelUitVan", 42))).isInstanceOf(SourceException.class)
+        .hasMessage("Unsupported value type: Integer");
+  }
+
+  @Test
+  void test_cache_key() {
+    assertThat(ProjectionPlan.getCacheKey(VERBLIJFSOBJECT, SELECTION))
+        .isEqualTo("Verblijfsobject:identificatie,status,maaktDeelUitVan(identificatie)");
+  }
+}
@@ -0,0 +1,119 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.dotwebstack.orchestrate.model.Attribute;
+import org.dotwebstack.orchestrate.model.Cardinality;
+import org.dotwebstack.orchestrate.model.Model;
+import org.dotwebstack.orchestrate.model.ObjectType;
+import org.dotwebstack.orchestrate.model.types.ScalarTypes;
+import org.dotwebstack.orchestrate.source.SelectedProperty;
+import org.junit.jupiter.api.Test;
+
+public class ReplicaStoreTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ObjectType PAND = ObjectType.builder()
+      .name("Pand")
+      .property(Attribute.builder()
+          .name("identificatie")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .identifier(true)
+          .build())
+      .property(Attribute.builder()
+          .name("status")
+          .type(ScalarTypes.STRING)
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .property(Attribute.builder()
+          .name("oorspronkelijkBouwjaar")
+          .type(ScalarTypes.INTEGER)
+          .cardinality(Cardinality.REQUIRED)
+          .build())
+      .build();
+
+  private static final Model BAG = Model.builder().alias("bag").objectType(PAND).build();
+
+  private static final String FEATURES = """
+      [
+        {"type": "Feature", "id": "1", "geometry": null,
+         "properties": {"status": "Pand in gebruik", "oorspronkelijkBouwjaar": 2005, "buurten": ["A", "B"]}},
+        {"type": "Feature", "id": "2", "geometry": null,
+         "properties": {"status": "Pand gesloopt", "oorspronkelijkBouwjaar": 1967, "buurten": ["B"]}},
+        {"type": "Feature", "id": "3", "geometry": null,
+         "properties": {"status": "Pand in gebruik", "oorspronkelijkBouwjaar": 1967, "buurten": []}}
+      ]
+      """;
+
+  @Test
+  void test_features_are_found_by_identifier_and_indexed_values() throws IOException {
+    try (var store = load(List.of("status", "oorspronkelijkBouwjaar"))) {
+      assertThat(store.size()).isEqualTo(3);
+      assertThat(ids(List.of(store.get("2")))).containsExactly("2");
+      assertThat(store.get("4")).isNull();
+
+      assertThat(ids(store.find(Map.of("status", "Pand in gebruik")))).containsExactly("1", "3");
+      assertThat(ids(store.find(Map.of("status", "Pand in gebruik", "oorspronkelijkBouwjaar", "1967"))))
+          .containsExactly("3");
+      assertThat(ids(store.find(Map.of("identificatie", "1", "status", "Pand gesloopt")))).isEmpty();
+      assertThat(ids(store.find(Map.of()))).containsExactly("1", "2", "3");
+    }
+  }
+
+  @Test
+  void test_array_values_are_indexed_element_by_element() throws IOException {
+    try (var store = load(List.of("buurten"))) {
+      assertThat(store.isIndexed("identificatie")).isTrue();
+      assertThat(store.isIndexed("buurten")).isTrue();
+      assertThat(store.isIndexed("status")).isFalse();
+
+      assertThat(ids(store.find(Map.of("buurten", "B")))).containsExactly("1", "2");
+      assertThat(ids(store.find(Map.of("buurten", "C")))).isEmpty();
+    }
+  }
+
+  @Test
+  void test_stored_features_are_decoded_with_the_projection_plan() throws IOException {
+    var plan = ProjectionPlan.compile(BAG, List.of(new SelectedProperty(PAND.getProperty("identificatie")),
+        new SelectedProperty(PAND.getProperty("oorspronkelijkBouwjaar"))));
+    try (var store = load(List.of())) {
+      var decoder = GeoJsonDecoder.forFeature(MAPPER, plan);
+      List<Map<String, Object>> features = new ArrayList<>(decoder.feed(Unpooled.wrappedBuffer(store.get("1"))));
+      features.addAll(decoder.endOfInput());
+
+      assertThat(features).containsExactly(Map.of("identificatie", "1", "oorspronkelijkBouwjaar", 2005));
+    }
+  }
+
+  private static ReplicaStore load(List<String> indexes) {
+    try (var builder = ReplicaStore.builder(MAPPER, "identificatie", indexes)) {
+      var splitter = new GeoJsonFeatureSplitter(MAPPER);
+      splitter.feed(Unpooled.copiedBuffer("{\"type\": \"FeatureCollection\", \"features\": " + FEATURES + "}",
+          StandardCharsets.UTF_8)).forEach(builder::add);
+      splitter.endOfInput().forEach(builder::add);
+      return builder.build();
+    }
+  }
+
+  private static List<String> ids(List<ByteBuffer> features) throws IOException {
+    List<String> ids = new ArrayList<>();
+    for (var feature : features) {
+      var bytes = new byte[feature.remaining()];
+      feature.duplicate().get(bytes);
+      JsonNode node = MAPPER.readTree(bytes);
+      ids.add(node.get("id").asText());
+    }
+    return ids;
+  }
+}
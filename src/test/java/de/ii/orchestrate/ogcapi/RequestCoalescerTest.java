@@ -0,0 +1,106 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class RequestCoalescerTest {
+
+  private static final Map<String, Object> FEATURE = Map.of("identificatie", "0034100000000360");
+
+  private final RequestCoalescer coalescer = new RequestCoalescer();
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  @Test
+  void test_concurrent_requests_share_one_exchange() {
+    var response = Sinks.many().unicast().<Map<String, Object>>onBackpressureBuffer();
+    var first = exchange(response.asFlux()).getFeatures().collectList();
+    var second = exchange(response.asFlux()).getFeatures().collectList();
+
+    var firstResult = first.toFuture();
+    var secondResult = second.toFuture();
+    response.tryEmitNext(FEATURE);
+    assertThat(coalescer.getInFlightCount()).isZero();
+    response.tryEmitComplete();
+
+    assertThat(firstResult.join()).containsExactly(FEATURE);
+    assertThat(secondResult.join()).containsExactly(FEATURE);
+    assertThat(requests).hasValue(1);
+    assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+    assertThat(coalescer.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void test_late_subscriber_sends_its_own_request() {
+    var response = Sinks.many().multicast().<Map<String, Object>>onBackpressureBuffer();
+    var exchange = exchange(response.asFlux());
+    var firstResult = exchange.getFeatures().collectList().toFuture();
+    response.tryEmitNext(FEATURE);
+
+    var secondResult = exchange.getFeatures().collectList().toFuture();
+    response.tryEmitNext(FEATURE);
+    response.tryEmitComplete();
+
+    assertThat(firstResult.join()).containsExactly(FEATURE, FEATURE);
+    assertThat(secondResult.join()).containsExactly(FEATURE);
+    assertThat(requests).hasValue(2);
+    assertThat(coalescer.getCoalescedCount()).isZero();
+  }
+
+  @Test
+  void test_completed_exchange_is_not_reused() {
+    StepVerifier.create(exchange(Flux.just(FEATURE)).getFeatures()).expectNext(FEATURE).verifyComplete();
+    StepVerifier.create(exchange(Flux.just(FEATURE)).getFeatures()).expectNext(FEATURE).verifyComplete();
+    assertThat(requests).hasValue(2);
+    assertThat(coalescer.getCoalescedCount()).isZero();
+  }
+
+  @Test
+  void test_errors_are_shared_but_not_cached() {
+    var first = exchange(Flux.error(new SourceException("Unavailable.")));
+    assertThat(exchange(Flux.never())).isSameAs(first);
+    StepVerifier.create(first.getFeatures()).verifyErrorMessage("Unavailable.");
+
+    StepVerifier.create(exchange(Flux.just(FEATURE)).getFeatures()).expectNext(FEATURE).verifyComplete();
+    assertThat(requests).hasValue(2);
+  }
+
+  @Test
+  void test_request_is_cancelled_with_the_last_subscriber() {
+    var cancelled = new AtomicBoolean();
+    var exchange = exchange(Flux.<Map<String, Object>>never().doOnCancel(() -> cancelled.set(true)));
+    var first = exchange.getFeatures().subscribe();
+    var second = exchange.getFeatures().subscribe();
+
+    first.dispose();
+    assertThat(cancelled).isFalse();
+    second.dispose();
+    assertThat(cancelled).isTrue();
+    assertThat(coalescer.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void test_different_keys_are_not_coalesced() {
+    var first =
+        coalescer.exchange("GET https://example.org/a Pand:identificatie", () -> null, decoder -> Flux.empty());
+    var second =
+        coalescer.exchange("GET https://example.org/b Pand:identificatie", () -> null, decoder -> Flux.empty());
+    assertThat(first).isNotSameAs(second);
+  }
+
+  private RequestCoalescer.Exchange exchange(Flux<Map<String, Object>> response) {
+    return coalescer.exchange("GET https://example.org/collections/Pand/items/1 Pand:identificatie", () -> null,
+        decoder -> {
+          requests.incrementAndGet();
+          return response;
+        });
+  }
+}
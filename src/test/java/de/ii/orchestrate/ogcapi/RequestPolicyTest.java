@@ -0,0 +1,126 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class RequestPolicyTest {
+
+  private static final Map<String, Object> FEATURE = Map.of("identificatie", "0034100000000360");
+
+  private static final ResilienceOptions OPTIONS = ResilienceOptions.builder()
+      .minBackoff(Duration.ofMillis(1))
+      .maxBackoff(Duration.ofMillis(5))
+      .build();
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final AtomicInteger attempts = new AtomicInteger();
+
+  @Test
+  void test_transient_errors_are_retried() {
+    var policy = new RequestPolicy(OPTIONS, new OgcApiFeaturesMetrics(registry, "source"));
+    var features = Flux.defer(() -> attempts.incrementAndGet() < 3 ?
+        Flux.<Map<String, Object>>error(new RequestPolicy.TransientStatusException("503")) : Flux.just(FEATURE));
+
+    StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND, "GET"))
+        .expectNext(FEATURE)
+        .verifyComplete();
+    assertThat(attempts).hasValue(3);
+    assertThat(registry.get("orchestrate.ogcapi.requests.retries").tags("reason", "status").counter().count())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void test_exhausted_retries_are_reported_as_source_exception() {
+    var policy = new RequestPolicy(OPTIONS, new OgcApiFeaturesMetrics(registry, "source"));
+    var features = Flux.defer(() -> {
+      attempts.incrementAndGet();
+      return Flux.<Map<String, Object>>error(new RequestPolicy.TransientStatusException("Status 503."));
+    });
+
+    StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND, "GET"))
+        .verifyErrorSatisfies(error -> assertThat(error).isInstanceOf(SourceException.class).hasMessage("Status 503."));
+    assertThat(attempts).hasValue(3);
+  }
+
+  @Test
+  void test_no_retry_after_features_have_been_emitted() {
+    var policy = new RequestPolicy(OPTIONS, new OgcApiFeaturesMetrics(registry, "source"));
+    var features = Flux.defer(() -> {
+      attempts.incrementAndGet();
+      return Flux.just(FEATURE).concatWith(Flux.error(new IOException("Connection reset")));
+    });
+
+    StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND, "GET"))
+        .expectNext(FEATURE)
+        .verifyError(IOException.class);
+    assertThat(attempts).hasValue(1);
+    // other errors are not transient
+    StepVerifier.create(policy.apply(Flux.defer(() -> {
+          attempts.incrementAndGet();
+          return Flux.error(new SourceException("Status 400."));
+        }), "Pand", OgcApiFeaturesMetrics.FIND, "GET"))
+        .verifyError(SourceException.class);
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  void test_timeout() {
+    var options = OPTIONS.toBuilder().findOneTimeout(Duration.ofMillis(20)).maxRetries(1).build();
+    var policy = new RequestPolicy(options, new OgcApiFeaturesMetrics(registry, "source"));
+    var features = Flux.defer(() -> {
+      attempts.incrementAndGet();
+      return Flux.<Map<String, Object>>never();
+    });
+
+    StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND_ONE, "GET"))
+        .verifyErrorMessage("No response from the API within PT0.02S. Collection: Pand, operation: findOne");
+    assertThat(attempts).hasValue(2);
+    assertThat(registry.get("orchestrate.ogcapi.requests.timeouts").counter().count()).isEqualTo(2);
+  }
+
+  @Test
+  void test_hedged_request() {
+    var options = OPTIONS.toBuilder().hedging(true).minHedgeDelay(Duration.ofMillis(20)).build();
+    var policy = new RequestPolicy(options, new OgcApiFeaturesMetrics(registry, "source"));
+    // no hedged requests before enough latencies have been observed
+    for (int i = 0; i < 20; i++) {
+      StepVerifier.create(policy.apply(Flux.defer(() -> {
+        attempts.incrementAndGet();
+        return Flux.just(FEATURE);
+      }), "Pand", OgcApiFeaturesMetrics.FIND_ONE, "GET")).expectNext(FEATURE).verifyComplete();
+    }
+    assertThat(attempts).hasValue(20);
+
+    // the first attempt hangs, the hedged request responds
+    var features = Flux.defer(() -> attempts.incrementAndGet() == 21 ? Flux.<Map<String, Object>>never() :
+        Flux.just(FEATURE));
+    StepVerifier.create(policy.apply(features, "Pand", OgcApiFeaturesMetrics.FIND_ONE, "GET"))
+        .expectNext(FEATURE)
+        .verifyComplete();
+    assertThat(attempts).hasValue(22);
+    assertThat(registry.get("orchestrate.ogcapi.requests.hedged").tags("winner", "hedge").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void test_latency_percentile() {
+    var tracker = new RequestPolicy.LatencyTracker();
+    for (int i = 1; i <= 19; i++) {
+      tracker.record(i);
+    }
+    assertThat(tracker.getPercentile(0.95)).isNull();
+    tracker.record(20);
+    assertThat(tracker.getPercentile(0.95)).isEqualTo(19);
+    assertThat(tracker.getPercentile(0.5)).isEqualTo(10);
+  }
+}
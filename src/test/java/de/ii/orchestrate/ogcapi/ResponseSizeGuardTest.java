@@ -0,0 +1,69 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import org.dotwebstack.orchestrate.source.SourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class ResponseSizeGuardTest {
+
+  private static final String URI = "https://wau.ldproxy.net/bag/collections/Pand/items";
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final OgcApiFeaturesMetrics.Request request =
+      new OgcApiFeaturesMetrics(registry, "https://wau.ldproxy.net/bag").start("Pand", "find", "GET", URI.length());
+
+  @Test
+  void test_response_within_limit() {
+    StepVerifier.create(new ResponseSizeGuard(6, false).guard(chunks("abc", "def"), "6", URI, request)
+            .map(ResponseSizeGuardTest::toString))
+        .expectNext("abc", "def")
+        .verifyComplete();
+    assertThat(registry.find("orchestrate.ogcapi.responses.oversized").counter()).isNull();
+  }
+
+  @Test
+  void test_oversized_response_is_rejected() {
+    StepVerifier.create(new ResponseSizeGuard(4, false).guard(chunks("abc", "def"), null, URI, request)
+            .map(ResponseSizeGuardTest::toString))
+        .expectNext("abc")
+        .expectErrorSatisfies(error -> assertThat(error).isInstanceOf(SourceException.class)
+            .hasMessage("Response exceeds the maximum size of 4 bytes. URI: " + URI))
+        .verify();
+    // the content length is known before the body is read
+    StepVerifier.create(new ResponseSizeGuard(4, false).guard(chunks("abc", "def"), "6", URI, request))
+        .verifyError(SourceException.class);
+
+    assertThat(registry.get("orchestrate.ogcapi.responses.oversized").tags("action", "failed").counter().count())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void test_oversized_response_is_spilled() {
+    var content = new ResponseSizeGuard(4, true).guard(chunks("abc", "def", "ghi"), "9", URI, request)
+        .map(ResponseSizeGuardTest::toString)
+        .collectList()
+        .block();
+
+    assertThat(String.join("", content)).isEqualTo("abcdefghi");
+    assertThat(content.get(0)).isEqualTo("abc");
+    assertThat(registry.get("orchestrate.ogcapi.responses.oversized").tags("action", "spilled").counter().count())
+        .isEqualTo(1);
+    assertThat(registry.get("orchestrate.ogcapi.response.spilled.size").summary().totalAmount()).isEqualTo(6);
+  }
+
+  private static Flux<ByteBuf> chunks(String... chunks) {
+    return Flux.fromArray(chunks).map(chunk -> Unpooled.copiedBuffer(chunk, StandardCharsets.UTF_8));
+  }
+
+  private static String toString(ByteBuf buffer) {
+    return buffer.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,69 @@
+package de.ii.orchestrate.ogcapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+public class SpatialFiltersTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final GeometryFactory FACTORY = new GeometryFactory(new PrecisionModel(), 28992);
+
+  @Test
+  void test_bbox() {
+    assertThat(SpatialFilters.getBbox(new Envelope(194000, 195000.5, 465000, 466000)))
+        .isEqualTo("194000,465000,195000.5,466000");
+  }
+
+  @Test
+  void test_rectangle_is_split_into_rectangles() throws ParseException {
+    var tiles = SpatialFilters.tile(read("POLYGON ((0 0, 250 0, 250 100, 0 100, 0 0))"), 100, 64);
+
+    assertThat(tiles).hasSize(3)
+        .allSatisfy(tile -> {
+          assertThat(tile.isRectangle()).isTrue();
+          assertThat(tile.getSRID()).isEqualTo(28992);
+        });
+    assertThat(tiles.get(2).getEnvelopeInternal()).isEqualTo(new Envelope(200, 250, 0, 100));
+  }
+
+  @Test
+  void test_tiles_outside_of_geometry_are_skipped() throws ParseException {
+    // an L-shaped polygon, the upper right tile does not intersect it
+    var geometry = read("POLYGON ((0 0, 200 0, 200 100, 100 100, 100 200, 0 200, 0 0))");
+    var tiles = SpatialFilters.tile(geometry, 100, 64);
+
+    assertThat(tiles).hasSize(3);
+    assertThat(tiles.stream().mapToDouble(Geometry::getArea).sum()).isEqualTo(geometry.getArea());
+  }
+
+  @Test
+  void test_tiles_are_enlarged_to_max_tiles() throws ParseException {
+    var geometry = read("POLYGON ((0 0, 1000 0, 1000 1000, 0 1000, 0 0))");
+
+    assertThat(SpatialFilters.tile(geometry, 100, 16)).hasSize(16);
+    assertThat(SpatialFilters.tile(geometry, 2000, 16)).containsExactly(geometry);
+  }
+
+  @Test
+  void test_intersects_filter() throws ParseException {
+    var filter = SpatialFilters.getIntersectsFilter(MAPPER, "geometrie",
+        read("POLYGON ((0 0, 10 0, 10 10, 0 0), (2 1, 3 1, 3 2, 2 1))"));
+
+    assertThat(filter.toString()).isEqualTo("{\"op\":\"s_intersects\",\"args\":[{\"property\":\"geometrie\"},"
+        + "{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[10.0,0.0],[10.0,10.0],[0.0,0.0]],"
+        + "[[2.0,1.0],[3.0,1.0],[3.0,2.0],[2.0,1.0]]]}]}");
+  }
+
+  private static Geometry read(String wkt) throws ParseException {
+    return new WKTReader(FACTORY).read(wkt);
+  }
+}